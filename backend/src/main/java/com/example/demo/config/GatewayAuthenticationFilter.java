@@ -8,16 +8,19 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import com.example.demo.security.BodyDigestRequestWrapper;
+import com.example.demo.security.ReplayCache;
+import com.example.demo.security.RequestSigner;
+
 import java.io.IOException;
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
-import java.nio.charset.StandardCharsets;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Strict filter that only allows requests coming through the API gateway.
  * Identifies gateway traffic via signed headers added by the gateway.
+ * Each signed request is accepted once (see {@link ReplayCache}), and a signed body digest
+ * is checked before the request is passed on (see {@link BodyDigestRequestWrapper}).
  */
 @Component
 public class GatewayAuthenticationFilter extends OncePerRequestFilter {
@@ -27,12 +30,24 @@ public class GatewayAuthenticationFilter extends OncePerRequestFilter {
     @Value("${gateway.enabled:true}")
     private boolean gatewayEnabled;
 
-    @Value("${gateway.shared.secret:change-me}")
-    private String sharedSecret;
+    private static final String UNSIGNED_PAYLOAD = "UNSIGNED-PAYLOAD";
+
+    private final RequestSigner signer;
+    private final ReplayCache replayCache;
 
-    @Value("${gateway.allowed.skew.ms:60000}")
+    @Value("${gateway.allowed.skew.ms:15000}")
     private long allowedSkewMs;
 
+    // The gateway only digests bodies up to this size; it must match the gateway's setting
+    @Value("${gateway.signing.maxDigestBytes:1048576}")
+    private int maxDigestBytes;
+
+    public GatewayAuthenticationFilter(@Value("${gateway.shared.secret:change-me}") String sharedSecret,
+            ReplayCache replayCache) {
+        this.signer = new RequestSigner(sharedSecret);
+        this.replayCache = replayCache;
+    }
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
             FilterChain filterChain) throws ServletException, IOException {
@@ -50,23 +65,42 @@ public class GatewayAuthenticationFilter extends OncePerRequestFilter {
         String tsHeader = request.getHeader("X-Gateway-Timestamp");
         String sigHeader = request.getHeader("X-Gateway-Signature");
         String gwHeader = request.getHeader("X-Gateway-Request");
+        String nonce = request.getHeader("X-Gateway-Nonce");
+        String bodyDigest = request.getHeader("X-Gateway-Content-SHA256");
 
-        if ("true".equals(gwHeader) && tsHeader != null && sigHeader != null) {
+        if ("true".equals(gwHeader) && tsHeader != null && sigHeader != null && nonce != null && bodyDigest != null
+                && nonce.length() <= 64) {
             try {
                 long ts = Long.parseLong(tsHeader);
                 long now = System.currentTimeMillis();
                 if (Math.abs(now - ts) <= allowedSkewMs) {
-                    String payload = request.getMethod() + "\n" + request.getRequestURI() + "\n" + ts;
-                    String expected = sign(payload, sharedSecret);
-                    if (!expected.isEmpty() && constantTimeEquals(expected, sigHeader)) {
+                    boolean valid = signer.verify(request.getMethod(), request.getRequestURI(), ts, nonce, bodyDigest, sigHeader);
+                    if (valid && !replayCache.markSeen(nonce)) {
+                        if (log.isWarnEnabled()) {
+                            log.warn("Gateway nonce REPLAYED for {} {}", request.getMethod(), request.getRequestURI());
+                        }
+                    }
+                    else if (valid) {
                         if (log.isDebugEnabled()) {
                             log.debug("Gateway signature VALID - allowing request {} {}", request.getMethod(), request.getRequestURI());
                         }
-                        filterChain.doFilter(request, response);
-                        return;
+                        HttpServletRequest checked = request;
+                        if (!UNSIGNED_PAYLOAD.equals(bodyDigest)) {
+                            byte[] expected = BodyDigestRequestWrapper.parseDigest(bodyDigest);
+                            checked = expected != null
+                                    ? BodyDigestRequestWrapper.verify(request, expected, maxDigestBytes)
+                                    : null;
+                        }
+                        if (checked != null) {
+                            filterChain.doFilter(checked, response);
+                            return;
+                        }
+                        if (log.isWarnEnabled()) {
+                            log.warn("Gateway body digest MISMATCH for {} {}", request.getMethod(), request.getRequestURI());
+                        }
                     }
-                    if (log.isWarnEnabled()) {
-                        log.warn("Gateway signature INVALID for {} {}: expected={}, provided={}", request.getMethod(), request.getRequestURI(), expected, sigHeader);
+                    else if (log.isWarnEnabled()) {
+                        log.warn("Gateway signature INVALID for {} {}", request.getMethod(), request.getRequestURI());
                     }
                 }
                 else if (log.isWarnEnabled()) {
@@ -106,27 +140,4 @@ public class GatewayAuthenticationFilter extends OncePerRequestFilter {
 
         return false;
     }
-
-    private String sign(String data, String secret) {
-        try {
-            Mac mac = Mac.getInstance("HmacSHA256");
-            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
-            byte[] raw = mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
-            StringBuilder sb = new StringBuilder(raw.length * 2);
-            for (byte b : raw) sb.append(String.format("%02x", b));
-            return sb.toString();
-        } catch (Exception e) {
-            return "";
-        }
-    }
-
-    private boolean constantTimeEquals(String a, String b) {
-        if (a == null || b == null) return false;
-        if (a.length() != b.length()) return false;
-        int result = 0;
-        for (int i = 0; i < a.length(); i++) {
-            result |= a.charAt(i) ^ b.charAt(i);
-        }
-        return result == 0;
-    }
 }
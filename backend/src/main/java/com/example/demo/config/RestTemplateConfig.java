@@ -1,8 +1,22 @@
 package com.example.demo.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
 import java.time.Duration;
@@ -11,12 +25,55 @@ import java.time.Duration;
 public class RestTemplateConfig {
 
     @Bean
+    @Primary
     public RestTemplate restTemplate(RestTemplateBuilder builder) {
         return builder
                 .setConnectTimeout(Duration.ofSeconds(30))
                 .setReadTimeout(Duration.ofSeconds(60))
                 .build();
     }
-}
 
+    /**
+     * Client for the object store: a bounded pool of keep-alive connections, where every
+     * phase (waiting for a pooled connection, connecting, each read) has a timeout, so a slow
+     * store fails requests instead of holding Tomcat threads. Pool usage is exported as
+     * httpcomponents.httpclient.pool.* metrics. A bean of its own so the context closes it,
+     * and its pool and eviction thread with it, on shutdown.
+     */
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient storageHttpClient(
+            MeterRegistry meterRegistry,
+            @Value("${storage.client.maxConnections:64}") int maxConnections,
+            @Value("${storage.client.connectTimeoutMs:2000}") long connectTimeoutMs,
+            @Value("${storage.client.responseTimeoutMs:30000}") long responseTimeoutMs,
+            @Value("${storage.client.poolTimeoutMs:2000}") long poolTimeoutMs) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                // Every request goes to the same host
+                .setMaxConnPerRoute(maxConnections)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                        .setSocketTimeout(Timeout.ofMilliseconds(responseTimeoutMs))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(10))
+                        .setTimeToLive(TimeValue.ofMinutes(5))
+                        .build())
+                .build();
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "storage").bindTo(meterRegistry);
+
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(poolTimeoutMs))
+                        .setResponseTimeout(Timeout.ofMilliseconds(responseTimeoutMs))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofSeconds(30))
+                .build();
+    }
 
+    @Bean
+    public RestTemplate storageRestTemplate(@Qualifier("storageHttpClient") CloseableHttpClient storageHttpClient) {
+        // Request bodies are streamed, not buffered, by this factory
+        return new RestTemplate(new HttpComponentsClientHttpRequestFactory(storageHttpClient));
+    }
+}
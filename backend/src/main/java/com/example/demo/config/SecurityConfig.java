@@ -48,10 +48,16 @@ public class SecurityConfig {
                         .requestMatchers("/api/suggestions/search").authenticated()
                         .requestMatchers("/api/suggestions/users").authenticated()
                         .requestMatchers("/api/users/**").authenticated()
-                        // Static local file serving removed
+                        // Locally stored media is public, like Supabase public bucket URLs
+                        .requestMatchers(HttpMethod.GET, "/api/media/**").permitAll()
+                        .requestMatchers(HttpMethod.HEAD, "/api/media/**").permitAll()
+                        // Direct uploads to local storage carry their own signed URL
+                        .requestMatchers(HttpMethod.PUT, "/api/media/**").permitAll()
                         .requestMatchers("/api/sse/**").authenticated()
                         .requestMatchers("/api/admin/**").hasRole("ADMIN")
                         .requestMatchers("/error").permitAll()
+                        // Gateway health checks
+                        .requestMatchers("/actuator/health").permitAll()
                         .anyRequest().authenticated())
                 .sessionManagement(sess -> sess.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .headers(headers -> headers
@@ -115,7 +121,8 @@ public class SecurityConfig {
         configuration.setAllowedHeaders(Arrays.asList("*"));
         configuration.setAllowCredentials(true);
         configuration.setMaxAge(3600L);
-        configuration.setExposedHeaders(Arrays.asList("Set-Cookie", "Authorization", "Content-Type", "Cache-Control"));
+        configuration.setExposedHeaders(Arrays.asList("Set-Cookie", "Authorization", "Content-Type", "Cache-Control",
+                "X-Total-Count", "X-Next-Cursor"));
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
         source.registerCorsConfiguration("/**", configuration);
         return source;
@@ -1,9 +1,16 @@
 package com.example.demo.controllers;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -16,25 +23,35 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
-import org.springframework.scheduling.annotation.Scheduled;
-import org.springframework.transaction.annotation.Transactional;
 
+import com.example.demo.dtos.AdminPostDto;
+import com.example.demo.dtos.AdminUserDto;
 import com.example.demo.dtos.DashboardStats;
 import com.example.demo.dtos.PostDto;
 import com.example.demo.dtos.Userdto;
 import com.example.demo.dtos.MediaDto;
 import com.example.demo.dtos.ReportDto;
+import com.example.demo.models.JobLock;
+import com.example.demo.models.JobRun;
 import com.example.demo.models.Post;
 import com.example.demo.models.Report;
+import com.example.demo.models.ReportCase;
+import com.example.demo.models.ReportCaseStatus;
+import com.example.demo.models.ReportStatus;
 import com.example.demo.models.User;
+import com.example.demo.models.UserDeletionJob;
 import com.example.demo.models.UserRole;
-import com.example.demo.models.Comment;
-import com.example.demo.models.Like;
-import com.example.demo.models.Subscription;
+import com.example.demo.repositories.JobLockRepository;
+import com.example.demo.repositories.JobRunRepository;
 import com.example.demo.repositories.PostRepository;
 import com.example.demo.repositories.ReportRepository;
 import com.example.demo.repositories.UserRepository;
+import com.example.demo.services.BanExpiryService;
+import com.example.demo.services.CacheInvalidationService;
 import com.example.demo.services.FileStorageService;
+import com.example.demo.services.ReportCaseService;
+import com.example.demo.services.ReportQueueService;
+import com.example.demo.services.UserDeletionService;
 import com.example.demo.repositories.CommentRepository;
 import com.example.demo.repositories.LikeRepository;
 import com.example.demo.repositories.SubscriptionRepository;
@@ -43,6 +60,15 @@ import com.example.demo.repositories.SubscriptionRepository;
 @RequestMapping("/api/admin")
 public class AdminController {
 
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+    // The listings stay plain arrays for existing clients; the total for paging goes in this header
+    private static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+    // Also sent by ReportController, which pages the same report queue
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final java.util.Set<String> USER_SORTS = java.util.Set.of("id", "username", "email", "createdAt", "banEnd");
+    private static final java.util.Set<String> POST_SORTS = java.util.Set.of("id", "title", "createdAt");
+
     private final UserRepository userRepository;
     private final PostRepository postRepository;
     private final ReportRepository reportRepository;
@@ -50,11 +76,21 @@ public class AdminController {
     private final LikeRepository likeRepository;
     private final SubscriptionRepository subscriptionRepository;
     private final FileStorageService fileStorageService;
+    private final CacheInvalidationService cacheInvalidationService;
+    private final UserDeletionService userDeletionService;
+    private final BanExpiryService banExpiryService;
+    private final JobLockRepository jobLockRepository;
+    private final JobRunRepository jobRunRepository;
+    private final ReportQueueService reportQueueService;
+    private final ReportCaseService reportCaseService;
 
     public AdminController(UserRepository userRepository, PostRepository postRepository,
             ReportRepository reportRepository, CommentRepository commentRepository,
             LikeRepository likeRepository, SubscriptionRepository subscriptionRepository,
-            FileStorageService fileStorageService) {
+            FileStorageService fileStorageService, CacheInvalidationService cacheInvalidationService,
+            UserDeletionService userDeletionService, BanExpiryService banExpiryService,
+            JobLockRepository jobLockRepository, JobRunRepository jobRunRepository,
+            ReportQueueService reportQueueService, ReportCaseService reportCaseService) {
         this.userRepository = userRepository;
         this.postRepository = postRepository;
         this.reportRepository = reportRepository;
@@ -62,19 +98,40 @@ public class AdminController {
         this.likeRepository = likeRepository;
         this.subscriptionRepository = subscriptionRepository;
         this.fileStorageService = fileStorageService;
+        this.cacheInvalidationService = cacheInvalidationService;
+        this.userDeletionService = userDeletionService;
+        this.banExpiryService = banExpiryService;
+        this.jobLockRepository = jobLockRepository;
+        this.jobRunRepository = jobRunRepository;
+        this.reportQueueService = reportQueueService;
+        this.reportCaseService = reportCaseService;
     }
 
     // User Management Endpoints
     @GetMapping("/users")
-    public ResponseEntity<List<Userdto>> getAllUsers(@AuthenticationPrincipal User principal) {
+    public ResponseEntity<Object> getAllUsers(
+            @RequestParam(required = false) UserRole role,
+            @RequestParam(required = false) Boolean banned,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdTo,
+            @RequestParam(required = false) Boolean hasReports,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(defaultValue = "createdAt") String sort,
+            @RequestParam(defaultValue = "desc") String direction,
+            @AuthenticationPrincipal User principal) {
         if (principal == null || principal.getRole() != UserRole.ADMIN) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
+        if (!USER_SORTS.contains(sort)) {
+            return ResponseEntity.badRequest().body(java.util.Map.of("error", "Cannot sort users by " + sort));
+        }
 
-        List<Userdto> users = userRepository.findAll().stream()
-                .map(this::mapUserToDto)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(users);
+        Page<AdminUserDto> users = userRepository.findAdminUsers(role, banned, createdFrom, createdTo, hasReports,
+                pageRequest(page, size, sort, direction));
+        return ResponseEntity.ok()
+                .header(TOTAL_COUNT_HEADER, String.valueOf(users.getTotalElements()))
+                .body(users.getContent());
     }
 
     @GetMapping("/users/{id}")
@@ -137,6 +194,7 @@ public class AdminController {
         }
 
         userRepository.save(user);
+        banExpiryService.banChanged(user.getBanEnd());
         return ResponseEntity.ok().body(java.util.Map.of("message", "User banned successfully"));
     }
 
@@ -177,68 +235,63 @@ public class AdminController {
             return ResponseEntity.badRequest().body(java.util.Map.of("error", "Cannot delete admin users"));
         }
 
-        try {
-            // Delete user's posts
-            List<Post> userPosts = postRepository.findByCreator_Id(id);
-            if (!userPosts.isEmpty()) {
-                postRepository.deleteAll(userPosts);
-            }
-
-            // Delete user's comments
-            List<Comment> userComments = commentRepository.findByCreator_Id(id);
-            if (!userComments.isEmpty()) {
-                commentRepository.deleteAll(userComments);
-            }
-
-            // Delete user's likes
-            List<Like> userLikes = likeRepository.findByCreator_Id(id);
-            if (!userLikes.isEmpty()) {
-                likeRepository.deleteAll(userLikes);
-            }
-
-            // Delete reports where user is reporter or reported user
-            List<Report> reportsAsReporter = reportRepository.findByReporter(user);
-            List<Report> reportsAsReported = reportRepository.findByReportedUser(user);
-            if (!reportsAsReporter.isEmpty()) {
-                reportRepository.deleteAll(reportsAsReporter);
-            }
-            if (!reportsAsReported.isEmpty()) {
-                reportRepository.deleteAll(reportsAsReported);
-            }
-
-            // Delete subscriptions where user is follower or followed
-            List<Subscription> subscriptionsAsFollower = subscriptionRepository.findByFollower(user);
-            List<Subscription> subscriptionsAsFollowed = subscriptionRepository.findByFollowed(user);
-            if (!subscriptionsAsFollower.isEmpty()) {
-                subscriptionRepository.deleteAll(subscriptionsAsFollower);
-            }
-            if (!subscriptionsAsFollowed.isEmpty()) {
-                subscriptionRepository.deleteAll(subscriptionsAsFollowed);
-            }
-
-            // Finally delete the user
-            userRepository.delete(user);
-
-            return ResponseEntity.ok()
-                    .body(java.util.Map.of("message", "User and all related data deleted successfully"));
+        // Deleted in the background; the job reports progress at /api/admin/user-deletions/{jobId}
+        UserDeletionJob job = userDeletionService.requestDeletion(user, principal.getId());
+        return ResponseEntity.accepted()
+                .location(java.net.URI.create("/api/admin/user-deletions/" + job.getId()))
+                .body(job);
+    }
 
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(java.util.Map.of("error", "Failed to delete user: " + e.getMessage()));
+    @GetMapping("/user-deletions/{jobId}")
+    public ResponseEntity<UserDeletionJob> getUserDeletion(@PathVariable Long jobId,
+            @AuthenticationPrincipal User principal) {
+        if (principal == null || principal.getRole() != UserRole.ADMIN) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
+
+        return userDeletionService.findJob(jobId).map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
     }
 
     // Post Management Endpoints
     @GetMapping("/posts")
-    public ResponseEntity<List<PostDto>> getAllPosts(@AuthenticationPrincipal User principal) {
+    public ResponseEntity<Object> getAllPosts(
+            @RequestParam(required = false) Boolean hidden,
+            @RequestParam(required = false) Long creatorId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdTo,
+            @RequestParam(required = false) Boolean hasReports,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(defaultValue = "createdAt") String sort,
+            @RequestParam(defaultValue = "desc") String direction,
+            @AuthenticationPrincipal User principal) {
         if (principal == null || principal.getRole() != UserRole.ADMIN) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
+        if (!POST_SORTS.contains(sort)) {
+            return ResponseEntity.badRequest().body(java.util.Map.of("error", "Cannot sort posts by " + sort));
+        }
 
-        List<PostDto> posts = postRepository.findAll().stream()
-                .map(this::mapToDto)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(posts);
+        Page<AdminPostDto> posts = postRepository.findAdminPosts(hidden, creatorId, createdFrom, createdTo, hasReports,
+                pageRequest(page, size, sort, direction));
+
+        // Tags for the whole page in one query
+        java.util.Map<Long, AdminPostDto> byId = new java.util.HashMap<>();
+        for (AdminPostDto post : posts.getContent()) {
+            byId.put(Long.valueOf(post.getId()), post);
+        }
+        if (!byId.isEmpty()) {
+            java.util.Map<Long, List<String>> tags = new java.util.HashMap<>();
+            for (Object[] row : postRepository.findTagsByPostIds(byId.keySet())) {
+                tags.computeIfAbsent((Long) row[0], k -> new ArrayList<>()).add((String) row[1]);
+            }
+            tags.forEach((postId, postTags) -> byId.get(postId).setTags(postTags));
+        }
+
+        return ResponseEntity.ok()
+                .header(TOTAL_COUNT_HEADER, String.valueOf(posts.getTotalElements()))
+                .body(posts.getContent());
     }
 
     @GetMapping("/posts/{id}")
@@ -272,6 +325,7 @@ public class AdminController {
             post.setHideReason("Hidden by admin");
         }
         postRepository.save(post);
+        cacheInvalidationService.postsChanged();
         return ResponseEntity.ok()
                 .body(java.util.Map.of("message", "Post hidden successfully", "reason", post.getHideReason()));
     }
@@ -289,8 +343,9 @@ public class AdminController {
 
         // Delete post media if present
         Post post = optionalPost.get();
-        fileStorageService.deleteFileByUrl(post.getMediaUrl());
         postRepository.delete(post);
+        fileStorageService.releaseMultipleFiles(post.mediaFileUrls());
+        cacheInvalidationService.commentsChanged(post.getId());
         return ResponseEntity.ok().body(java.util.Map.of("message", "Post deleted successfully"));
     }
 
@@ -309,21 +364,43 @@ public class AdminController {
         post.setHidden(false);
         post.setHideReason(null);
         postRepository.save(post);
+        cacheInvalidationService.postsChanged();
         return ResponseEntity.ok().body(java.util.Map.of("message", "Post restored successfully"));
     }
 
     // Report Management Endpoints
     @GetMapping("/reports")
-    public ResponseEntity<List<ReportDto>> getAllReports(@AuthenticationPrincipal User principal) {
+    public ResponseEntity<Object> getAllReports(
+            @RequestParam(required = false) ReportStatus status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @AuthenticationPrincipal User principal) {
         if (principal == null || principal.getRole() != UserRole.ADMIN) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
-        List<Report> reports = reportRepository.findAll();
-        List<ReportDto> reportDtos = reports.stream()
+        // Without a cursor or size the whole queue comes back, as it did before paging
+        if (cursor == null && size == null) {
+            return ResponseEntity.ok(reportQueueService.all(status).stream()
+                    .map(ReportDto::new)
+                    .collect(Collectors.toList()));
+        }
+        ReportQueueService.QueuePage page;
+        try {
+            page = reportQueueService.page(status, cursor, queuePageSize(size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(java.util.Map.of("error", e.getMessage()));
+        }
+        List<ReportDto> reportDtos = page.reports().stream()
                 .map(ReportDto::new)
                 .collect(Collectors.toList());
-        return ResponseEntity.ok(reportDtos);
+
+        // Pass the cursor back to get the next page; absent on the last one
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return response.body(reportDtos);
     }
 
     @GetMapping("/reports/{id}")
@@ -352,6 +429,8 @@ public class AdminController {
         Report report = optionalReport.get();
         report.setStatus(com.example.demo.models.ReportStatus.RESOLVED);
         reportRepository.save(report);
+        reportCaseService.reportChanged(report.getCaseId());
+        reportQueueService.targetChanged(report);
 
         return ResponseEntity.ok().body(java.util.Map.of("message", "Report resolved successfully"));
     }
@@ -371,6 +450,8 @@ public class AdminController {
         Report report = optionalReport.get();
         report.setStatus(com.example.demo.models.ReportStatus.DISMISSED);
         reportRepository.save(report);
+        reportCaseService.reportChanged(report.getCaseId());
+        reportQueueService.targetChanged(report);
 
         return ResponseEntity.ok().body(java.util.Map.of("message", "Report dismissed successfully"));
     }
@@ -381,16 +462,82 @@ public class AdminController {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
-        Optional<Report> optionalReport = reportRepository.findById(id);
-        if (optionalReport.isEmpty()) {
+        if (!reportQueueService.escalate(id)) {
             return ResponseEntity.notFound().build();
         }
 
-        // You might want to add priority levels to Report entity
-        // For now, we'll just return success
         return ResponseEntity.ok().body(java.util.Map.of("message", "Report escalated successfully"));
     }
 
+    // Report cases: all reports on one post or user, handled together
+    @GetMapping("/report-cases")
+    public ResponseEntity<List<ReportCase>> getReportCases(
+            @RequestParam(required = false) ReportCaseStatus status,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int size,
+            @AuthenticationPrincipal User principal) {
+        if (principal == null || principal.getRole() != UserRole.ADMIN) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        Page<ReportCase> cases = reportCaseService.findCases(status, PageRequest.of(Math.max(0, page),
+                Math.max(1, Math.min(size, MAX_PAGE_SIZE)),
+                Sort.by(Sort.Direction.DESC, "pendingCount").and(Sort.by(Sort.Direction.DESC, "id"))));
+        return ResponseEntity.ok()
+                .header(TOTAL_COUNT_HEADER, String.valueOf(cases.getTotalElements()))
+                .body(cases.getContent());
+    }
+
+    @GetMapping("/report-cases/{id}")
+    public ResponseEntity<ReportCase> getReportCase(@PathVariable Long id, @AuthenticationPrincipal User principal) {
+        if (principal == null || principal.getRole() != UserRole.ADMIN) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        return reportCaseService.findCase(id).map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/report-cases/{id}/reports")
+    public ResponseEntity<List<ReportDto>> getReportCaseReports(@PathVariable Long id,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int size,
+            @AuthenticationPrincipal User principal) {
+        if (principal == null || principal.getRole() != UserRole.ADMIN) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        List<ReportDto> reports = reportRepository.findByCaseIdOrderByIdDesc(id,
+                PageRequest.of(Math.max(0, page), Math.max(1, Math.min(size, MAX_PAGE_SIZE)))).stream()
+                .map(ReportDto::new)
+                .collect(Collectors.toList());
+        return ResponseEntity.ok(reports);
+    }
+
+    @PostMapping("/report-cases/{id}/resolve")
+    public ResponseEntity<Object> resolveReportCase(@PathVariable Long id, @AuthenticationPrincipal User principal) {
+        return closeReportCase(id, ReportCaseStatus.RESOLVED, principal);
+    }
+
+    @PostMapping("/report-cases/{id}/dismiss")
+    public ResponseEntity<Object> dismissReportCase(@PathVariable Long id, @AuthenticationPrincipal User principal) {
+        return closeReportCase(id, ReportCaseStatus.DISMISSED, principal);
+    }
+
+    private ResponseEntity<Object> closeReportCase(Long id, ReportCaseStatus status, User principal) {
+        if (principal == null || principal.getRole() != UserRole.ADMIN) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        Optional<Long> closed = reportCaseService.close(id, status);
+        if (closed.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok().body(java.util.Map.of(
+                "message", "Report case " + status.name().toLowerCase() + " successfully",
+                "reports", closed.get()));
+    }
+
     // Manual endpoint to check and unban expired users
     @PostMapping("/users/check-expired-bans")
     public ResponseEntity<Object> checkExpiredBans(@AuthenticationPrincipal User principal) {
@@ -399,21 +546,13 @@ public class AdminController {
         }
 
         try {
-            List<User> expiredBans = userRepository.findAll().stream()
-                    .filter(user -> user.isBanned() && user.getBanEnd() != null)
-                    .filter(user -> user.getBanEnd().isBefore(java.time.LocalDateTime.now()))
-                    .collect(java.util.stream.Collectors.toList());
-
-            if (!expiredBans.isEmpty()) {
-                for (User user : expiredBans) {
-                    user.setBanned(false);
-                    user.setBanEnd(null);
-                }
-                userRepository.saveAll(expiredBans);
+            List<Long> unbannedIds = banExpiryService.unbanExpired();
+            if (!unbannedIds.isEmpty()) {
                 return ResponseEntity.ok().body(java.util.Map.of(
-                        "message", "Unbanned " + expiredBans.size() + " users with expired bans",
+                        "message", "Unbanned " + unbannedIds.size() + " users with expired bans",
                         "unbannedUsers",
-                        expiredBans.stream().map(User::getUsername).collect(java.util.stream.Collectors.toList())));
+                        userRepository.findAllById(unbannedIds).stream().map(User::getUsername)
+                                .collect(java.util.stream.Collectors.toList())));
             } else {
                 return ResponseEntity.ok().body(java.util.Map.of("message", "No users with expired bans found"));
             }
@@ -423,27 +562,25 @@ public class AdminController {
         }
     }
 
-    // Scheduled task to automatically unban users when their ban expires
-    @Scheduled(fixedRate = 60000) // Run every minute
-    @Transactional
-    public void autoUnbanExpiredUsers() {
-        try {
-            List<User> bannedUsers = userRepository.findAll().stream()
-                    .filter(user -> user.isBanned() && user.getBanEnd() != null)
-                    .filter(user -> user.getBanEnd().isBefore(java.time.LocalDateTime.now()))
-                    .collect(java.util.stream.Collectors.toList());
-
-            if (!bannedUsers.isEmpty()) {
-                for (User user : bannedUsers) {
-                    user.setBanned(false);
-                    user.setBanEnd(null);
-                }
-                userRepository.saveAll(bannedUsers);
-                System.out.println("Auto-unbanned " + bannedUsers.size() + " users whose ban period expired");
-            }
-        } catch (Exception e) {
-            System.err.println("Error in auto-unban task: " + e.getMessage());
+    // Background jobs: cluster-wide schedule and recent runs
+    @GetMapping("/jobs")
+    public ResponseEntity<List<JobLock>> getJobs(@AuthenticationPrincipal User principal) {
+        if (principal == null || principal.getRole() != UserRole.ADMIN) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
+
+        return ResponseEntity.ok(jobLockRepository.findAllByOrderByNameAsc());
+    }
+
+    @GetMapping("/jobs/{name}/runs")
+    public ResponseEntity<List<JobRun>> getJobRuns(@PathVariable String name,
+            @RequestParam(defaultValue = "50") int limit, @AuthenticationPrincipal User principal) {
+        if (principal == null || principal.getRole() != UserRole.ADMIN) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        int pageSize = Math.max(1, Math.min(limit, 500));
+        return ResponseEntity.ok(jobRunRepository.findByNameOrderByStartedAtDesc(name, PageRequest.of(0, pageSize)));
     }
 
     // Dashboard Statistics
@@ -472,7 +609,7 @@ public class AdminController {
         stats.setBannedUsers(bannedUsers);
         stats.setTotalPosts(totalPosts);
         stats.setPendingReports(pendingReports);
-        stats.setCriticalReports(Math.max(1, pendingReports / 3)); // Mock calculation
+        stats.setCriticalReports(reportQueueService.countCritical());
         stats.setResolvedReports(resolvedReports);
         double platformHealth = totalUsers != 0
                 ? ((double) (totalUsers - bannedUsers) / totalUsers) * 100
@@ -567,6 +704,7 @@ public class AdminController {
         }
 
         userRepository.saveAll(bannedUsers);
+        bannedUsers.forEach(user -> banExpiryService.banChanged(user.getBanEnd()));
 
         return ResponseEntity.ok().body(java.util.Map.of("message", "Users banned successfully"));
     }
@@ -584,21 +722,33 @@ public class AdminController {
                 .filter(user -> user.getRole() != UserRole.ADMIN)
                 .collect(Collectors.toList());
 
-        // Delete avatars and user posts' media, then delete users
+        List<UserDeletionJob> jobs = new ArrayList<>();
         for (User u : deletableUsers) {
-            fileStorageService.deleteFileByUrl(u.getImage());
-            List<Post> posts = postRepository.findByCreator_Id(u.getId());
-            for (Post p : posts) {
-                fileStorageService.deleteFileByUrl(p.getMediaUrl());
-            }
+            jobs.add(userDeletionService.requestDeletion(u, principal.getId()));
         }
 
-        userRepository.deleteAll(deletableUsers);
-
-        return ResponseEntity.ok().body(java.util.Map.of("message", "Users deleted successfully"));
+        return ResponseEntity.accepted().body(java.util.Map.of("jobs", jobs));
     }
 
     // Mapping helpers
+    // Listings are paged once page or size is given; without either they return everything, as they
+    // did before paging. Sort keys are entity properties, id breaks ties so pages don't overlap
+    private Pageable pageRequest(Integer page, Integer size, String sort, String direction) {
+        Sort.Direction dir = "asc".equalsIgnoreCase(direction) ? Sort.Direction.ASC : Sort.Direction.DESC;
+        Sort order = "id".equals(sort) ? Sort.by(dir, "id") : Sort.by(dir, sort).and(Sort.by(dir, "id"));
+        if (page == null && size == null) {
+            return Pageable.unpaged(order);
+        }
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : size;
+        return PageRequest.of(Math.max(0, page == null ? 0 : page), Math.max(1, Math.min(pageSize, MAX_PAGE_SIZE)),
+                order);
+    }
+
+    // Page size for the report queue, clamped; ReportController pages the same queue
+    static int queuePageSize(Integer size) {
+        return Math.max(1, Math.min(size == null ? DEFAULT_PAGE_SIZE : size, MAX_PAGE_SIZE));
+    }
+
     private Userdto mapUserToDto(User user) {
         Userdto dto = new Userdto();
         dto.setId(user.getId());
@@ -106,6 +106,9 @@ public class AuthController {
                 }
             }
 
+            // The user holds its own reference to a stored avatar, released when they are deleted
+            fileStorageService.attach(photoUrl);
+
             // ✅ Create user with photo path and bio
             User user = new User(
                     userDto.getUsername(),
@@ -25,6 +25,7 @@ import com.example.demo.models.UserRole;
 import com.example.demo.repositories.CommentRepository;
 import com.example.demo.repositories.PostRepository;
 import com.example.demo.repositories.UserRepository;
+import com.example.demo.services.CacheInvalidationService;
 
 @RestController
 @RequestMapping("/api/comments")
@@ -33,13 +34,16 @@ public class CommentController {
     private final CommentRepository commentRepository;
     private final PostRepository postRepository;
     private final UserRepository userRepository;
+    private final CacheInvalidationService cacheInvalidationService;
 
     public CommentController(CommentRepository commentRepository,
             PostRepository postRepository,
-            UserRepository userRepository) {
+            UserRepository userRepository,
+            CacheInvalidationService cacheInvalidationService) {
         this.commentRepository = commentRepository;
         this.postRepository = postRepository;
         this.userRepository = userRepository;
+        this.cacheInvalidationService = cacheInvalidationService;
     }
 
     // Create comment on a post
@@ -57,6 +61,7 @@ public class CommentController {
         comment.setCreator(principal);
         comment.setPost(optPost.get());
         Comment saved = commentRepository.save(comment);
+        cacheInvalidationService.commentsChanged(postId);
 
         // Convert to DTO
         CommentDto commentDto = convertToDTO(saved);
@@ -92,6 +97,7 @@ public class CommentController {
         Comment comment = optComment.get();
         comment.setContent(updateRequest.getContent());
         Comment saved = commentRepository.save(comment);
+        cacheInvalidationService.commentsChanged(comment.getPost().getId());
 
         // Convert to DTO
         CommentDto commentDto = convertToDTO(saved);
@@ -118,6 +124,7 @@ public class CommentController {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
 
         commentRepository.delete(optComment.get());
+        cacheInvalidationService.commentsChanged(optComment.get().getPost().getId());
         return ResponseEntity.noContent().build();
     }
 
@@ -1,7 +1,10 @@
 package com.example.demo.controllers;
 
+import com.example.demo.dtos.DirectUploadRequest;
 import com.example.demo.services.FileStorageService;
 import com.example.demo.services.MediaService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
@@ -53,33 +56,85 @@ public class FileController {
         }
     }
 
-    @PostMapping("/upload-base64")
+    @PostMapping(value = "/upload-base64", consumes = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<Map<String, String>> uploadBase64File(
-            @RequestBody Map<String, String> request,
+            HttpServletRequest request,
             @AuthenticationPrincipal User principal) {
         try {
             if (principal == null) {
                 return ResponseEntity.status(401).body(Map.of("error", "Unauthorized"));
             }
 
-            String base64Data = request.get("base64Data");
-            String filename = request.get("filename");
-            String contentType = request.getOrDefault("contentType", "application/octet-stream");
-
-            if (base64Data == null || filename == null) {
-                return ResponseEntity.badRequest().body(Map.of("error", "Missing base64Data or filename"));
-            }
-
-            String fileUrl = mediaService.uploadBase64(base64Data, filename, contentType, SUPABASE_FOLDER);
+            // Read from the request stream: base64Data is decoded and uploaded as it arrives
+            String fileUrl = mediaService.uploadBase64(request.getInputStream(), SUPABASE_FOLDER);
 
             return ResponseEntity.ok(Map.of(
                     "url", fileUrl,
                     "message", "File uploaded successfully"));
 
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.status(500).body(Map.of("error", "Failed to upload file: " + e.getMessage()));
         }
     }
 
+    /**
+     * Start a direct upload: returns either the URL of identical content already stored, or a
+     * signed URL to PUT the file to (bypassing the gateway and backend), followed by /complete
+     * with the returned uploadId.
+     */
+    @PostMapping("/direct-uploads")
+    public ResponseEntity<Map<String, Object>> createDirectUpload(@RequestBody DirectUploadRequest request,
+            @AuthenticationPrincipal User principal) {
+        try {
+            if (principal == null) {
+                return ResponseEntity.status(401).body(Map.of("error", "Unauthorized"));
+            }
+
+            FileStorageService.DirectUpload upload = fileStorageService.createDirectUpload(request.getSha256(),
+                    request.getSize(), request.getContentType(), request.getFilename(), SUPABASE_FOLDER);
+            if (upload.existingUrl() != null) {
+                return ResponseEntity.ok(Map.of(
+                        "url", upload.existingUrl(),
+                        "message", "File already uploaded"));
+            }
+
+            return ResponseEntity.ok(Map.of(
+                    "uploadId", upload.uploadId(),
+                    "uploadUrl", upload.upload().url(),
+                    "method", "PUT",
+                    "headers", upload.upload().headers(),
+                    "expiresAt", upload.upload().expiresAt().toString()));
+
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IOException e) {
+            return ResponseEntity.status(500).body(Map.of("error", "Failed to start upload: " + e.getMessage()));
+        }
+    }
+
+    @PostMapping("/direct-uploads/complete")
+    public ResponseEntity<Map<String, Object>> completeDirectUpload(@RequestBody DirectUploadRequest request,
+            @AuthenticationPrincipal User principal) {
+        try {
+            if (principal == null) {
+                return ResponseEntity.status(401).body(Map.of("error", "Unauthorized"));
+            }
+
+            String url = fileStorageService.completeDirectUpload(request.getSha256(), request.getSize(),
+                    request.getContentType(), request.getUploadId(), request.getFilename(), SUPABASE_FOLDER);
+
+            return ResponseEntity.ok(Map.of(
+                    "url", url,
+                    "message", "File uploaded successfully"));
+
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IOException e) {
+            return ResponseEntity.status(500).body(Map.of("error", "Failed to complete upload: " + e.getMessage()));
+        }
+    }
+
     // Local file-serving endpoint removed in favor of direct Supabase public URLs
 }
@@ -19,6 +19,7 @@ import com.example.demo.models.User;
 import com.example.demo.repositories.LikeRepository;
 import com.example.demo.repositories.PostRepository;
 import com.example.demo.repositories.UserRepository;
+import com.example.demo.services.CacheInvalidationService;
 
 @RestController
 @RequestMapping("/api/likes")
@@ -27,13 +28,16 @@ public class LikeController {
     private final LikeRepository likeRepository;
     private final PostRepository postRepository;
     private final UserRepository userRepository;
+    private final CacheInvalidationService cacheInvalidationService;
 
     public LikeController(LikeRepository likeRepository,
             PostRepository postRepository,
-            UserRepository userRepository) {
+            UserRepository userRepository,
+            CacheInvalidationService cacheInvalidationService) {
         this.likeRepository = likeRepository;
         this.postRepository = postRepository;
         this.userRepository = userRepository;
+        this.cacheInvalidationService = cacheInvalidationService;
     }
 
     // Like a post
@@ -59,6 +63,7 @@ public class LikeController {
         like.setCreator(currentUser);
         like.setPost(optPost.get());
         likeRepository.save(like);
+        cacheInvalidationService.postsChangedFor(currentUser.getId());
         return ResponseEntity.status(HttpStatus.CREATED).build();
     }
 
@@ -77,6 +82,7 @@ public class LikeController {
         }
 
         likeRepository.delete(existingLike.get());
+        cacheInvalidationService.postsChangedFor(currentUser.getId());
         return ResponseEntity.noContent().build();
     }
 
@@ -0,0 +1,263 @@
+package com.example.demo.controllers;
+
+import com.example.demo.models.MediaObject;
+import com.example.demo.repositories.MediaObjectRepository;
+import com.example.demo.services.LocalStorageBackend;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.util.UriUtils;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Serves files stored by {@link LocalStorageBackend}, with single byte-range requests and
+ * ETag revalidation. Large bodies are handed to Tomcat's sendfile when the connector supports
+ * it, and otherwise copied with {@link FileChannel#transferTo}. Files are served as the type
+ * detected when they were uploaded (see {@code FileStorageService}), with {@code nosniff}.
+ * <p>
+ * Also accepts direct uploads: a PUT to a file's URL with the signed query string from
+ * {@link LocalStorageBackend#signUpload}.
+ */
+@RestController
+@RequestMapping("/api/media")
+@ConditionalOnProperty(name = "file.storage.type", havingValue = "local")
+public class MediaController {
+
+    private static final String PREFIX = "/api/media/";
+    // Below this, sendfile setup costs more than copying (same threshold as Tomcat's DefaultServlet)
+    private static final long SENDFILE_MIN_BYTES = 48 * 1024;
+
+    private final LocalStorageBackend storage;
+    private final MediaObjectRepository mediaObjectRepository;
+
+    public MediaController(LocalStorageBackend storage, MediaObjectRepository mediaObjectRepository) {
+        this.storage = storage;
+        this.mediaObjectRepository = mediaObjectRepository;
+    }
+
+    @GetMapping("/**")
+    public void serve(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String path = storagePath(request);
+
+        LocalStorageBackend.LocalFile file = open(path);
+        if (file == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        String etag = file.etag();
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, file.lastModifiedMillis());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "public, max-age=31536000, immutable");
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        // Browsers must take the type below as given, never guess HTML or script from the bytes
+        response.setHeader("X-Content-Type-Options", "nosniff");
+        if (etagMatches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        // Rows without a media kind predate type detection and hold the client's type
+        String contentType = mediaObjectRepository.findByUrl(storage.publicUrl(path))
+                .filter(object -> object.getMediaKind() != null)
+                .map(MediaObject::getContentType)
+                .orElseGet(() -> unrecordedType(file));
+        response.setContentType(contentType);
+        if (MediaType.APPLICATION_OCTET_STREAM_VALUE.equals(contentType)) {
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment");
+        }
+
+        long size = file.size();
+        long start = 0;
+        long end = size - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (range != null && (ifRange == null || ifRange.equals(etag))) {
+            long[] bounds = parseRange(range, size);
+            if (bounds != null && bounds.length == 0) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            if (bounds != null) {
+                start = bounds[0];
+                end = bounds[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+            }
+        }
+
+        long length = end - start + 1;
+        response.setContentLengthLong(length);
+        if ("HEAD".equals(request.getMethod()) || length <= 0) {
+            return;
+        }
+
+        if (length >= SENDFILE_MIN_BYTES
+                && Boolean.TRUE.equals(request.getAttribute("org.apache.tomcat.sendfile.support"))) {
+            // Tomcat writes the file from the kernel page cache once the handler returns
+            request.setAttribute("org.apache.tomcat.sendfile.filename", file.path().toString());
+            request.setAttribute("org.apache.tomcat.sendfile.start", start);
+            request.setAttribute("org.apache.tomcat.sendfile.end", end + 1);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file.path(), StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = length;
+            while (remaining > 0) {
+                long written = channel.transferTo(position, remaining, out);
+                if (written <= 0) {
+                    break;
+                }
+                position += written;
+                remaining -= written;
+            }
+        }
+    }
+
+    @PutMapping("/**")
+    public ResponseEntity<Void> upload(HttpServletRequest request, @RequestParam long expires,
+            @RequestParam long maxBytes, @RequestParam String contentType, @RequestParam String signature)
+            throws IOException {
+        String path = storagePath(request);
+        try {
+            if (!storage.verifyUpload(path, contentType, maxBytes, expires, signature)) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+            }
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        if (!sameMediaType(request.getContentType(), contentType)) {
+            return ResponseEntity.status(HttpStatus.UNSUPPORTED_MEDIA_TYPE).build();
+        }
+        // With a Content-Length the container delivers exactly that many bytes, which bounds the write
+        long length = request.getContentLengthLong();
+        if (length < 0) {
+            return ResponseEntity.status(HttpStatus.LENGTH_REQUIRED).build();
+        }
+        if (length > maxBytes) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        }
+
+        try {
+            storage.store(path, request.getInputStream(), length, contentType);
+        } catch (FileAlreadyExistsException e) {
+            // A signed URL uploads once; it can't replace what is already there
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        return ResponseEntity.ok().build();
+    }
+
+    /**
+     * Type for a file without a detected type: one stored before types were detected, or an
+     * unchecked direct upload. Its extension came from the client, so it is only believed for
+     * images and videos, and never for SVG, which can carry script.
+     */
+    // Null when there is no such file or the path is outside the store
+    private LocalStorageBackend.LocalFile open(String path) throws IOException {
+        try {
+            return storage.open(path);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static String unrecordedType(LocalStorageBackend.LocalFile file) {
+        return MediaTypeFactory.getMediaType(file.path().getFileName().toString())
+                .filter(type -> type.getType().equals("image") || type.getType().equals("video"))
+                .filter(type -> !type.getSubtype().startsWith("svg"))
+                .map(MediaType::toString)
+                .orElse(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+    }
+
+    private static boolean sameMediaType(String actual, String expected) {
+        try {
+            return actual != null
+                    && MediaType.parseMediaType(actual).equalsTypeAndSubtype(MediaType.parseMediaType(expected));
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+    }
+
+    private static String storagePath(HttpServletRequest request) {
+        String uri = request.getRequestURI().substring(request.getContextPath().length());
+        return UriUtils.decode(uri.substring(PREFIX.length()), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Parse a single "bytes=" range. Returns {start, end}, an empty array if the range cannot
+     * be satisfied, or null to ignore the header and send the whole file (multiple or malformed ranges).
+     */
+    private static long[] parseRange(String header, long size) {
+        if (!header.startsWith("bytes=") || header.indexOf(',') >= 0) {
+            return null;
+        }
+        String spec = header.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            long start;
+            long end;
+            if (first.isEmpty()) {
+                // Suffix range: the last N bytes
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0) {
+                    return new long[0];
+                }
+                start = Math.max(0, size - suffix);
+                end = size - 1;
+            } else {
+                start = Long.parseLong(first);
+                end = last.isEmpty() ? size - 1 : Math.min(Long.parseLong(last), size - 1);
+                if (end < start) {
+                    return last.isEmpty() || start >= size ? new long[0] : null;
+                }
+            }
+            if (start >= size) {
+                return new long[0];
+            }
+            return new long[] { start, end };
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static boolean etagMatches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if ("*".equals(value) || etag.equals(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
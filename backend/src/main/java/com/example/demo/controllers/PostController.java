@@ -3,13 +3,16 @@ package com.example.demo.controllers;
 import com.example.demo.dtos.MediaDto;
 import com.example.demo.dtos.PostDto;
 import com.example.demo.dtos.Userdto;
+import com.example.demo.models.MediaObject;
 import com.example.demo.models.Notification;
 import com.example.demo.models.Post;
 import com.example.demo.models.Subscription;
 import com.example.demo.models.User;
 import com.example.demo.models.UserRole;
 import com.example.demo.models.MediaType;
+import com.example.demo.services.CacheInvalidationService;
 import com.example.demo.services.FileStorageService;
+import com.example.demo.services.ImageDerivativeService;
 import com.example.demo.services.MediaService;
 import com.example.demo.repositories.LikeRepository;
 import com.example.demo.services.SseNotificationService;
@@ -43,11 +46,14 @@ public class PostController {
     private final MediaService mediaService;
     private final LikeRepository likeRepository;
     private final FileStorageService fileservise;
+    private final CacheInvalidationService cacheInvalidationService;
+    private final ImageDerivativeService imageDerivativeService;
 
     public PostController(PostRepository postRepository, UserRepository userRepository,
             SubscriptionRepository subscriptionRepository, NotificationRepository notificationRepository,
             SseNotificationService sseNotificationService, LikeRepository likerepository, MediaService mediaService,
-            FileStorageService fileservice) {
+            FileStorageService fileservice, CacheInvalidationService cacheInvalidationService,
+            ImageDerivativeService imageDerivativeService) {
         this.postRepository = postRepository;
         this.userRepository = userRepository;
         this.subscriptionRepository = subscriptionRepository;
@@ -56,6 +62,8 @@ public class PostController {
         this.likeRepository = likerepository;
         this.mediaService = mediaService;
         this.fileservise = fileservice;
+        this.cacheInvalidationService = cacheInvalidationService;
+        this.imageDerivativeService = imageDerivativeService;
     }
 
     // ----------------- CREATE -----------------
@@ -69,15 +77,14 @@ public class PostController {
         User currentUser = principal;
         post.setCreator(currentUser); // Set the logged-in user as creator
 
-        // Auto-determine media type based on file extension if not set
-        if (post.getMediaUrl() != null && post.getMediaType() == null) {
-            MediaType detected = mediaService.determineMediaTypeFromUrl(post.getMediaUrl());
-            if (detected != null) {
-                post.setMediaType(detected);
-            }
-        }
+        Optional<MediaObject> storedMedia = detectMedia(post);
+        // The post holds its own reference, released when it is deleted or its media replaced
+        fileservise.attach(post.getMediaUrl());
 
         Post saved = postRepository.save(post);
+        recordMediaMetadata(saved, storedMedia);
+        cacheInvalidationService.postsChanged();
+        imageDerivativeService.schedule(saved);
 
         // Create notifications for all followers
         createNotificationsForFollowers(currentUser, saved);
@@ -156,6 +163,8 @@ public class PostController {
             post.setTags(postDetails.getTags());
         }
         // Handle media URL - allow empty string to clear media
+        String previousMediaUrl = post.getMediaUrl();
+        List<String> previousMediaFiles = post.mediaFileUrls();
         if (postDetails.getMediaUrl() != null) {
             if (postDetails.getMediaUrl().isEmpty()) {
                 post.setMediaUrl(null);
@@ -169,9 +178,24 @@ public class PostController {
                 && (postDetails.getMediaUrl() == null || !postDetails.getMediaUrl().isEmpty())) {
             post.setMediaType(postDetails.getMediaType());
         }
+        boolean mediaChanged = post.getMediaUrl() != null && !post.getMediaUrl().equals(previousMediaUrl);
+        Optional<MediaObject> storedMedia = mediaChanged ? detectMedia(post) : Optional.empty();
+        if (mediaChanged) {
+            fileservise.attach(post.getMediaUrl());
+        }
         post.setUpdatedAt(java.time.LocalDateTime.now());
 
         Post updated = postRepository.save(post);
+        if (previousMediaUrl != null && !previousMediaUrl.equals(updated.getMediaUrl())) {
+            // The post no longer uses its old media or that media's variants
+            postRepository.clearMediaVariants(updated.getId());
+            fileservise.releaseMultipleFiles(previousMediaFiles);
+        }
+        if (mediaChanged) {
+            recordMediaMetadata(updated, storedMedia);
+            imageDerivativeService.schedule(updated);
+        }
+        cacheInvalidationService.postsChanged();
         // Return PostDto instead of Post entity to avoid serialization issues
         return ResponseEntity.ok(mapToDto(updated, principal));
     }
@@ -199,8 +223,9 @@ public class PostController {
         Post post = optionalPost.get();
 
         try {
-            fileservise.deleteFileByUrl(post.getMediaUrl());
             postRepository.delete(post);
+            fileservise.releaseMultipleFiles(post.mediaFileUrls());
+            cacheInvalidationService.commentsChanged(post.getId());
             return ResponseEntity.noContent().build();
 
         } catch (Exception e) {
@@ -262,6 +287,41 @@ public class PostController {
         }
     }
 
+    /**
+     * Set the post's media type from what was detected in its stored file, which wins over the
+     * request; external URLs fall back to their extension. Returns the stored file, if any.
+     */
+    private Optional<MediaObject> detectMedia(Post post) {
+        Optional<MediaObject> storedMedia = fileservise.findStoredMedia(post.getMediaUrl());
+        storedMedia.map(MediaObject::getMediaKind).ifPresent(post::setMediaType);
+        if (post.getMediaUrl() != null && post.getMediaType() == null) {
+            MediaType detected = mediaService.determineMediaTypeFromUrl(post.getMediaUrl());
+            if (detected != null) {
+                post.setMediaType(detected);
+            }
+        }
+        return storedMedia;
+    }
+
+    private void recordMediaMetadata(Post post, Optional<MediaObject> storedMedia) {
+        storedMedia.ifPresent(media -> postRepository.updateMediaMetadata(post.getId(), post.getMediaUrl(),
+                media.getContentType(), media.getSizeBytes(), media.getWidth(), media.getHeight()));
+    }
+
+    private MediaDto mapMediaToDto(Post post) {
+        // Posts whose media type could not be determined are still shown with their media
+        String type = post.getMediaType() != null ? post.getMediaType().name() : null;
+        MediaDto media = new MediaDto(type, post.getMediaUrl(), post.getTitle());
+        media.setThumbnailUrl(post.getMediaThumbnailUrl());
+        media.setSrcset(post.getMediaSrcset());
+        media.setWidth(post.getMediaWidth());
+        media.setHeight(post.getMediaHeight());
+        media.setBlurhash(post.getMediaBlurhash());
+        media.setContentType(post.getMediaContentType());
+        media.setSizeBytes(post.getMediaSizeBytes());
+        return media;
+    }
+
     private PostDto mapToDto(Post post, User principale) {
         PostDto dto = new PostDto();
         dto.setId(post.getId().toString());
@@ -270,9 +330,7 @@ public class PostController {
         dto.setContent(post.getContent());
         dto.setExcerpt(
                 post.getContent().length() > 100 ? post.getContent().substring(0, 100) + "..." : post.getContent());
-        dto.setMedia(post.getMediaUrl() != null
-                ? List.of(new MediaDto(post.getMediaType().name(), post.getMediaUrl(), post.getTitle()))
-                : List.of());
+        dto.setMedia(post.getMediaUrl() != null ? List.of(mapMediaToDto(post)) : List.of());
         dto.setTags(post.getTags());
         dto.setLikes(post.getLikes() != null ? post.getLikes().size() : 0); // Request likes from backend
         dto.setComments(post.getComments() != null ? post.getComments().size() : 0); // Request comments from backend
@@ -3,6 +3,7 @@ package com.example.demo.controllers;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -13,6 +14,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.example.demo.models.Post;
@@ -23,6 +25,8 @@ import com.example.demo.models.UserRole;
 import com.example.demo.repositories.PostRepository;
 import com.example.demo.repositories.ReportRepository;
 import com.example.demo.repositories.UserRepository;
+import com.example.demo.services.ReportCaseService;
+import com.example.demo.services.ReportQueueService;
 
 @RestController
 @RequestMapping("/api/reports")
@@ -31,12 +35,17 @@ public class ReportController {
     private final ReportRepository reportRepository;
     private final PostRepository postRepository;
     private final UserRepository userRepository;
+    private final ReportQueueService reportQueueService;
+    private final ReportCaseService reportCaseService;
 
     public ReportController(ReportRepository reportRepository, PostRepository postRepository,
-            UserRepository userRepository) {
+            UserRepository userRepository, ReportQueueService reportQueueService,
+            ReportCaseService reportCaseService) {
         this.postRepository = postRepository;
         this.reportRepository = reportRepository;
         this.userRepository = userRepository;
+        this.reportQueueService = reportQueueService;
+        this.reportCaseService = reportCaseService;
     }
 
     @PostMapping
@@ -80,23 +89,54 @@ public class ReportController {
         // Set the reporter to the current user
         report.setReporter(currentUser);
 
+        // Reporting the same thing again while the first report is open adds nothing
+        Optional<Report> duplicate = reportCaseService.findOpenDuplicate(report);
+        if (duplicate.isPresent()) {
+            return ResponseEntity.ok(duplicate.get());
+        }
+
         // Save the report
-        Report savedReport = reportRepository.save(report);
+        Report savedReport;
+        try {
+            savedReport = reportRepository.save(report);
+        } catch (DataIntegrityViolationException e) {
+            // The same report filed at the same moment got in first
+            return ResponseEntity.ok(reportCaseService.findOpenDuplicate(report).orElseThrow(() -> e));
+        }
+        reportCaseService.reportFiled(savedReport);
+        reportQueueService.targetChanged(savedReport);
 
         return ResponseEntity.status(HttpStatus.CREATED).body(savedReport);
     }
 
     @GetMapping
-    public ResponseEntity<List<Report>> getAllReports(@AuthenticationPrincipal User principal) {
+    public ResponseEntity<List<Report>> getAllReports(
+            @RequestParam(required = false) ReportStatus status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @AuthenticationPrincipal User principal) {
         if (principal == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
-        Optional<User> optionUser = userRepository.findByUsername(principal.getUsername());
-        if (optionUser.isEmpty() || principal.getRole() != UserRole.ADMIN) {
+        if (principal.getRole() != UserRole.ADMIN) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
-        List<Report> result = reportRepository.findAll();
-        return ResponseEntity.ok(result);
+
+        // Same queue as /api/admin/reports, highest priority first; unpaged without a cursor or size
+        if (cursor == null && size == null) {
+            return ResponseEntity.ok(reportQueueService.all(status));
+        }
+        ReportQueueService.QueuePage page;
+        try {
+            page = reportQueueService.page(status, cursor, AdminController.queuePageSize(size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header(AdminController.NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return response.body(page.reports());
     }
 
     @PutMapping("/{id}")
@@ -120,6 +160,8 @@ public class ReportController {
         Report report = optionalReport.get();
         report.setStatus(status);
         Report updatedReport = reportRepository.save(report);
+        reportCaseService.reportChanged(updatedReport.getCaseId());
+        reportQueueService.targetChanged(updatedReport);
 
         return ResponseEntity.ok(updatedReport);
     }
@@ -146,6 +188,8 @@ public class ReportController {
         }
 
         reportRepository.delete(report);
+        reportCaseService.reportChanged(report.getCaseId());
+        reportQueueService.targetChanged(report);
         return ResponseEntity.ok("Report deleted successfully");
     }
 
@@ -192,8 +236,22 @@ public class ReportController {
         report.setStatus(ReportStatus.PENDING);
         report.setCreatedAt(java.time.LocalDateTime.now());
 
+        // Reporting the same post again while the first report is open adds nothing
+        Optional<Report> duplicate = reportCaseService.findOpenDuplicate(report);
+        if (duplicate.isPresent()) {
+            return ResponseEntity.ok(alreadyReported(duplicate.get()));
+        }
+
         // Save the report
-        Report savedReport = reportRepository.save(report);
+        Report savedReport;
+        try {
+            savedReport = reportRepository.save(report);
+        } catch (DataIntegrityViolationException e) {
+            // The same report filed at the same moment got in first
+            return ResponseEntity.ok(alreadyReported(reportCaseService.findOpenDuplicate(report).orElseThrow(() -> e)));
+        }
+        reportCaseService.reportFiled(savedReport);
+        reportQueueService.targetChanged(savedReport);
 
         // Return a simple response instead of the full Report entity
         java.util.Map<String, Object> response = new java.util.HashMap<>();
@@ -204,4 +262,13 @@ public class ReportController {
 
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
+
+    private java.util.Map<String, Object> alreadyReported(Report duplicate) {
+        java.util.Map<String, Object> response = new java.util.HashMap<>();
+        response.put("id", duplicate.getId());
+        response.put("status", duplicate.getStatus().toString());
+        response.put("message", "You have already reported this post");
+        response.put("createdAt", duplicate.getCreatedAt().toString());
+        return response;
+    }
 }
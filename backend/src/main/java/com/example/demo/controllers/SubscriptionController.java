@@ -18,6 +18,7 @@ import com.example.demo.models.Subscription;
 import com.example.demo.models.User;
 import com.example.demo.repositories.SubscriptionRepository;
 import com.example.demo.repositories.UserRepository;
+import com.example.demo.services.CacheInvalidationService;
 
 @RestController
 @RequestMapping("/api/subscriptions")
@@ -25,10 +26,13 @@ public class SubscriptionController {
 
     private final SubscriptionRepository subscriptionRepository;
     private final UserRepository userRepository;
+    private final CacheInvalidationService cacheInvalidationService;
 
-    public SubscriptionController(SubscriptionRepository subscriptionRepository, UserRepository userRepository) {
+    public SubscriptionController(SubscriptionRepository subscriptionRepository, UserRepository userRepository,
+            CacheInvalidationService cacheInvalidationService) {
         this.subscriptionRepository = subscriptionRepository;
         this.userRepository = userRepository;
+        this.cacheInvalidationService = cacheInvalidationService;
     }
 
     @PostMapping("/follow/{userId}")
@@ -61,6 +65,8 @@ public class SubscriptionController {
         subscription.setFollower(currentUser);
         subscription.setFollowed(userToFollow);
         subscriptionRepository.save(subscription);
+        // Post lists carry the follower's subscribed flag
+        cacheInvalidationService.postsChangedFor(currentUser.getId());
 
         return ResponseEntity.ok(Map.of("message", "Successfully followed user"));
     }
@@ -88,6 +94,7 @@ public class SubscriptionController {
         }
 
         subscriptionRepository.delete(subscriptionOpt.get());
+        cacheInvalidationService.postsChangedFor(currentUser.getId());
         return ResponseEntity.ok(Map.of("message", "Successfully unfollowed user"));
     }
 
@@ -0,0 +1,49 @@
+package com.example.demo.dtos;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import com.example.demo.models.MediaType;
+import com.example.demo.models.UserRole;
+
+/**
+ * A row of the admin post listing. Built by a constructor expression in
+ * PostRepository.findAdminPosts with its author and counts; tags are filled in per page.
+ */
+public class AdminPostDto extends PostDto {
+
+    private int reports;
+
+    public AdminPostDto(Long id, String title, String content, String mediaUrl, MediaType mediaType,
+            LocalDateTime createdAt, Boolean hidden, String hideReason,
+            Long authorId, String authorUsername, String authorEmail, String authorAvatar, UserRole authorRole,
+            long likes, long comments, long reports) {
+        Userdto author = new Userdto();
+        author.setId(authorId);
+        author.setUsername(authorUsername);
+        author.setEmail(authorEmail);
+        author.setAvatar(authorAvatar);
+        author.setRole(authorRole);
+
+        setId(id.toString());
+        setAuthor(author);
+        setTitle(title);
+        setContent(content);
+        setExcerpt(content != null && content.length() > 100 ? content.substring(0, 100) + "..." : content);
+        setMedia(mediaUrl != null && mediaType != null
+                ? List.of(new MediaDto(mediaType.name(), mediaUrl, title))
+                : List.of());
+        setTags(List.of());
+        setLikes((int) likes);
+        setComments((int) comments);
+        setCreatedAt(createdAt != null ? createdAt.toString() : null);
+        setVisibility("public");
+        setHidden(hidden != null ? hidden : false);
+        setHideReason(hideReason);
+        this.reports = (int) reports;
+    }
+
+    public int getReports() {
+        return reports;
+    }
+}
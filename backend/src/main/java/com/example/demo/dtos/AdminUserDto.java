@@ -0,0 +1,51 @@
+package com.example.demo.dtos;
+
+import java.time.LocalDateTime;
+
+import com.example.demo.models.UserRole;
+
+/**
+ * A row of the admin user listing. Built by a constructor expression in
+ * UserRepository.findAdminUsers, counts included, so a page is a single query.
+ */
+public class AdminUserDto extends Userdto {
+
+    private boolean banned;
+    private LocalDateTime banEnd;
+    private LocalDateTime createdAt;
+    private int reports;
+
+    public AdminUserDto(Long id, String username, String email, String avatar, String bio, UserRole role,
+            boolean banned, LocalDateTime banEnd, LocalDateTime createdAt,
+            long followers, long following, long posts, long reports) {
+        setId(id);
+        setUsername(username);
+        setEmail(email);
+        setAvatar(avatar);
+        setBio(bio);
+        setRole(role);
+        setFollowers((int) followers);
+        setFollowing((int) following);
+        setPosts((int) posts);
+        this.banned = banned;
+        this.banEnd = banEnd;
+        this.createdAt = createdAt;
+        this.reports = (int) reports;
+    }
+
+    public boolean isBanned() {
+        return banned;
+    }
+
+    public LocalDateTime getBanEnd() {
+        return banEnd;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public int getReports() {
+        return reports;
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.demo.dtos;
+
+/**
+ * A file the client is about to upload, or has uploaded, straight to storage.
+ */
+public class DirectUploadRequest {
+
+    // Hex SHA-256 of the file content, computed by the client
+    private String sha256;
+    private long size;
+    private String contentType;
+    private String filename;
+    // Returned when the upload was started; identifies the upload on completion
+    private String uploadId;
+
+    public DirectUploadRequest() {
+    }
+
+    public String getSha256() {
+        return sha256;
+    }
+
+    public void setSha256(String sha256) {
+        this.sha256 = sha256;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public String getFilename() {
+        return filename;
+    }
+
+    public void setFilename(String filename) {
+        this.filename = filename;
+    }
+
+    public String getUploadId() {
+        return uploadId;
+    }
+
+    public void setUploadId(String uploadId) {
+        this.uploadId = uploadId;
+    }
+}
@@ -4,6 +4,15 @@ public class MediaDto {
     private String type;
     private String url;
     private String alt;
+    // Image variants; null until they have been generated, and for videos
+    private String thumbnailUrl;
+    private String srcset;
+    private Integer width;
+    private Integer height;
+    private String blurhash;
+    // Detected from the file when it was uploaded; null for external URLs
+    private String contentType;
+    private Long sizeBytes;
 
     // Default constructor for Jackson
     public MediaDto() {
@@ -40,4 +49,60 @@ public class MediaDto {
     public void setAlt(String alt) {
         this.alt = alt;
     }
+
+    public String getThumbnailUrl() {
+        return thumbnailUrl;
+    }
+
+    public void setThumbnailUrl(String thumbnailUrl) {
+        this.thumbnailUrl = thumbnailUrl;
+    }
+
+    public String getSrcset() {
+        return srcset;
+    }
+
+    public void setSrcset(String srcset) {
+        this.srcset = srcset;
+    }
+
+    public Integer getWidth() {
+        return width;
+    }
+
+    public void setWidth(Integer width) {
+        this.width = width;
+    }
+
+    public Integer getHeight() {
+        return height;
+    }
+
+    public void setHeight(Integer height) {
+        this.height = height;
+    }
+
+    public String getBlurhash() {
+        return blurhash;
+    }
+
+    public void setBlurhash(String blurhash) {
+        this.blurhash = blurhash;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public Long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    public void setSizeBytes(Long sizeBytes) {
+        this.sizeBytes = sizeBytes;
+    }
 }
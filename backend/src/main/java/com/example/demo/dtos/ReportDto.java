@@ -14,6 +14,9 @@ public class ReportDto {
     private SimpleUserDto reportedUser;
     private SimplePostDto reportedPost;
     private String createdAt;
+    private int priority;
+    private boolean escalated;
+    private Long caseId;
 
     // Nested DTO for User to avoid circular references
     public static class SimpleUserDto {
@@ -215,6 +218,9 @@ public class ReportDto {
             this.reportedUser = report.getReportedUser() != null ? new SimpleUserDto(report.getReportedUser()) : null;
             this.reportedPost = report.getReportedPost() != null ? new SimplePostDto(report.getReportedPost()) : null;
             this.createdAt = report.getCreatedAt() != null ? report.getCreatedAt().toString() : null;
+            this.priority = report.getPriority();
+            this.escalated = report.isEscalated();
+            this.caseId = report.getCaseId();
         }
     }
 
@@ -282,4 +288,28 @@ public class ReportDto {
     public void setCreatedAt(String createdAt) {
         this.createdAt = createdAt;
     }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    public void setPriority(int priority) {
+        this.priority = priority;
+    }
+
+    public boolean isEscalated() {
+        return escalated;
+    }
+
+    public void setEscalated(boolean escalated) {
+        this.escalated = escalated;
+    }
+
+    public Long getCaseId() {
+        return caseId;
+    }
+
+    public void setCaseId(Long caseId) {
+        this.caseId = caseId;
+    }
 }
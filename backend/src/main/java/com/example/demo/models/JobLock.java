@@ -0,0 +1,40 @@
+package com.example.demo.models;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Cluster-wide schedule and lease of a named job. Written only through JobLockRepository
+ * queries, which use database time.
+ */
+@Entity
+@Table(name = "job_locks")
+public class JobLock {
+	@Id
+	@Column(name = "name", length = 100)
+	private String name;
+
+	@Column(name = "locked_by")
+	private String lockedBy;
+
+	@Column(name = "locked_until", nullable = false)
+	private LocalDateTime lockedUntil;
+
+	@Column(name = "next_run_at", nullable = false)
+	private LocalDateTime nextRunAt;
+
+	@Column(name = "last_run_at")
+	private LocalDateTime lastRunAt;
+
+	public JobLock() {}
+
+	public String getName() { return name; }
+	public String getLockedBy() { return lockedBy; }
+	public LocalDateTime getLockedUntil() { return lockedUntil; }
+	public LocalDateTime getNextRunAt() { return nextRunAt; }
+	public LocalDateTime getLastRunAt() { return lastRunAt; }
+}
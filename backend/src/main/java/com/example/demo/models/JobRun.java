@@ -0,0 +1,64 @@
+package com.example.demo.models;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * One finished run of a scheduled job, on whichever instance ran it.
+ */
+@Entity
+@Table(name = "job_runs")
+public class JobRun {
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@Column(name = "name", nullable = false, length = 100)
+	private String name;
+
+	@Column(name = "instance", nullable = false)
+	private String instance;
+
+	@Column(name = "started_at", nullable = false)
+	private LocalDateTime startedAt;
+
+	@Column(name = "finished_at", nullable = false)
+	private LocalDateTime finishedAt;
+
+	@Column(name = "duration_ms", nullable = false)
+	private long durationMs;
+
+	@Column(name = "succeeded", nullable = false)
+	private boolean succeeded;
+
+	@Column(name = "error", length = 1024)
+	private String error;
+
+	public JobRun() {}
+
+	public JobRun(String name, String instance, LocalDateTime startedAt, LocalDateTime finishedAt, long durationMs,
+			boolean succeeded, String error) {
+		this.name = name;
+		this.instance = instance;
+		this.startedAt = startedAt;
+		this.finishedAt = finishedAt;
+		this.durationMs = durationMs;
+		this.succeeded = succeeded;
+		this.error = error;
+	}
+
+	public Long getId() { return id; }
+	public String getName() { return name; }
+	public String getInstance() { return instance; }
+	public LocalDateTime getStartedAt() { return startedAt; }
+	public LocalDateTime getFinishedAt() { return finishedAt; }
+	public long getDurationMs() { return durationMs; }
+	public boolean isSucceeded() { return succeeded; }
+	public String getError() { return error; }
+}
@@ -0,0 +1,43 @@
+package com.example.demo.models;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * A stored file waiting to be deleted from storage. Written and rescheduled only through
+ * MediaDeletionRepository queries, which use database time.
+ */
+@Entity
+@Table(name = "media_deletions")
+public class MediaDeletion {
+	@Id
+	private Long id;
+
+	@Column(name = "path", nullable = false, length = 512)
+	private String path;
+
+	@Column(name = "attempts", nullable = false)
+	private int attempts;
+
+	@Column(name = "next_attempt_at", nullable = false)
+	private LocalDateTime nextAttemptAt;
+
+	@Column(name = "last_error", length = 1024)
+	private String lastError;
+
+	@Column(name = "created_at", nullable = false)
+	private LocalDateTime createdAt;
+
+	public MediaDeletion() {}
+
+	public Long getId() { return id; }
+	public String getPath() { return path; }
+	public int getAttempts() { return attempts; }
+	public LocalDateTime getNextAttemptAt() { return nextAttemptAt; }
+	public String getLastError() { return lastError; }
+	public LocalDateTime getCreatedAt() { return createdAt; }
+}
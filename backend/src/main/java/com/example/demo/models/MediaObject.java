@@ -0,0 +1,80 @@
+package com.example.demo.models;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * A stored file, identified by the SHA-256 of its content and shared by every upload of the
+ * same bytes. refCount counts the posts, avatars and uploads holding it; unclaimedCount is
+ * how many of those are uploads whose URL nothing uses yet. mediaKind, contentType and the
+ * dimensions are detected from the content when it is first stored.
+ */
+@Entity
+@Table(name = "media_objects")
+public class MediaObject {
+	@Id
+	@Column(name = "sha256", length = 64, nullable = false)
+	private String sha256;
+
+	@Column(name = "path", nullable = false, length = 512)
+	private String path;
+
+	@Column(name = "url", nullable = false, unique = true, length = 1024)
+	private String url;
+
+	@Column(name = "content_type")
+	private String contentType;
+
+	@Enumerated(EnumType.STRING)
+	@Column(name = "media_kind", length = 16)
+	private MediaType mediaKind;
+
+	@Column(name = "width")
+	private Integer width;
+
+	@Column(name = "height")
+	private Integer height;
+
+	@Column(name = "size_bytes", nullable = false)
+	private long sizeBytes;
+
+	@Column(name = "ref_count", nullable = false)
+	private int refCount;
+
+	@Column(name = "unclaimed_count", nullable = false)
+	private int unclaimedCount;
+
+	@Column(name = "created_at", nullable = false)
+	private LocalDateTime createdAt = LocalDateTime.now();
+
+	public MediaObject() {}
+
+	public String getSha256() { return sha256; }
+	public void setSha256(String sha256) { this.sha256 = sha256; }
+	public String getPath() { return path; }
+	public void setPath(String path) { this.path = path; }
+	public String getUrl() { return url; }
+	public void setUrl(String url) { this.url = url; }
+	public String getContentType() { return contentType; }
+	public void setContentType(String contentType) { this.contentType = contentType; }
+	public MediaType getMediaKind() { return mediaKind; }
+	public void setMediaKind(MediaType mediaKind) { this.mediaKind = mediaKind; }
+	public Integer getWidth() { return width; }
+	public void setWidth(Integer width) { this.width = width; }
+	public Integer getHeight() { return height; }
+	public void setHeight(Integer height) { this.height = height; }
+	public long getSizeBytes() { return sizeBytes; }
+	public void setSizeBytes(long sizeBytes) { this.sizeBytes = sizeBytes; }
+	public int getRefCount() { return refCount; }
+	public void setRefCount(int refCount) { this.refCount = refCount; }
+	public int getUnclaimedCount() { return unclaimedCount; }
+	public void setUnclaimedCount(int unclaimedCount) { this.unclaimedCount = unclaimedCount; }
+	public LocalDateTime getCreatedAt() { return createdAt; }
+	public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
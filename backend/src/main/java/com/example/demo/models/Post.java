@@ -1,6 +1,7 @@
 package com.example.demo.models;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 import jakarta.persistence.CascadeType;
@@ -19,6 +20,8 @@ import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.Table;
 
+import org.hibernate.annotations.BatchSize;
+
 import com.example.demo.dtos.PostDto;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
@@ -41,7 +44,9 @@ public class Post {
 	@Column(nullable = false)
 	private String content;
 
+	// Loaded for up to a page of posts at once when a listing touches them
 	@ElementCollection
+	@BatchSize(size = 50)
 	@CollectionTable(name = "post_tags", joinColumns = @JoinColumn(name = "post_id"))
 	@Column(name = "tag")
 	private List<String> tags;
@@ -53,6 +58,41 @@ public class Post {
 	@Column(name = "media_type")
 	private MediaType mediaType;
 
+	// Image variants, only written by PostRepository.updateMediaVariants/clearMediaVariants so a
+	// save of a stale Post never overwrites them; never taken from request bodies
+	@Column(name = "media_thumbnail_url", insertable = false, updatable = false)
+	@JsonIgnore
+	private String mediaThumbnailUrl;
+
+	@Column(name = "media_medium_url", insertable = false, updatable = false)
+	@JsonIgnore
+	private String mediaMediumUrl;
+
+	@Column(name = "media_srcset", insertable = false, updatable = false)
+	@JsonIgnore
+	private String mediaSrcset;
+
+	@Column(name = "media_width", insertable = false, updatable = false)
+	@JsonIgnore
+	private Integer mediaWidth;
+
+	@Column(name = "media_height", insertable = false, updatable = false)
+	@JsonIgnore
+	private Integer mediaHeight;
+
+	@Column(name = "media_blurhash", insertable = false, updatable = false)
+	@JsonIgnore
+	private String mediaBlurhash;
+
+	// Detected when the file was uploaded; written by PostRepository.updateMediaMetadata
+	@Column(name = "media_content_type", insertable = false, updatable = false)
+	@JsonIgnore
+	private String mediaContentType;
+
+	@Column(name = "media_size_bytes", insertable = false, updatable = false)
+	@JsonIgnore
+	private Long mediaSizeBytes;
+
 	@Column(name = "created_at", nullable = false)
 	private LocalDateTime createdAt = LocalDateTime.now();
 
@@ -137,6 +177,51 @@ public class Post {
 		this.mediaType = mediaType;
 	}
 
+	public String getMediaThumbnailUrl() {
+		return mediaThumbnailUrl;
+	}
+
+	public String getMediaMediumUrl() {
+		return mediaMediumUrl;
+	}
+
+	public String getMediaSrcset() {
+		return mediaSrcset;
+	}
+
+	public Integer getMediaWidth() {
+		return mediaWidth;
+	}
+
+	public Integer getMediaHeight() {
+		return mediaHeight;
+	}
+
+	public String getMediaBlurhash() {
+		return mediaBlurhash;
+	}
+
+	public String getMediaContentType() {
+		return mediaContentType;
+	}
+
+	public Long getMediaSizeBytes() {
+		return mediaSizeBytes;
+	}
+
+	/**
+	 * Stored files this post holds a reference to: its media and the media's variants.
+	 */
+	public List<String> mediaFileUrls() {
+		List<String> urls = new ArrayList<>();
+		for (String url : new String[] { mediaUrl, mediaThumbnailUrl, mediaMediumUrl }) {
+			if (url != null) {
+				urls.add(url);
+			}
+		}
+		return urls;
+	}
+
 	public LocalDateTime getCreatedAt() {
 		return createdAt;
 	}
@@ -46,6 +46,17 @@ public class Report {
 	@Column(name = "created_at", nullable = false)
 	private LocalDateTime createdAt = LocalDateTime.now();
 
+	// Queue rank and escalation, written only by ReportRepository queries
+	@Column(name = "priority", nullable = false, insertable = false, updatable = false)
+	private int priority;
+
+	@Column(name = "escalated", nullable = false, insertable = false, updatable = false)
+	private boolean escalated;
+
+	// The case grouping reports on the same target, set by ReportCaseRepository
+	@Column(name = "case_id", insertable = false, updatable = false)
+	private Long caseId;
+
 	public Report() {}
 
 	public Long getId() { return id; }
@@ -64,4 +75,7 @@ public class Report {
 	public void setStatus(ReportStatus status) { this.status = status; }
 	public LocalDateTime getCreatedAt() { return createdAt; }
 	public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+	public int getPriority() { return priority; }
+	public boolean isEscalated() { return escalated; }
+	public Long getCaseId() { return caseId; }
 } 
\ No newline at end of file
@@ -0,0 +1,71 @@
+package com.example.demo.models;
+
+import java.time.LocalDateTime;
+
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * All reports on one post or user. Written only through ReportCaseRepository queries, so
+ * counters stay exact when many reports arrive at once.
+ */
+@Entity
+@Table(name = "report_cases")
+public class ReportCase {
+	@Id
+	private Long id;
+
+	@Column(name = "reported_post_id")
+	private Long reportedPostId;
+
+	@Column(name = "reported_user_id")
+	private Long reportedUserId;
+
+	@Enumerated(EnumType.STRING)
+	@Column(name = "status", nullable = false, length = 16)
+	private ReportCaseStatus status;
+
+	@Column(name = "report_count", nullable = false)
+	private int reportCount;
+
+	@Column(name = "pending_count", nullable = false)
+	private int pendingCount;
+
+	// A few distinct reasons given, in the order they first came in
+	@JdbcTypeCode(SqlTypes.ARRAY)
+	@Column(name = "reason_sample", nullable = false)
+	private String[] reasonSample;
+
+	@Column(name = "auto_hidden", nullable = false)
+	private boolean autoHidden;
+
+	@Column(name = "first_reported_at", nullable = false)
+	private LocalDateTime firstReportedAt;
+
+	@Column(name = "last_reported_at", nullable = false)
+	private LocalDateTime lastReportedAt;
+
+	@Column(name = "closed_at")
+	private LocalDateTime closedAt;
+
+	public ReportCase() {}
+
+	public Long getId() { return id; }
+	public Long getReportedPostId() { return reportedPostId; }
+	public Long getReportedUserId() { return reportedUserId; }
+	public ReportCaseStatus getStatus() { return status; }
+	public int getReportCount() { return reportCount; }
+	public int getPendingCount() { return pendingCount; }
+	public String[] getReasonSample() { return reasonSample; }
+	public boolean isAutoHidden() { return autoHidden; }
+	public LocalDateTime getFirstReportedAt() { return firstReportedAt; }
+	public LocalDateTime getLastReportedAt() { return lastReportedAt; }
+	public LocalDateTime getClosedAt() { return closedAt; }
+}
@@ -0,0 +1,71 @@
+package com.example.demo.models;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * A background deletion of a user and their data, returned as-is by the job status endpoint.
+ * Written only through UserDeletionJobRepository queries, which use database time.
+ */
+@Entity
+@Table(name = "user_deletion_jobs")
+public class UserDeletionJob {
+	@Id
+	private Long id;
+
+	@Column(name = "user_id", nullable = false)
+	private Long userId;
+
+	@Column(name = "requested_by")
+	private Long requestedBy;
+
+	@Enumerated(EnumType.STRING)
+	@Column(name = "status", nullable = false, length = 16)
+	private UserDeletionStatus status;
+
+	// Cascade step in progress, null before the first chunk
+	@Column(name = "step", length = 32)
+	private String step;
+
+	@Column(name = "rows_deleted", nullable = false)
+	private long rowsDeleted;
+
+	@Column(name = "attempts", nullable = false)
+	private int attempts;
+
+	@Column(name = "next_attempt_at", nullable = false)
+	private LocalDateTime nextAttemptAt;
+
+	@Column(name = "last_error", length = 1024)
+	private String lastError;
+
+	@Column(name = "created_at", nullable = false)
+	private LocalDateTime createdAt;
+
+	@Column(name = "updated_at", nullable = false)
+	private LocalDateTime updatedAt;
+
+	@Column(name = "completed_at")
+	private LocalDateTime completedAt;
+
+	public UserDeletionJob() {}
+
+	public Long getId() { return id; }
+	public Long getUserId() { return userId; }
+	public Long getRequestedBy() { return requestedBy; }
+	public UserDeletionStatus getStatus() { return status; }
+	public String getStep() { return step; }
+	public long getRowsDeleted() { return rowsDeleted; }
+	public int getAttempts() { return attempts; }
+	public LocalDateTime getNextAttemptAt() { return nextAttemptAt; }
+	public String getLastError() { return lastError; }
+	public LocalDateTime getCreatedAt() { return createdAt; }
+	public LocalDateTime getUpdatedAt() { return updatedAt; }
+	public LocalDateTime getCompletedAt() { return completedAt; }
+}
@@ -0,0 +1,8 @@
+package com.example.demo.models;
+
+public enum UserDeletionStatus {
+	PENDING,
+	RUNNING,
+	COMPLETED,
+	FAILED
+}
@@ -1,9 +1,14 @@
 package com.example.demo.repositories;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import com.example.demo.models.Comment;
 
 @Repository
@@ -16,4 +21,22 @@ public interface CommentRepository extends JpaRepository<Comment, Long> {
     Optional<Comment> findByIdAndCreator_Id(Long id, Long creatorId);
 
     void deleteByIdAndCreator_Id(Long id, Long creatorId);
+
+    // Chunked deletes for UserDeletionService; each returns the number of rows deleted
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM comments WHERE id IN "
+            + "(SELECT id FROM comments WHERE creator_id = :userId LIMIT :limit)", nativeQuery = true)
+    int deleteChunkByCreator(@Param("userId") Long userId, @Param("limit") int limit);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM comments WHERE id IN (SELECT c.id FROM comments c "
+            + "JOIN posts p ON p.id = c.post_id WHERE p.creator_id = :userId LIMIT :limit)", nativeQuery = true)
+    int deleteChunkOnPostsOf(@Param("userId") Long userId, @Param("limit") int limit);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM comments WHERE post_id IN (:postIds)", nativeQuery = true)
+    int deleteByPostIds(@Param("postIds") Collection<Long> postIds);
 }
\ No newline at end of file
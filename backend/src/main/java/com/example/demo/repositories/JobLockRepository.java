@@ -0,0 +1,37 @@
+package com.example.demo.repositories;
+
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import com.example.demo.models.JobLock;
+
+@Repository
+public interface JobLockRepository extends JpaRepository<JobLock, String> {
+
+    List<JobLock> findAllByOrderByNameAsc();
+
+    // Claim a job that is due and not leased by a live instance; 1 if this instance got it.
+    // The first claim of a job creates its row
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO job_locks (name, locked_by, locked_until, next_run_at) "
+            + "VALUES (:name, :instance, LOCALTIMESTAMP + make_interval(secs => :leaseSeconds), LOCALTIMESTAMP) "
+            + "ON CONFLICT (name) DO UPDATE SET locked_by = EXCLUDED.locked_by, locked_until = EXCLUDED.locked_until "
+            + "WHERE job_locks.locked_until <= LOCALTIMESTAMP AND job_locks.next_run_at <= LOCALTIMESTAMP",
+            nativeQuery = true)
+    int tryClaim(@Param("name") String name, @Param("instance") String instance,
+            @Param("leaseSeconds") double leaseSeconds);
+
+    // Release after a run and set when the job is next due anywhere in the cluster
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE job_locks SET locked_until = LOCALTIMESTAMP, last_run_at = LOCALTIMESTAMP, "
+            + "next_run_at = LOCALTIMESTAMP + make_interval(secs => :intervalSeconds) "
+            + "WHERE name = :name AND locked_by = :instance", nativeQuery = true)
+    int release(@Param("name") String name, @Param("instance") String instance,
+            @Param("intervalSeconds") double intervalSeconds);
+}
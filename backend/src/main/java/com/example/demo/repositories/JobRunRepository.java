@@ -0,0 +1,25 @@
+package com.example.demo.repositories;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import com.example.demo.models.JobRun;
+
+@Repository
+public interface JobRunRepository extends JpaRepository<JobRun, Long> {
+
+    List<JobRun> findByNameOrderByStartedAtDesc(String name, Pageable pageable);
+
+    // Delete up to limit runs started before the cutoff
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM job_runs WHERE id IN "
+            + "(SELECT id FROM job_runs WHERE started_at < :cutoff LIMIT :limit)", nativeQuery = true)
+    int deleteChunkStartedBefore(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+}
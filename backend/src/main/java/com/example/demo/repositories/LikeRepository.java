@@ -1,9 +1,14 @@
 package com.example.demo.repositories;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import com.example.demo.models.Like;
 
 @Repository
@@ -18,4 +23,22 @@ public interface LikeRepository extends JpaRepository<Like, Long> {
     void deleteByCreator_IdAndPost_Id(Long creatorId, Long postId);
 
     long countByPost_Id(Long postId);
+
+    // Chunked deletes for UserDeletionService; each returns the number of rows deleted
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM likes WHERE id IN "
+            + "(SELECT id FROM likes WHERE creator_id = :userId LIMIT :limit)", nativeQuery = true)
+    int deleteChunkByCreator(@Param("userId") Long userId, @Param("limit") int limit);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM likes WHERE id IN (SELECT l.id FROM likes l "
+            + "JOIN posts p ON p.id = l.post_id WHERE p.creator_id = :userId LIMIT :limit)", nativeQuery = true)
+    int deleteChunkOnPostsOf(@Param("userId") Long userId, @Param("limit") int limit);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM likes WHERE post_id IN (:postIds)", nativeQuery = true)
+    int deleteByPostIds(@Param("postIds") Collection<Long> postIds);
 }
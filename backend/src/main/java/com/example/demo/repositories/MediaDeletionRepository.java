@@ -0,0 +1,54 @@
+package com.example.demo.repositories;
+
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import com.example.demo.models.MediaDeletion;
+
+@Repository
+public interface MediaDeletionRepository extends JpaRepository<MediaDeletion, Long> {
+
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO media_deletions (path) VALUES (:path)", nativeQuery = true)
+    int enqueue(@Param("path") String path);
+
+    // Deletion that only becomes due after a delay, e.g. for whatever ends up at a staging path
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO media_deletions (path, next_attempt_at) "
+            + "VALUES (:path, LOCALTIMESTAMP + make_interval(secs => :delaySeconds))", nativeQuery = true)
+    int enqueueAfter(@Param("path") String path, @Param("delaySeconds") double delaySeconds);
+
+    // Due deletions, locked; rows another instance is working on are skipped. Call inside a transaction
+    @Query(value = "SELECT * FROM media_deletions WHERE next_attempt_at <= LOCALTIMESTAMP "
+            + "ORDER BY next_attempt_at LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<MediaDeletion> lockDue(@Param("limit") int limit);
+
+    // Hide claimed rows from other workers; if this one dies they come back after the lease
+    @Modifying
+    @Query(value = "UPDATE media_deletions SET next_attempt_at = LOCALTIMESTAMP + make_interval(secs => :leaseSeconds) "
+            + "WHERE id IN (:ids)", nativeQuery = true)
+    int lease(@Param("ids") Collection<Long> ids, @Param("leaseSeconds") double leaseSeconds);
+
+    // Exponential backoff per row, capped, with jitter so a storage outage isn't followed by a retry storm
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE media_deletions SET attempts = attempts + 1, last_error = :error, "
+            + "next_attempt_at = LOCALTIMESTAMP + make_interval(secs => "
+            + "LEAST(:maxBackoffSeconds, :baseBackoffSeconds * power(2, LEAST(attempts, 20))) * (0.5 + random() * 0.5)) "
+            + "WHERE id IN (:ids)", nativeQuery = true)
+    int recordFailure(@Param("ids") Collection<Long> ids, @Param("error") String error,
+            @Param("baseBackoffSeconds") double baseBackoffSeconds,
+            @Param("maxBackoffSeconds") double maxBackoffSeconds);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM MediaDeletion d WHERE d.id IN :ids")
+    int deleteByIds(@Param("ids") Collection<Long> ids);
+}
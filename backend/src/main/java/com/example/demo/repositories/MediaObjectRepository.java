@@ -0,0 +1,74 @@
+package com.example.demo.repositories;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import com.example.demo.models.MediaObject;
+
+/**
+ * Reference counts are only changed with single UPDATE statements, so concurrent uploads and
+ * deletes of the same content never lose a count.
+ * <p>
+ * ref_count is the number of posts, avatars and uploads holding the object. An upload's
+ * reference is also counted in unclaimed_count until something uses its URL: the first post or
+ * avatar to do so takes the upload's reference over, any later one takes its own.
+ */
+@Repository
+public interface MediaObjectRepository extends JpaRepository<MediaObject, String> {
+
+    Optional<MediaObject> findByUrl(String url);
+
+    // Take an unclaimed reference for an upload of a live object; 0 if there is none (or it is being deleted)
+    @Modifying
+    @Transactional
+    @Query("UPDATE MediaObject m SET m.refCount = m.refCount + 1, m.unclaimedCount = m.unclaimedCount + 1 "
+            + "WHERE m.sha256 = :sha256 AND m.refCount > 0")
+    int acquireUpload(@Param("sha256") String sha256);
+
+    // Take over an upload's unclaimed reference; 0 if every upload of the object has been claimed
+    @Modifying
+    @Transactional
+    @Query("UPDATE MediaObject m SET m.unclaimedCount = m.unclaimedCount - 1 "
+            + "WHERE m.url = :url AND m.unclaimedCount > 0 AND m.refCount > 0")
+    int claimUpload(@Param("url") String url);
+
+    // Take a new reference on a live object by its URL; 0 if there is none (or it is being deleted)
+    @Modifying
+    @Transactional
+    @Query("UPDATE MediaObject m SET m.refCount = m.refCount + 1 WHERE m.url = :url AND m.refCount > 0")
+    int acquireByUrl(@Param("url") String url);
+
+    // Record a freshly stored object, or take an unclaimed reference if a concurrent upload recorded it first
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO media_objects (sha256, path, url, content_type, media_kind, width, height, "
+            + "size_bytes, ref_count, unclaimed_count, created_at) "
+            + "VALUES (:sha256, :path, :url, :contentType, :mediaKind, :width, :height, :sizeBytes, 1, 1, "
+            + "CURRENT_TIMESTAMP) ON CONFLICT (sha256) DO UPDATE SET ref_count = media_objects.ref_count + 1, "
+            + "unclaimed_count = media_objects.unclaimed_count + 1", nativeQuery = true)
+    int insertOrAcquire(@Param("sha256") String sha256, @Param("path") String path, @Param("url") String url,
+            @Param("contentType") String contentType, @Param("mediaKind") String mediaKind,
+            @Param("width") Integer width, @Param("height") Integer height, @Param("sizeBytes") long sizeBytes);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE MediaObject m SET m.refCount = m.refCount - 1 WHERE m.sha256 = :sha256 AND m.refCount > 0")
+    int release(@Param("sha256") String sha256);
+
+    // Forget an object nobody references any more and queue its file for deletion, in one statement
+    @Modifying
+    @Transactional
+    @Query(value = "WITH gone AS (DELETE FROM media_objects WHERE sha256 = :sha256 AND ref_count = 0 RETURNING path) "
+            + "INSERT INTO media_deletions (path) SELECT path FROM gone", nativeQuery = true)
+    int deleteIfUnreferenced(@Param("sha256") String sha256);
+
+    // Which of these paths are stored (again) and must not be deleted
+    @Query("SELECT m.path FROM MediaObject m WHERE m.path IN :paths")
+    List<String> findStoredPaths(@Param("paths") Collection<String> paths);
+}
@@ -3,8 +3,11 @@ package com.example.demo.repositories;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.example.demo.models.Notification;
 import com.example.demo.models.User;
@@ -27,4 +30,11 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
     
     // Find notifications by creator
     List<Notification> findByCreator(User creator);
+
+    // Delete up to limit notifications sent by or to a user, for UserDeletionService
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM notifications WHERE id IN (SELECT id FROM notifications "
+            + "WHERE creator_id = :userId OR receiver_id = :userId LIMIT :limit)", nativeQuery = true)
+    int deleteChunkInvolving(@Param("userId") Long userId, @Param("limit") int limit);
 } 
\ No newline at end of file
@@ -1,9 +1,17 @@
 package com.example.demo.repositories;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import com.example.demo.dtos.AdminPostDto;
 import com.example.demo.models.Post;
 import com.example.demo.models.User;
 import org.springframework.stereotype.Repository;
@@ -31,4 +39,70 @@ public interface PostRepository extends JpaRepository<Post, Long> {
 
     // Count posts created after a specific date
     long countByCreatedAtAfter(LocalDateTime date);
+
+    // Record image variants, only if the post still has the image they were made from
+    @Modifying
+    @Transactional
+    @Query("UPDATE Post p SET p.mediaThumbnailUrl = :thumbnailUrl, p.mediaMediumUrl = :mediumUrl, "
+            + "p.mediaSrcset = :srcset, p.mediaWidth = :width, p.mediaHeight = :height, p.mediaBlurhash = :blurhash "
+            + "WHERE p.id = :id AND p.mediaUrl = :mediaUrl")
+    int updateMediaVariants(@Param("id") Long id, @Param("mediaUrl") String mediaUrl,
+            @Param("thumbnailUrl") String thumbnailUrl, @Param("mediumUrl") String mediumUrl,
+            @Param("srcset") String srcset, @Param("width") Integer width, @Param("height") Integer height,
+            @Param("blurhash") String blurhash);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Post p SET p.mediaThumbnailUrl = NULL, p.mediaMediumUrl = NULL, p.mediaSrcset = NULL, "
+            + "p.mediaWidth = NULL, p.mediaHeight = NULL, p.mediaBlurhash = NULL, "
+            + "p.mediaContentType = NULL, p.mediaSizeBytes = NULL WHERE p.id = :id")
+    int clearMediaVariants(@Param("id") Long id);
+
+    // Copy the detected metadata of the post's stored file onto the post
+    @Modifying
+    @Transactional
+    @Query("UPDATE Post p SET p.mediaContentType = :contentType, p.mediaSizeBytes = :sizeBytes, "
+            + "p.mediaWidth = COALESCE(:width, p.mediaWidth), p.mediaHeight = COALESCE(:height, p.mediaHeight) "
+            + "WHERE p.id = :id AND p.mediaUrl = :mediaUrl")
+    int updateMediaMetadata(@Param("id") Long id, @Param("mediaUrl") String mediaUrl,
+            @Param("contentType") String contentType, @Param("sizeBytes") Long sizeBytes,
+            @Param("width") Integer width, @Param("height") Integer height);
+
+    // Next chunk of a user's posts, for UserDeletionService
+    @Query(value = "SELECT id FROM posts WHERE creator_id = :userId ORDER BY id LIMIT :limit", nativeQuery = true)
+    List<Long> findIdChunkByCreator(@Param("userId") Long userId, @Param("limit") int limit);
+
+    // Media, thumbnail and medium URL of each post, any of them null
+    @Query("SELECT p.mediaUrl, p.mediaThumbnailUrl, p.mediaMediumUrl FROM Post p WHERE p.id IN :ids")
+    List<Object[]> findMediaFileUrls(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM posts WHERE id IN (:ids)", nativeQuery = true)
+    int deleteByIds(@Param("ids") Collection<Long> ids);
+
+    String ADMIN_POST_FILTER = "WHERE (:hidden IS NULL OR p.hidden = :hidden) "
+            + "AND (:creatorId IS NULL OR c.id = :creatorId) "
+            + "AND (:createdFrom IS NULL OR p.createdAt >= :createdFrom) "
+            + "AND (:createdTo IS NULL OR p.createdAt < :createdTo) "
+            + "AND (:hasReports IS NULL "
+            + "OR (:hasReports = true AND EXISTS (SELECT 1 FROM Report r WHERE r.reportedPost = p)) "
+            + "OR (:hasReports = false AND NOT EXISTS (SELECT 1 FROM Report r WHERE r.reportedPost = p)))";
+
+    // Admin listing: one statement per page with the author joined and counts as correlated
+    // subqueries. Like is qualified because it is also a query keyword. Filters left null are not applied
+    @Query(value = "SELECT new com.example.demo.dtos.AdminPostDto(p.id, p.title, p.content, p.mediaUrl, "
+            + "p.mediaType, p.createdAt, p.hidden, p.hideReason, c.id, c.username, c.email, c.image, c.role, "
+            + "(SELECT COUNT(l) FROM com.example.demo.models.Like l WHERE l.post = p), "
+            + "(SELECT COUNT(cm) FROM Comment cm WHERE cm.post = p), "
+            + "(SELECT COUNT(r) FROM Report r WHERE r.reportedPost = p)) "
+            + "FROM Post p JOIN p.creator c " + ADMIN_POST_FILTER,
+            countQuery = "SELECT COUNT(p) FROM Post p JOIN p.creator c " + ADMIN_POST_FILTER)
+    Page<AdminPostDto> findAdminPosts(@Param("hidden") Boolean hidden, @Param("creatorId") Long creatorId,
+            @Param("createdFrom") LocalDateTime createdFrom, @Param("createdTo") LocalDateTime createdTo,
+            @Param("hasReports") Boolean hasReports, Pageable pageable);
+
+    // Tags of a page of posts as (post id, tag) pairs
+    @Query("SELECT p.id, t FROM Post p JOIN p.tags t WHERE p.id IN :ids")
+    List<Object[]> findTagsByPostIds(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,92 @@
+package com.example.demo.repositories;
+
+import java.util.Collection;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import com.example.demo.models.ReportCase;
+import com.example.demo.models.ReportCaseStatus;
+
+@Repository
+public interface ReportCaseRepository extends JpaRepository<ReportCase, Long> {
+
+    String COUNT_REPORT = "report_count = report_cases.report_count + 1, "
+            + "pending_count = report_cases.pending_count + 1, status = 'OPEN', closed_at = NULL, "
+            + "last_reported_at = LOCALTIMESTAMP, reason_sample = CASE "
+            + "WHEN EXCLUDED.reason_sample[1] = ANY(report_cases.reason_sample) "
+            + "OR cardinality(report_cases.reason_sample) >= :sampleSize THEN report_cases.reason_sample "
+            + "ELSE report_cases.reason_sample || EXCLUDED.reason_sample END ";
+
+    Page<ReportCase> findByStatus(ReportCaseStatus status, Pageable pageable);
+
+    // Count a new report on a post into its case, opening or reopening it; returns the case id
+    @Transactional
+    @Query(value = "INSERT INTO report_cases (reported_post_id, report_count, pending_count, reason_sample) "
+            + "VALUES (:postId, 1, 1, ARRAY[CAST(:reason AS TEXT)]) "
+            + "ON CONFLICT (reported_post_id) WHERE reported_post_id IS NOT NULL DO UPDATE SET " + COUNT_REPORT
+            + "RETURNING id", nativeQuery = true)
+    Long countPostReport(@Param("postId") Long postId, @Param("reason") String reason,
+            @Param("sampleSize") int sampleSize);
+
+    // Same for a report on a user
+    @Transactional
+    @Query(value = "INSERT INTO report_cases (reported_user_id, report_count, pending_count, reason_sample) "
+            + "VALUES (:userId, 1, 1, ARRAY[CAST(:reason AS TEXT)]) "
+            + "ON CONFLICT (reported_user_id) WHERE reported_user_id IS NOT NULL DO UPDATE SET " + COUNT_REPORT
+            + "RETURNING id", nativeQuery = true)
+    Long countUserReport(@Param("userId") Long userId, @Param("reason") String reason,
+            @Param("sampleSize") int sampleSize);
+
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE reports SET case_id = :caseId WHERE id = :reportId", nativeQuery = true)
+    int linkReport(@Param("reportId") Long reportId, @Param("caseId") Long caseId);
+
+    // Hide the case's post once it has threshold pending reports, at most once per opening
+    @Modifying
+    @Transactional
+    @Query(value = "WITH c AS (UPDATE report_cases SET auto_hidden = true WHERE id = :caseId "
+            + "AND status = 'OPEN' AND NOT auto_hidden AND reported_post_id IS NOT NULL "
+            + "AND pending_count >= :threshold RETURNING reported_post_id) "
+            + "UPDATE posts SET hidden = true, hide_reason = :reason FROM c "
+            + "WHERE posts.id = c.reported_post_id AND NOT posts.hidden", nativeQuery = true)
+    int autoHidePost(@Param("caseId") Long caseId, @Param("threshold") int threshold,
+            @Param("reason") String reason);
+
+    // Show the case's post again if the case hid it, for when the reports are dismissed
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE posts SET hidden = false, hide_reason = NULL FROM report_cases c "
+            + "WHERE c.id = :caseId AND c.auto_hidden AND posts.id = c.reported_post_id AND posts.hidden",
+            nativeQuery = true)
+    int unhideAutoHiddenPost(@Param("caseId") Long caseId);
+
+    // Resolve or dismiss every pending report of a case and close it, in one statement.
+    // Returns the number of reports closed, or null when there is no such case
+    @Transactional
+    @Query(value = "WITH closed AS (UPDATE reports SET status = :status "
+            + "WHERE case_id = :caseId AND status = 'PENDING' RETURNING id) "
+            + "UPDATE report_cases SET status = :status, pending_count = 0, auto_hidden = false, "
+            + "closed_at = LOCALTIMESTAMP WHERE id = :caseId "
+            + "RETURNING (SELECT COUNT(*) FROM closed)", nativeQuery = true)
+    Long close(@Param("caseId") Long caseId, @Param("status") String status);
+
+    // Recount cases after some of their reports changed status or were deleted
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE report_cases c SET report_count = n.total, pending_count = n.pending, "
+            + "status = CASE WHEN n.pending > 0 THEN 'OPEN' WHEN n.resolved > 0 THEN 'RESOLVED' ELSE 'DISMISSED' END, "
+            + "closed_at = CASE WHEN n.pending > 0 THEN NULL ELSE COALESCE(c.closed_at, LOCALTIMESTAMP) END, "
+            + "auto_hidden = c.auto_hidden AND n.pending > 0 "
+            + "FROM (SELECT k.id, COUNT(r.id) AS total, COUNT(r.id) FILTER (WHERE r.status = 'PENDING') AS pending, "
+            + "COUNT(r.id) FILTER (WHERE r.status = 'RESOLVED') AS resolved FROM report_cases k "
+            + "LEFT JOIN reports r ON r.case_id = k.id WHERE k.id IN (:caseIds) GROUP BY k.id) n "
+            + "WHERE c.id = n.id", nativeQuery = true)
+    int recount(@Param("caseIds") Collection<Long> caseIds);
+}
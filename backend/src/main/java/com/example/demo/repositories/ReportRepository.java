@@ -1,9 +1,16 @@
 package com.example.demo.repositories;
 
 import java.util.List;
+import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.example.demo.models.Post;
 import com.example.demo.models.Report;
@@ -27,4 +34,61 @@ public interface ReportRepository extends JpaRepository<Report, Long> {
     
     // Count reports by status
     long countByStatus(ReportStatus status);
+
+    // Delete up to limit reports filed by or against a user, for UserDeletionService. Returns the
+    // case of each deleted report (null for unlinked ones) so the cases can be recounted
+    @Transactional
+    @Query(value = "DELETE FROM reports WHERE id IN (SELECT id FROM reports "
+            + "WHERE reporter_id = :userId OR reported_user_id = :userId LIMIT :limit) RETURNING case_id",
+            nativeQuery = true)
+    List<Long> deleteChunkInvolving(@Param("userId") Long userId, @Param("limit") int limit);
+
+    // Moderation queue: reports after the (priority, id) cursor, highest priority first, with
+    // everything ReportDto reads fetched in the same query. Status null means all statuses
+    @EntityGraph(attributePaths = { "reporter", "reportedUser", "reportedPost", "reportedPost.creator" })
+    @Query("SELECT r FROM Report r WHERE (:status IS NULL OR r.status = :status) "
+            + "AND (r.priority < :afterPriority OR (r.priority = :afterPriority AND r.id < :afterId)) "
+            + "ORDER BY r.priority DESC, r.id DESC")
+    List<Report> findQueuePage(@Param("status") ReportStatus status, @Param("afterPriority") int afterPriority,
+            @Param("afterId") long afterId, Pageable pageable);
+
+    long countByStatusAndPriorityGreaterThanEqual(ReportStatus status, int priority);
+
+    // A reporter's open report on a target, so reporting it again adds nothing
+    Optional<Report> findFirstByReporter_IdAndReportedPost_IdAndStatus(Long reporterId, Long postId, ReportStatus status);
+
+    Optional<Report> findFirstByReporter_IdAndReportedUser_IdAndStatus(Long reporterId, Long userId, ReportStatus status);
+
+    // Reports of a case, newest first, fetched as for the queue
+    @EntityGraph(attributePaths = { "reporter", "reportedUser", "reportedPost", "reportedPost.creator" })
+    List<Report> findByCaseIdOrderByIdDesc(Long caseId, Pageable pageable);
+
+    // Rescore pending reports, all of them or only those on one target. The score adds up the
+    // number of pending reports on the same target (log-scaled), the reporter's record of
+    // reports upheld versus dismissed (smoothed, so new reporters start at one half) and how
+    // recent the report is (halving every halfLifeHours); escalated reports are boosted above the rest
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE reports r SET priority = s.score FROM ("
+            + "SELECT q.id, CAST(ROUND("
+            + ":volumeWeight * LN(1 + COUNT(*) OVER (PARTITION BY q.reported_post_id, q.reported_user_id)) "
+            + "+ :trustWeight * (COALESCE(t.upheld, 0) + 1.0) / (COALESCE(t.upheld, 0) + COALESCE(t.dismissed, 0) + 2) "
+            + "+ :recencyWeight * POWER(0.5, EXTRACT(EPOCH FROM (LOCALTIMESTAMP - q.created_at)) / 3600.0 / :halfLifeHours)"
+            + ") AS INTEGER) + CASE WHEN q.escalated THEN :escalationBoost ELSE 0 END AS score "
+            + "FROM reports q LEFT JOIN LATERAL (SELECT "
+            + "COUNT(*) FILTER (WHERE status = 'RESOLVED') AS upheld, "
+            + "COUNT(*) FILTER (WHERE status = 'DISMISSED') AS dismissed "
+            + "FROM reports WHERE reporter_id = q.reporter_id) t ON true "
+            + "WHERE q.status = 'PENDING' AND (CAST(:postId AS BIGINT) IS NULL AND CAST(:userId AS BIGINT) IS NULL "
+            + "OR q.reported_post_id = CAST(:postId AS BIGINT) OR q.reported_user_id = CAST(:userId AS BIGINT))"
+            + ") s WHERE r.id = s.id AND r.priority <> s.score", nativeQuery = true)
+    int rescorePending(@Param("postId") Long postId, @Param("userId") Long userId,
+            @Param("volumeWeight") double volumeWeight, @Param("trustWeight") double trustWeight,
+            @Param("recencyWeight") double recencyWeight, @Param("halfLifeHours") double halfLifeHours,
+            @Param("escalationBoost") int escalationBoost);
+
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE reports SET escalated = true WHERE id = :id", nativeQuery = true)
+    int markEscalated(@Param("id") Long id);
 }
@@ -4,7 +4,11 @@ import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.example.demo.models.Subscription;
 import com.example.demo.models.User;
@@ -29,4 +33,11 @@ public interface SubscriptionRepository extends JpaRepository<Subscription, Long
     
     // Count how many followers a user has
     long countByFollowed(User followed);
+
+    // Delete up to limit subscriptions from or to a user, for UserDeletionService
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM subscriptions WHERE id IN (SELECT id FROM subscriptions "
+            + "WHERE follower_id = :userId OR followed_id = :userId LIMIT :limit)", nativeQuery = true)
+    int deleteChunkInvolving(@Param("userId") Long userId, @Param("limit") int limit);
 } 
\ No newline at end of file
@@ -0,0 +1,64 @@
+package com.example.demo.repositories;
+
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import com.example.demo.models.UserDeletionJob;
+
+@Repository
+public interface UserDeletionJobRepository extends JpaRepository<UserDeletionJob, Long> {
+
+    // Start a deletion unless one is already pending or running for the user
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO user_deletion_jobs (user_id, requested_by) VALUES (:userId, :requestedBy) "
+            + "ON CONFLICT (user_id) WHERE status IN ('PENDING', 'RUNNING') DO NOTHING", nativeQuery = true)
+    int enqueue(@Param("userId") Long userId, @Param("requestedBy") Long requestedBy);
+
+    Optional<UserDeletionJob> findFirstByUserIdOrderByIdDesc(Long userId);
+
+    // Due jobs, locked; jobs another instance is running are skipped. Call inside a transaction
+    @Query(value = "SELECT * FROM user_deletion_jobs WHERE status IN ('PENDING', 'RUNNING') "
+            + "AND next_attempt_at <= LOCALTIMESTAMP ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<UserDeletionJob> lockDue(@Param("limit") int limit);
+
+    // Claim a job; if this instance dies it comes back after the lease and resumes at its step
+    @Modifying
+    @Query(value = "UPDATE user_deletion_jobs SET status = 'RUNNING', updated_at = LOCALTIMESTAMP, "
+            + "next_attempt_at = LOCALTIMESTAMP + make_interval(secs => :leaseSeconds) WHERE id = :id",
+            nativeQuery = true)
+    int lease(@Param("id") Long id, @Param("leaseSeconds") double leaseSeconds);
+
+    // Called in the transaction of each chunk, so progress is exactly what was committed
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE user_deletion_jobs SET step = :step, rows_deleted = rows_deleted + :rows, "
+            + "updated_at = LOCALTIMESTAMP, next_attempt_at = LOCALTIMESTAMP + make_interval(secs => :leaseSeconds) "
+            + "WHERE id = :id", nativeQuery = true)
+    int recordProgress(@Param("id") Long id, @Param("step") String step, @Param("rows") long rows,
+            @Param("leaseSeconds") double leaseSeconds);
+
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE user_deletion_jobs SET status = 'COMPLETED', last_error = NULL, "
+            + "updated_at = LOCALTIMESTAMP, completed_at = LOCALTIMESTAMP WHERE id = :id", nativeQuery = true)
+    int complete(@Param("id") Long id);
+
+    // Retry with capped exponential backoff, from :step, until maxAttempts
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE user_deletion_jobs SET attempts = attempts + 1, last_error = :error, step = :step, "
+            + "status = CASE WHEN attempts + 1 >= :maxAttempts THEN 'FAILED' ELSE 'PENDING' END, "
+            + "updated_at = LOCALTIMESTAMP, next_attempt_at = LOCALTIMESTAMP + make_interval(secs => "
+            + "LEAST(:maxBackoffSeconds, :baseBackoffSeconds * power(2, LEAST(attempts, 20)))) "
+            + "WHERE id = :id", nativeQuery = true)
+    int recordFailure(@Param("id") Long id, @Param("step") String step, @Param("error") String error,
+            @Param("maxAttempts") int maxAttempts, @Param("baseBackoffSeconds") double baseBackoffSeconds,
+            @Param("maxBackoffSeconds") double maxBackoffSeconds);
+}
@@ -3,11 +3,17 @@ package com.example.demo.repositories;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import com.example.demo.dtos.AdminUserDto;
 import com.example.demo.models.User;
+import com.example.demo.models.UserRole;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
@@ -28,4 +34,46 @@ public interface UserRepository extends JpaRepository<User, Long> {
     
     // Count users created after a specific date
     long countByCreatedAtAfter(LocalDateTime date);
+
+    String ADMIN_USER_FILTER = "WHERE (:role IS NULL OR u.role = :role) "
+            + "AND (:banned IS NULL OR u.banned = :banned) "
+            + "AND (:createdFrom IS NULL OR u.createdAt >= :createdFrom) "
+            + "AND (:createdTo IS NULL OR u.createdAt < :createdTo) "
+            + "AND (:hasReports IS NULL "
+            + "OR (:hasReports = true AND EXISTS (SELECT 1 FROM Report r WHERE r.reportedUser = u)) "
+            + "OR (:hasReports = false AND NOT EXISTS (SELECT 1 FROM Report r WHERE r.reportedUser = u)))";
+
+    // Admin listing: one statement per page, counts as correlated subqueries on indexed foreign keys.
+    // Filters left null are not applied
+    @Query(value = "SELECT new com.example.demo.dtos.AdminUserDto(u.id, u.username, u.email, u.image, u.bio, "
+            + "u.role, u.banned, u.banEnd, u.createdAt, "
+            + "(SELECT COUNT(s) FROM Subscription s WHERE s.followed = u), "
+            + "(SELECT COUNT(s) FROM Subscription s WHERE s.follower = u), "
+            + "(SELECT COUNT(p) FROM Post p WHERE p.creator = u), "
+            + "(SELECT COUNT(r) FROM Report r WHERE r.reportedUser = u)) "
+            + "FROM User u " + ADMIN_USER_FILTER,
+            countQuery = "SELECT COUNT(u) FROM User u " + ADMIN_USER_FILTER)
+    Page<AdminUserDto> findAdminUsers(@Param("role") UserRole role, @Param("banned") Boolean banned,
+            @Param("createdFrom") LocalDateTime createdFrom, @Param("createdTo") LocalDateTime createdTo,
+            @Param("hasReports") Boolean hasReports, Pageable pageable);
+
+    // Lift every ban that ended by now, in one statement on the partial ban_end index
+    @Transactional
+    @Query(value = "UPDATE users SET banned = false, ban_end = NULL "
+            + "WHERE banned AND ban_end <= :now RETURNING id", nativeQuery = true)
+    List<Long> unbanExpired(@Param("now") LocalDateTime now);
+
+    // End of the next temporary ban to expire, or null
+    @Query("SELECT MIN(u.banEnd) FROM User u WHERE u.banned = true")
+    LocalDateTime findNextBanEnd();
+
+    // Transaction-scoped advisory lock, so only one backend instance runs a job at a time
+    @Query(value = "SELECT pg_try_advisory_xact_lock(:key)", nativeQuery = true)
+    boolean tryAdvisoryXactLock(@Param("key") long key);
+
+    // Last step of UserDeletionService, once nothing references the user
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM User u WHERE u.id = :id")
+    int deleteRowById(@Param("id") Long id);
 }
@@ -0,0 +1,133 @@
+package com.example.demo.security;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+
+/**
+ * Request wrapper holding a body that matched the SHA-256 signed by the gateway.
+ * <p>
+ * The gateway only digests bodies up to {@code gateway.signing.maxDigestBytes}, so a signed
+ * body is small enough to read in full and check before the request goes any further. A
+ * tampered body is rejected even when the handler never reads it or stops at the end of the
+ * JSON value; the handler then reads the checked copy.
+ */
+public class BodyDigestRequestWrapper extends HttpServletRequestWrapper {
+
+    private final byte[] body;
+
+    private BodyDigestRequestWrapper(HttpServletRequest request, byte[] body) {
+        super(request);
+        this.body = body;
+    }
+
+    /**
+     * Read the body, at most {@code maxBytes}, and wrap the request if it matches the digest.
+     * Returns null when the body is larger than that or does not match.
+     */
+    public static BodyDigestRequestWrapper verify(HttpServletRequest request, byte[] expectedDigest, int maxBytes)
+            throws IOException {
+        if (request.getContentLengthLong() > maxBytes) {
+            return null;
+        }
+        byte[] body = request.getInputStream().readNBytes(maxBytes + 1);
+        if (body.length > maxBytes) {
+            return null;
+        }
+        MessageDigest sha256;
+        try {
+            sha256 = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+        if (!MessageDigest.isEqual(sha256.digest(body), expectedDigest)) {
+            return null;
+        }
+        return new BodyDigestRequestWrapper(request, body);
+    }
+
+    /**
+     * Decode a lowercase or uppercase hex SHA-256, or return null if it is not one.
+     */
+    public static byte[] parseDigest(String hex) {
+        if (hex == null || hex.length() != 64) {
+            return null;
+        }
+        byte[] digest = new byte[32];
+        for (int i = 0; i < digest.length; i++) {
+            int high = Character.digit(hex.charAt(i * 2), 16);
+            int low = Character.digit(hex.charAt(i * 2 + 1), 16);
+            if (high < 0 || low < 0) {
+                return null;
+            }
+            digest[i] = (byte) ((high << 4) | low);
+        }
+        return digest;
+    }
+
+    @Override
+    public ServletInputStream getInputStream() {
+        return new BodyInputStream(body);
+    }
+
+    @Override
+    public BufferedReader getReader() {
+        String encoding = getCharacterEncoding();
+        Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.ISO_8859_1;
+        return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+    }
+
+    @Override
+    public int getContentLength() {
+        return body.length;
+    }
+
+    @Override
+    public long getContentLengthLong() {
+        return body.length;
+    }
+
+    private static class BodyInputStream extends ServletInputStream {
+
+        private final ByteArrayInputStream delegate;
+
+        BodyInputStream(byte[] body) {
+            this.delegate = new ByteArrayInputStream(body);
+        }
+
+        @Override
+        public int read() {
+            return delegate.read();
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            return delegate.read(buffer, offset, length);
+        }
+
+        @Override
+        public boolean isFinished() {
+            return delegate.available() == 0;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            throw new UnsupportedOperationException("Non-blocking reads are not supported");
+        }
+    }
+}
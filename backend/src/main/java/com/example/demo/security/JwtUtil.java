@@ -37,6 +37,7 @@ public class JwtUtil {
                 .setSubject(user.getUsername())
                 .setId(jti)  // Add unique token ID
                 .claim("roles", user.getAuthorities())
+                .claim("uid", user.getId())  // Lets the gateway key rate limits by user id
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + expiration))
                 .signWith(getSigningKey(), SignatureAlgorithm.HS256)
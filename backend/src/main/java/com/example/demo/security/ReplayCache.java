@@ -0,0 +1,68 @@
+package com.example.demo.security;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Remembers gateway request nonces so a signed request is accepted only once.
+ * <p>
+ * A request is only valid while its timestamp is within the allowed skew, so a nonce has to
+ * be remembered for at most twice that. Nonces go into the current of two generations, and
+ * the older generation is dropped wholesale when a new one starts: lookups and expiry are
+ * O(1), with no per-entry timestamps. Each generation holds at most
+ * {@code gateway.replay.maxEntries}; when it is full new nonces are refused rather than
+ * evicting ones that could still be replayed.
+ */
+@Component
+public class ReplayCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplayCache.class);
+
+    private final long generationMs;
+    private final int maxEntries;
+    private volatile Set<String> current = ConcurrentHashMap.newKeySet();
+    private volatile Set<String> previous = ConcurrentHashMap.newKeySet();
+    private volatile long generationStartMs = System.currentTimeMillis();
+
+    public ReplayCache(@Value("${gateway.allowed.skew.ms:15000}") long allowedSkewMs,
+            @Value("${gateway.replay.maxEntries:500000}") int maxEntries) {
+        this.generationMs = 2 * allowedSkewMs;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Record a nonce; returns false if it was seen before or the cache is full.
+     */
+    public boolean markSeen(String nonce) {
+        rotateIfDue(System.currentTimeMillis());
+        // Read current before previous: a rotation in between leaves the nonce in one of them
+        Set<String> generation = current;
+        if (previous.contains(nonce)) {
+            return false;
+        }
+        if (generation.size() >= maxEntries) {
+            log.warn("Gateway replay cache full ({} nonces), rejecting request", maxEntries);
+            return false;
+        }
+        return generation.add(nonce);
+    }
+
+    private void rotateIfDue(long now) {
+        if (now - generationStartMs < generationMs) {
+            return;
+        }
+        synchronized (this) {
+            if (now - generationStartMs < generationMs) {
+                return;
+            }
+            previous = current;
+            current = ConcurrentHashMap.newKeySet();
+            generationStartMs = now;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.demo.services;
+
+import com.example.demo.repositories.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Lifts temporary bans when they end.
+ * <p>
+ * A timer is kept for the earliest upcoming ban end, read from the partial index on
+ * {@code users.ban_end}. When it fires, every ended ban is lifted with one UPDATE and the
+ * timer moves to the next end. Bans set through {@link #banChanged} pull the timer forward,
+ * so users are unbanned on time. The sweep, a {@link ClusterJob} run by one instance per
+ * interval, covers bans set by other instances.
+ * <p>
+ * The UPDATE runs under a transaction-scoped Postgres advisory lock, so with several backend
+ * instances only one lifts bans at a time; the others retry shortly after.
+ */
+@Service
+public class BanExpiryService implements ClusterJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(BanExpiryService.class);
+    // Identifies this job among the application's advisory locks
+    private static final long UNBAN_LOCK_KEY = 0x01B1_0001L;
+    private static final Duration LOCK_RETRY_DELAY = Duration.ofSeconds(1);
+
+    @Value("${user.banExpiry.sweepMs:60000}")
+    private long sweepMs;
+
+    private final UserRepository userRepository;
+    private final TaskScheduler taskScheduler;
+    private final TransactionTemplate transactionTemplate;
+
+    // Pending wake-up, guarded by this
+    private ScheduledFuture<?> wakeUp;
+    private LocalDateTime wakeUpAt;
+
+    public BanExpiryService(UserRepository userRepository, TaskScheduler taskScheduler,
+            PlatformTransactionManager transactionManager) {
+        this.userRepository = userRepository;
+        this.taskScheduler = taskScheduler;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public String name() {
+        return "ban-expiry-sweep";
+    }
+
+    @Override
+    public Duration interval() {
+        return Duration.ofMillis(sweepMs);
+    }
+
+    @Override
+    public void run() {
+        unbanExpired();
+        scheduleNext();
+    }
+
+    /**
+     * A ban was set; make sure we wake up when it ends.
+     */
+    public void banChanged(LocalDateTime banEnd) {
+        if (banEnd != null) {
+            schedule(banEnd);
+        }
+    }
+
+    /**
+     * Lift every ban that has ended and return the users unbanned. Returns an empty list
+     * when another instance is doing it right now, and tries again shortly.
+     */
+    public List<Long> unbanExpired() {
+        List<Long> unbanned = transactionTemplate.execute(status -> {
+            if (!userRepository.tryAdvisoryXactLock(UNBAN_LOCK_KEY)) {
+                return null;
+            }
+            return userRepository.unbanExpired(LocalDateTime.now());
+        });
+        if (unbanned == null) {
+            schedule(LocalDateTime.now().plus(LOCK_RETRY_DELAY));
+            return List.of();
+        }
+        if (!unbanned.isEmpty()) {
+            logger.info("Unbanned {} users whose ban ended: {}", unbanned.size(), unbanned);
+        }
+        return unbanned;
+    }
+
+    private void wake() {
+        synchronized (this) {
+            wakeUp = null;
+            wakeUpAt = null;
+        }
+        try {
+            unbanExpired();
+            scheduleNext();
+        } catch (Exception e) {
+            // The next sweep tries again
+            logger.warn("Failed to lift ended bans: {}", e.getMessage());
+        }
+    }
+
+    private void scheduleNext() {
+        LocalDateTime next = userRepository.findNextBanEnd();
+        if (next != null) {
+            // Already ended means another instance holds the lock; don't spin while it works
+            LocalDateTime earliest = LocalDateTime.now().plus(LOCK_RETRY_DELAY);
+            schedule(next.isAfter(earliest) ? next : earliest);
+        }
+    }
+
+    private synchronized void schedule(LocalDateTime at) {
+        if (wakeUp != null && !at.isBefore(wakeUpAt)) {
+            return;
+        }
+        if (wakeUp != null) {
+            wakeUp.cancel(false);
+        }
+        wakeUpAt = at;
+        wakeUp = taskScheduler.schedule(this::wake, at.atZone(ZoneId.systemDefault()).toInstant());
+    }
+}
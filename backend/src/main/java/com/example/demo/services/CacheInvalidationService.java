@@ -0,0 +1,71 @@
+package com.example.demo.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Tells the gateway response cache which API paths changed.
+ * Each message is a path; the gateway drops its cached responses for that path and below.
+ * A user id after the path limits that to the responses cached for that user.
+ */
+@Service
+public class CacheInvalidationService {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheInvalidationService.class);
+
+    private static final String POSTS_PATH = "/api/posts";
+    private static final String COMMENTS_PATH = "/api/comments";
+    private static final String POST_COMMENTS_PATH = "/api/comments/post/";
+
+    private final RedisTemplate<String, String> redisTemplate;
+
+    @Value("${cache.invalidationChannel:gateway:cache:invalidate}")
+    private String channel;
+
+    public CacheInvalidationService(RedisTemplate<String, String> redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    /**
+     * Posts, their likes, tags or their authors changed.
+     */
+    public void postsChanged() {
+        publish(POSTS_PATH);
+    }
+
+    /**
+     * Only one user's view of the posts changed, e.g. their liked or subscribed flags.
+     * Counts other users see may lag until their cached responses expire.
+     */
+    public void postsChangedFor(Long userId) {
+        publish(POSTS_PATH + " " + userId);
+    }
+
+    /**
+     * Comments of a post changed; the post list carries comment counts, so it goes too.
+     */
+    public void commentsChanged(Long postId) {
+        publish(POST_COMMENTS_PATH + postId);
+        publish(POSTS_PATH);
+    }
+
+    /**
+     * A user's posts, comments and likes may have changed across many posts, e.g. after account deletion.
+     */
+    public void userContentChanged() {
+        publish(COMMENTS_PATH);
+        publish(POSTS_PATH);
+    }
+
+    private void publish(String path) {
+        try {
+            redisTemplate.convertAndSend(channel, path);
+        } catch (Exception e) {
+            // The gateway cache TTL bounds staleness when a message is lost
+            log.warn("Failed to publish cache invalidation for {}: {}", path, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.demo.services;
+
+import java.time.Duration;
+
+/**
+ * A background job that runs once per interval across all backend instances. Beans
+ * implementing this are picked up and run by {@link JobScheduler}.
+ * <p>
+ * For work that is already split between instances by row locks (the media and user deletion
+ * workers), plain {@code @Scheduled} on every instance is the better fit.
+ */
+public interface ClusterJob {
+
+    /**
+     * Unique job name, used for the cluster lock, run history and metrics.
+     */
+    String name();
+
+    /**
+     * Time between the end of one run and the start of the next, on any instance.
+     */
+    Duration interval();
+
+    /**
+     * How long a run may take before another instance may assume it died and take over.
+     */
+    default Duration lease() {
+        return Duration.ofMinutes(10);
+    }
+
+    void run() throws Exception;
+}
@@ -1,38 +1,87 @@
 package com.example.demo.services;
 
+import com.example.demo.models.MediaObject;
+import com.example.demo.repositories.MediaDeletionRepository;
+import com.example.demo.repositories.MediaObjectRepository;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.*;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestClientException;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.web.multipart.MultipartFile;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
+import java.io.FilterInputStream;
 import java.io.IOException;
-import java.net.URLEncoder;
-import java.nio.charset.StandardCharsets;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
 import java.util.List;
-import java.util.UUID;
-
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Validates uploads, names them and hands them to the configured {@link StorageBackend}.
+ * <p>
+ * Storage is content-addressed: a file is stored under the SHA-256 of its bytes, plus a random
+ * suffix so a path is never reused, and recorded in {@code media_objects} with a reference
+ * count. Uploading content that is already stored takes another reference and returns the
+ * existing URL without sending the file again. Each post or avatar holds its own reference,
+ * taken with {@link #attach} when it starts using a URL (the first one takes over the upload's),
+ * so {@link #releaseFileByUrl} only ever drops a reference its caller holds and queues the file
+ * for deletion once nothing uses it; {@link MediaDeletionService} removes queued files from
+ * storage in the background.
+ * <p>
+ * The path is only known once the whole upload has been hashed, so uploads whose bytes can
+ * only be read once (streamed and base64 bodies) are spooled to a local temp file first and
+ * sent to storage from there. That costs one disk write per upload and up to 10 MB of temp
+ * space each, in exchange for never sending bytes that turn out to be stored already and
+ * never leaving orphaned temporary objects in storage. Streaming to a temporary object and
+ * moving it into place once hashed would save the disk write, but every duplicate would then
+ * be uploaded in full and deleted again. Multipart files are already on disk and are not
+ * spooled again.
+ * <p>
+ * The pass that hashes an upload also captures its first bytes, from which {@link MediaSniffer}
+ * detects the real format and image size. Only images and videos it recognises are accepted.
+ * The detected type is recorded with the object, is what storage serves the file as, and
+ * gives the stored file its extension; the client's file name and type are never used for
+ * either, so an upload can't get itself served as HTML or script.
+ */
 @Service
 public class FileStorageService {
 
     private static final Logger logger = LoggerFactory.getLogger(FileStorageService.class);
 
-    @Value("${supabase.url}")
-    private String supabaseUrl;
+    public static final long MAX_FILE_SIZE = 10 * 1024 * 1024; // 10MB
+
+    private static final String UNSUPPORTED_TYPE = "Only images and videos can be uploaded";
 
-    @Value("${supabase.service-role-key}")
-    private String serviceRoleKey;
+    // Direct uploads land here until they have been checked
+    private static final String STAGING_FOLDER = "staging";
+    private static final SecureRandom SECURE_RANDOM = new SecureRandom();
 
-    @Value("${supabase.storage.bucket}")
-    private String bucketName;
+    private final StorageBackend storage;
+    private final MediaObjectRepository mediaObjectRepository;
+    private final MediaDeletionRepository mediaDeletionRepository;
 
-    private final RestTemplate restTemplate;
+    // How long a signed direct-upload URL stays valid, where the store lets us choose
+    @Value("${file.upload.directTtlSeconds:600}")
+    private long directUploadTtlSeconds;
 
-    public FileStorageService(RestTemplate restTemplate) {
-        this.restTemplate = restTemplate;
+    public FileStorageService(StorageBackend storage, MediaObjectRepository mediaObjectRepository,
+            MediaDeletionRepository mediaDeletionRepository) {
+        this.storage = storage;
+        this.mediaObjectRepository = mediaObjectRepository;
+        this.mediaDeletionRepository = mediaDeletionRepository;
     }
 
     /**
@@ -44,99 +93,158 @@ public class FileStorageService {
      */
     public String uploadFile(MultipartFile file, String folder) throws IOException {
         validateFile(file);
+        logger.debug("File name: {}, Size: {} bytes, Content-Type: {}",
+                file.getOriginalFilename(), file.getSize(), file.getContentType());
 
-        String filePath = generateFilePath(file, folder);
-        uploadToSupabase(file, filePath);
-
-        return getPublicUrl(filePath);
+        // Multipart files are spooled to disk by the container: hash them there, then stream from there
+        MediaSniffer.Capture capture = new MediaSniffer.Capture(file.getInputStream());
+        String sha256 = sha256Hex(capture);
+        return storeDeduplicated(sha256, file.getSize(), capture.sniffed(), folder, file::getInputStream);
     }
 
     /**
-     * Upload raw bytes with a provided filename and content type.
-     * Useful for base64 uploads.
+     * Upload raw bytes. Like every upload here, it is stored as the type detected from the
+     * bytes, whatever contentType and originalFilename say.
      */
     public String uploadBytes(byte[] bytes, String contentType, String originalFilename, String folder)
             throws IOException {
         if (bytes == null || bytes.length == 0) {
             throw new IllegalArgumentException("File bytes cannot be empty");
         }
-
-        String extension = "";
-        if (originalFilename != null && originalFilename.contains(".")) {
-            extension = originalFilename.substring(originalFilename.lastIndexOf("."));
+        if (bytes.length > MAX_FILE_SIZE) {
+            throw new IllegalArgumentException("File size exceeds maximum allowed size of 10MB");
         }
-        String uniqueFilename = UUID.randomUUID().toString() + extension;
-        String filePath = (folder != null && !folder.isEmpty()) ? folder + "/" + uniqueFilename : uniqueFilename;
-
-        // Encode file path components for URL
-        String encodedFilePath = encodeFilePath(filePath);
-        String uploadUrl = String.format("%s/storage/v1/object/%s/%s",
-                supabaseUrl, bucketName, encodedFilePath);
+        String sha256 = HexFormat.of().formatHex(newSha256().digest(bytes));
+        return storeDeduplicated(sha256, bytes.length, MediaSniffer.sniff(bytes, bytes.length), folder,
+                () -> new ByteArrayInputStream(bytes));
+    }
 
-        logger.debug("Uploading file to Supabase: {}", uploadUrl);
-        logger.debug("File size: {} bytes, Content-Type: {}", bytes.length, contentType);
+    /**
+     * Upload a stream of unknown or known length (-1 if unknown) without holding it in memory.
+     * The stream is read to the end but not closed.
+     * <p>
+     * The storage path is the content hash, which is only known at the end, so the stream is
+     * spooled to a temp file (and hashed) on the way; see the class comment for why.
+     */
+    public String uploadStream(InputStream body, long contentLength, String contentType, String originalFilename,
+            String folder) throws IOException {
+        if (contentLength > MAX_FILE_SIZE) {
+            throw new IllegalArgumentException("File size exceeds maximum allowed size of 10MB");
+        }
+        Path spooled = Files.createTempFile("upload-", ".part");
+        try {
+            MessageDigest sha256 = newSha256();
+            MediaSniffer.Capture capture = new MediaSniffer.Capture(new SizeLimitedInputStream(body, MAX_FILE_SIZE));
+            try (OutputStream out = Files.newOutputStream(spooled)) {
+                new DigestInputStream(capture, sha256).transferTo(out);
+            }
+            long size = Files.size(spooled);
+            if (size == 0) {
+                throw new IllegalArgumentException("File bytes cannot be empty");
+            }
+            return storeDeduplicated(HexFormat.of().formatHex(sha256.digest()), size, capture.sniffed(), folder,
+                    () -> Files.newInputStream(spooled));
+        } finally {
+            Files.deleteIfExists(spooled);
+        }
+    }
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.set("Authorization", "Bearer " + serviceRoleKey);
-        if (contentType != null && !contentType.isEmpty()) {
-            headers.setContentType(MediaType.parseMediaType(contentType));
-        } else {
-            headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+    /**
+     * Upload a file that is already on local disk, e.g. a spooled request body.
+     */
+    public String uploadSpooled(Path file, String contentType, String originalFilename, String folder)
+            throws IOException {
+        long size = Files.size(file);
+        if (size == 0) {
+            throw new IllegalArgumentException("File bytes cannot be empty");
+        }
+        if (size > MAX_FILE_SIZE) {
+            throw new IllegalArgumentException("File size exceeds maximum allowed size of 10MB");
         }
+        MediaSniffer.Capture capture = new MediaSniffer.Capture(Files.newInputStream(file));
+        String sha256 = sha256Hex(capture);
+        return storeDeduplicated(sha256, size, capture.sniffed(), folder, () -> Files.newInputStream(file));
+    }
 
-        HttpEntity<byte[]> requestEntity = new HttpEntity<>(bytes, headers);
+    /**
+     * The stored object behind a URL, with its detected type, size and dimensions;
+     * empty for external URLs and files stored before content addressing.
+     */
+    public Optional<MediaObject> findStoredMedia(String publicUrl) {
+        if (publicUrl == null || publicUrl.isEmpty()) {
+            return Optional.empty();
+        }
+        return mediaObjectRepository.findByUrl(publicUrl);
+    }
 
-        try {
-            ResponseEntity<String> response = restTemplate.exchange(
-                    uploadUrl,
-                    HttpMethod.POST,
-                    requestEntity,
-                    String.class);
-
-            if (!response.getStatusCode().is2xxSuccessful()) {
-                String errorMsg = String.format("Failed to upload file to Supabase. Status: %s, Body: %s",
-                        response.getStatusCode(), response.getBody());
-                logger.error(errorMsg);
-                throw new RuntimeException(errorMsg);
-            }
+    /**
+     * Read a file stored by this service; throws IllegalArgumentException for any other URL.
+     */
+    public <T> T readStoredFile(String publicUrl, StorageBackend.ContentReader<T> reader) throws IOException {
+        String filePath = publicUrl != null ? storage.pathOf(publicUrl) : null;
+        if (filePath == null) {
+            throw new IllegalArgumentException("Not a stored file: " + publicUrl);
+        }
+        return storage.read(filePath, reader);
+    }
 
-            logger.debug("File uploaded successfully: {}", filePath);
-            return getPublicUrl(filePath);
-        } catch (RestClientException e) {
-            String errorMsg = String.format("I/O error uploading file to Supabase. URL: %s, Error: %s",
-                    uploadUrl, e.getMessage());
-            logger.error(errorMsg, e);
-            throw new IOException(errorMsg, e);
+    /**
+     * Something started using this URL: take over an upload's unclaimed reference to the stored
+     * file, or take a new one when every upload has been claimed. Whoever calls this releases the
+     * reference with {@link #releaseFileByUrl} when they stop using the URL. Returns false for
+     * external URLs and files stored before content addressing, which hold no references.
+     */
+    public boolean attach(String publicUrl) {
+        if (publicUrl == null || publicUrl.isEmpty()) {
+            return false;
         }
+        return mediaObjectRepository.claimUpload(publicUrl) == 1
+                || mediaObjectRepository.acquireByUrl(publicUrl) == 1;
     }
 
     /**
-     * Delete file from Supabase using URL
+     * Drop one reference to a stored file, queueing it for deletion when it was the last one.
+     * Files stored before content addressing have no reference count and are queued directly.
+     * Only touches the database; storage is never called from here.
      * 
      * @param publicUrl The public URL stored in database
      */
-    public void deleteFileByUrl(String publicUrl) {
+    public void releaseFileByUrl(String publicUrl) {
         if (publicUrl == null || publicUrl.isEmpty()) {
             return;
         }
 
-        String filePath = extractFilePath(publicUrl);
-        deleteFile(filePath);
+        Optional<MediaObject> object = mediaObjectRepository.findByUrl(publicUrl);
+        if (object.isPresent()) {
+            String sha256 = object.get().getSha256();
+            if (mediaObjectRepository.release(sha256) == 1) {
+                mediaObjectRepository.deleteIfUnreferenced(sha256);
+            }
+            return;
+        }
+
+        String filePath = storage.pathOf(publicUrl);
+        if (filePath == null) {
+            // External URL (e.g. an avatar link), nothing stored for it
+            logger.debug("Not deleting {}: not a stored file", publicUrl);
+            return;
+        }
+        mediaDeletionRepository.enqueue(filePath);
     }
 
     /**
-     * Delete multiple files
+     * Release multiple files
      * 
-     * @param publicUrls List of URLs to delete
+     * @param publicUrls List of URLs to release
      */
-    public void deleteMultipleFiles(List<String> publicUrls) {
+    public void releaseMultipleFiles(List<String> publicUrls) {
         if (publicUrls == null || publicUrls.isEmpty()) {
             return;
         }
 
         for (String url : publicUrls) {
             try {
-                deleteFileByUrl(url);
+                releaseFileByUrl(url);
             } catch (Exception e) {
                 // Log error but continue deleting other files
                 System.err.println("Failed to delete file: " + url + " - " + e.getMessage());
@@ -144,6 +252,165 @@ public class FileStorageService {
         }
     }
 
+    /**
+     * Reuse the stored object for this hash if there is one, otherwise store the content and record it.
+     * Content that is not a recognised image or video is rejected.
+     */
+    private String storeDeduplicated(String sha256, long size, MediaSniffer.Sniffed sniffed, String folder,
+            ContentSource content) throws IOException {
+        if (sniffed == null) {
+            throw new IllegalArgumentException(UNSUPPORTED_TYPE);
+        }
+        Optional<String> existing = acquireExisting(sha256);
+        if (existing.isPresent()) {
+            return existing.get();
+        }
+
+        // Serve what the bytes are, not what the client said they are
+        String filePath = newFilePath(sha256, sniffed, folder);
+        String url;
+        try (InputStream in = content.open()) {
+            url = storage.store(filePath, in, size, sniffed.contentType());
+        }
+        return record(sha256, filePath, url, sniffed.contentType(), sniffed, size);
+    }
+
+    /**
+     * Start a direct upload. The client PUTs the file to the returned signed URL, straight to
+     * storage, then calls {@link #completeDirectUpload} with the same details and the upload id.
+     * If the content is already stored, a reference is taken and its URL returned instead:
+     * nothing to upload.
+     * <p>
+     * The URL is for a staging path of this upload alone, never for where the file ends up, so
+     * it can't be used to replace stored content. Whatever is left at the staging path once the
+     * URL has expired (an abandoned upload, or a second PUT after completion) is deleted then.
+     */
+    public DirectUpload createDirectUpload(String sha256, long size, String contentType, String originalFilename,
+            String folder) throws IOException {
+        String hash = validateDirectUpload(sha256, size, contentType);
+        Optional<String> existing = acquireExisting(hash);
+        if (existing.isPresent()) {
+            return new DirectUpload(existing.get(), null, null);
+        }
+        String uploadId = randomHex(16);
+        String stagingPath = stagingPath(uploadId);
+        StorageBackend.SignedUpload upload = storage.signUpload(stagingPath, contentType, size,
+                Duration.ofSeconds(directUploadTtlSeconds));
+        // Leave the client the usual TTL after expiry to call complete
+        long sweepAfterSeconds = Math.max(0, Duration.between(Instant.now(), upload.expiresAt()).getSeconds())
+                + directUploadTtlSeconds;
+        mediaDeletionRepository.enqueueAfter(stagingPath, sweepAfterSeconds);
+        return new DirectUpload(null, upload, uploadId);
+    }
+
+    /**
+     * Register a directly uploaded file and return its URL. Storage took whatever the client
+     * sent, so the staged bytes are read back and checked against the announced size and hash
+     * before they are moved to a path of their own and anyone else can be handed them.
+     */
+    public String completeDirectUpload(String sha256, long size, String contentType, String uploadId,
+            String originalFilename, String folder) throws IOException {
+        String hash = validateDirectUpload(sha256, size, contentType);
+        if (uploadId == null || !uploadId.matches("[0-9a-f]{32}")) {
+            throw new IllegalArgumentException("uploadId must be the id returned when the upload was started");
+        }
+        String stagingPath = stagingPath(uploadId);
+
+        Optional<String> existing = acquireExisting(hash);
+        if (existing.isPresent()) {
+            // Someone completed the same content first; this copy is not needed
+            mediaDeletionRepository.enqueue(stagingPath);
+            return existing.get();
+        }
+
+        MessageDigest digest = newSha256();
+        ReadBack stored;
+        try {
+            stored = storage.read(stagingPath, content -> {
+                MediaSniffer.Capture in = new MediaSniffer.Capture(content);
+                byte[] buffer = new byte[8192];
+                long total = 0;
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    total += read;
+                    if (total > size) {
+                        return new ReadBack(-1, null);
+                    }
+                    digest.update(buffer, 0, read);
+                }
+                return new ReadBack(total, in.sniffed());
+            });
+        } catch (FileNotFoundException | NoSuchFileException e) {
+            throw new IllegalArgumentException("Upload not found; PUT the file to the upload URL first");
+        }
+        if (stored.size() != size || !HexFormat.of().formatHex(digest.digest()).equals(hash)) {
+            mediaDeletionRepository.enqueue(stagingPath);
+            throw new IllegalArgumentException("Uploaded file does not match its size or SHA-256");
+        }
+        // Storage keeps serving the type the client uploaded with, so it has to be what the bytes are
+        MediaSniffer.Sniffed sniffed = stored.sniffed();
+        if (sniffed == null || !sniffed.contentType().equals(baseType(contentType))) {
+            mediaDeletionRepository.enqueue(stagingPath);
+            throw new IllegalArgumentException(sniffed == null ? UNSUPPORTED_TYPE
+                    : "Uploaded file is " + sniffed.contentType() + ", not " + contentType);
+        }
+
+        String filePath = newFilePath(hash, sniffed, folder);
+        storage.move(stagingPath, filePath);
+        return record(hash, filePath, storage.publicUrl(filePath), sniffed.contentType(), sniffed, size);
+    }
+
+    private Optional<String> acquireExisting(String sha256) {
+        if (mediaObjectRepository.acquireUpload(sha256) == 0) {
+            return Optional.empty();
+        }
+        Optional<String> existing = mediaObjectRepository.findById(sha256).map(MediaObject::getUrl);
+        existing.ifPresent(url -> logger.debug("Content {} already stored, reusing {}", sha256, url));
+        return existing;
+    }
+
+    /**
+     * Record a stored file and return the URL to use for it.
+     */
+    private String record(String sha256, String filePath, String url, String contentType,
+            MediaSniffer.Sniffed sniffed, long size) {
+        mediaObjectRepository.insertOrAcquire(sha256, filePath, url, contentType,
+                sniffed != null ? sniffed.kind().name() : null,
+                sniffed != null ? sniffed.width() : null,
+                sniffed != null ? sniffed.height() : null,
+                size);
+
+        // A concurrent upload of the same content under another name may have been recorded first
+        String recorded = mediaObjectRepository.findById(sha256).map(MediaObject::getUrl).orElse(url);
+        if (!recorded.equals(url)) {
+            mediaDeletionRepository.enqueue(filePath);
+        }
+        return recorded;
+    }
+
+    /**
+     * Returns the hash in lower case.
+     */
+    private String validateDirectUpload(String sha256, long size, String contentType) {
+        if (sha256 == null || !sha256.matches("[0-9A-Fa-f]{64}")) {
+            throw new IllegalArgumentException("sha256 must be a hex SHA-256 digest");
+        }
+        if (size <= 0) {
+            throw new IllegalArgumentException("File cannot be empty");
+        }
+        if (size > MAX_FILE_SIZE) {
+            throw new IllegalArgumentException("File size exceeds maximum allowed size of 10MB");
+        }
+        if (contentType == null || contentType.isBlank()) {
+            throw new IllegalArgumentException("File type cannot be determined");
+        }
+        String type = baseType(contentType);
+        if (!type.startsWith("image/") && !type.startsWith("video/")) {
+            throw new IllegalArgumentException(UNSUPPORTED_TYPE);
+        }
+        return sha256.toLowerCase(Locale.ROOT);
+    }
+
     // ========== Private Helper Methods ==========
 
     private void validateFile(MultipartFile file) {
@@ -152,8 +419,7 @@ public class FileStorageService {
         }
 
         // Optional: Add size validation
-        long maxSize = 10 * 1024 * 1024; // 10MB
-        if (file.getSize() > maxSize) {
+        if (file.getSize() > MAX_FILE_SIZE) {
             throw new IllegalArgumentException("File size exceeds maximum allowed size of 10MB");
         }
 
@@ -164,116 +430,111 @@ public class FileStorageService {
         }
     }
 
-    private String generateFilePath(MultipartFile file, String folder) {
-        String originalFilename = file.getOriginalFilename();
-        String extension = "";
-
-        if (originalFilename != null && originalFilename.contains(".")) {
-            extension = originalFilename.substring(originalFilename.lastIndexOf("."));
-        }
-
-        String uniqueFilename = UUID.randomUUID().toString() + extension;
-
-        return (folder != null && !folder.isEmpty())
-                ? folder + "/" + uniqueFilename
-                : uniqueFilename;
+    /**
+     * A path no other stored copy has used. The content hash alone would be reused when content
+     * is uploaded again after its last reference was dropped, and the deletion worker could
+     * then remove the new copy between it being stored and recorded.
+     */
+    private String newFilePath(String sha256, MediaSniffer.Sniffed sniffed, String folder) {
+        String filename = sha256 + "-" + randomHex(8) + sniffed.extension();
+        return (folder != null && !folder.isEmpty()) ? folder + "/" + filename : filename;
     }
 
-    private void uploadToSupabase(MultipartFile file, String filePath) throws IOException {
-        // Encode file path components for URL
-        String encodedFilePath = encodeFilePath(filePath);
-        String uploadUrl = String.format("%s/storage/v1/object/%s/%s",
-                supabaseUrl, bucketName, encodedFilePath);
+    /**
+     * "image/png; charset=binary" -> "image/png"
+     */
+    private static String baseType(String contentType) {
+        int parameters = contentType.indexOf(';');
+        return (parameters >= 0 ? contentType.substring(0, parameters) : contentType).trim()
+                .toLowerCase(Locale.ROOT);
+    }
 
-        logger.debug("Uploading file to Supabase: {}", uploadUrl);
-        logger.debug("File name: {}, Size: {} bytes, Content-Type: {}", 
-                file.getOriginalFilename(), file.getSize(), file.getContentType());
+    /**
+     * Where a direct upload is PUT before it has been checked.
+     */
+    private static String stagingPath(String uploadId) {
+        return STAGING_FOLDER + "/" + uploadId;
+    }
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.set("Authorization", "Bearer " + serviceRoleKey);
-        headers.setContentType(MediaType.parseMediaType(file.getContentType()));
+    // Upload ids must not be guessable: the id is all it takes to complete someone else's upload
+    private static String randomHex(int bytes) {
+        byte[] random = new byte[bytes];
+        SECURE_RANDOM.nextBytes(random);
+        return HexFormat.of().formatHex(random);
+    }
 
-        HttpEntity<byte[]> requestEntity = new HttpEntity<>(file.getBytes(), headers);
+    private static String sha256Hex(InputStream in) throws IOException {
+        MessageDigest sha256 = newSha256();
+        try (DigestInputStream digesting = new DigestInputStream(in, sha256)) {
+            digesting.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(sha256.digest());
+    }
 
+    private static MessageDigest newSha256() {
         try {
-            ResponseEntity<String> response = restTemplate.exchange(
-                    uploadUrl,
-                    HttpMethod.POST,
-                    requestEntity,
-                    String.class);
-
-            if (!response.getStatusCode().is2xxSuccessful()) {
-                String errorMsg = String.format("Failed to upload file to Supabase. Status: %s, Body: %s",
-                        response.getStatusCode(), response.getBody());
-                logger.error(errorMsg);
-                throw new RuntimeException(errorMsg);
-            }
-
-            logger.debug("File uploaded successfully: {}", filePath);
-        } catch (RestClientException e) {
-            String errorMsg = String.format("I/O error uploading file to Supabase. URL: %s, Error: %s",
-                    uploadUrl, e.getMessage());
-            logger.error(errorMsg, e);
-            throw new IOException(errorMsg, e);
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
         }
     }
 
-    private String getPublicUrl(String filePath) {
-        return String.format("%s/storage/v1/object/public/%s/%s",
-                supabaseUrl, bucketName, filePath);
+    /**
+     * Result of {@link #createDirectUpload}: either the URL of already stored content, or where to upload.
+     */
+    public record DirectUpload(String existingUrl, StorageBackend.SignedUpload upload, String uploadId) {
     }
 
-    private String extractFilePath(String publicUrl) {
-        String prefix = String.format("%s/storage/v1/object/public/%s/",
-                supabaseUrl, bucketName);
-        return publicUrl.replace(prefix, "");
+    /**
+     * A directly uploaded file as read back from storage; size is -1 if it was larger than announced.
+     */
+    private record ReadBack(long size, MediaSniffer.Sniffed sniffed) {
     }
 
-    private void deleteFile(String filePath) {
-        String encodedFilePath = encodeFilePath(filePath);
-        String deleteUrl = String.format("%s/storage/v1/object/%s/%s",
-                supabaseUrl, bucketName, encodedFilePath);
+    /**
+     * Opens the content to store; called at most once, after hashing.
+     */
+    @FunctionalInterface
+    private interface ContentSource {
+        InputStream open() throws IOException;
+    }
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.set("Authorization", "Bearer " + serviceRoleKey);
+    /**
+     * Fails the upload once more than the allowed size has been read, for bodies of unknown length.
+     */
+    private static class SizeLimitedInputStream extends FilterInputStream {
 
-        HttpEntity<Void> requestEntity = new HttpEntity<>(headers);
+        private final long maxBytes;
+        private long count;
 
-        try {
-            restTemplate.exchange(
-                    deleteUrl,
-                    HttpMethod.DELETE,
-                    requestEntity,
-                    String.class);
-        } catch (RestClientException e) {
-            logger.error("Failed to delete file from Supabase: {}", deleteUrl, e);
-            // Don't throw - deletion failures are often non-critical
+        SizeLimitedInputStream(InputStream in, long maxBytes) {
+            super(in);
+            this.maxBytes = maxBytes;
         }
-    }
 
-    /**
-     * Encode file path components for URL.
-     * Encodes each path segment separately to preserve slashes.
-     */
-    private String encodeFilePath(String filePath) {
-        if (filePath == null || filePath.isEmpty()) {
-            return filePath;
-        }
-        
-        // Split by '/' and encode each segment separately
-        String[] segments = filePath.split("/");
-        StringBuilder encoded = new StringBuilder();
-        
-        for (int i = 0; i < segments.length; i++) {
-            if (i > 0) {
-                encoded.append("/");
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                count(1);
             }
-            // Only encode if segment is not empty
-            if (!segments[i].isEmpty()) {
-                encoded.append(URLEncoder.encode(segments[i], StandardCharsets.UTF_8));
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                count(n);
+            }
+            return n;
+        }
+
+        private void count(int n) {
+            count += n;
+            if (count > maxBytes) {
+                throw new IllegalArgumentException("File size exceeds maximum allowed size of 10MB");
             }
         }
-        
-        return encoded.toString();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,269 @@
+package com.example.demo.services;
+
+import com.example.demo.models.MediaType;
+import com.example.demo.models.Post;
+import com.example.demo.repositories.PostRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generates resized variants of post images so feeds don't download full-resolution originals.
+ * <p>
+ * After a post with an image is saved, a small worker pool downloads the original, decodes
+ * it with ImageIO and stores a thumbnail and a medium variant (only when the original is
+ * wider) plus a BlurHash placeholder, then records them on the post. Posts are served with
+ * their original image until that completes; when the queue is full the post simply keeps
+ * the original only. The upload and post requests never wait for any of this.
+ */
+@Service
+public class ImageDerivativeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageDerivativeService.class);
+    private static final String VARIANTS_FOLDER = "variants";
+    private static final int BLURHASH_WIDTH = 32;
+
+    @Value("${media.derivatives.enabled:true}")
+    private boolean enabled;
+
+    @Value("${media.derivatives.threads:2}")
+    private int threads;
+
+    @Value("${media.derivatives.queueCapacity:200}")
+    private int queueCapacity;
+
+    @Value("${media.derivatives.thumbnailWidth:320}")
+    private int thumbnailWidth;
+
+    @Value("${media.derivatives.mediumWidth:1024}")
+    private int mediumWidth;
+
+    // Decompression-bomb guard, checked from the image header before decoding
+    @Value("${media.derivatives.maxPixels:40000000}")
+    private long maxPixels;
+
+    @Value("${media.derivatives.jpegQuality:0.8}")
+    private float jpegQuality;
+
+    private final FileStorageService fileStorageService;
+    private final PostRepository postRepository;
+    private final CacheInvalidationService cacheInvalidationService;
+    private ThreadPoolExecutor executor;
+
+    public ImageDerivativeService(FileStorageService fileStorageService, PostRepository postRepository,
+            CacheInvalidationService cacheInvalidationService) {
+        this.fileStorageService = fileStorageService;
+        this.postRepository = postRepository;
+        this.cacheInvalidationService = cacheInvalidationService;
+    }
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                task -> {
+                    Thread thread = new Thread(task, "image-derivatives-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (task, pool) -> logger.warn("Image derivative queue full, post keeps its original image only"));
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Queue variant generation for a saved post's image; returns immediately.
+     */
+    public void schedule(Post post) {
+        if (!enabled || post.getMediaUrl() == null || post.getMediaType() != MediaType.IMAGE) {
+            return;
+        }
+        Long postId = post.getId();
+        String mediaUrl = post.getMediaUrl();
+        executor.execute(() -> process(postId, mediaUrl));
+    }
+
+    private void process(Long postId, String mediaUrl) {
+        Derivatives derivatives;
+        try {
+            derivatives = fileStorageService.readStoredFile(mediaUrl, this::render);
+        } catch (IllegalArgumentException e) {
+            // External image URL; we only process files we store
+            logger.debug("No derivatives for post {}: {}", postId, e.getMessage());
+            return;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to generate derivatives for post {}: {}", postId, e.getMessage());
+            return;
+        }
+        if (derivatives == null) {
+            logger.debug("No derivatives for post {}: not a decodable image", postId);
+            return;
+        }
+
+        List<String> stored = new ArrayList<>();
+        try {
+            String extension = derivatives.contentType().equals("image/png") ? ".png" : ".jpg";
+            String thumbnailUrl = store(derivatives.thumbnail(), derivatives.contentType(), extension, stored);
+            String mediumUrl = store(derivatives.medium(), derivatives.contentType(), extension, stored);
+            String srcset = srcset(mediaUrl, derivatives, thumbnailUrl, mediumUrl);
+
+            int updated = postRepository.updateMediaVariants(postId, mediaUrl, thumbnailUrl, mediumUrl, srcset,
+                    derivatives.width(), derivatives.height(), derivatives.blurhash());
+            if (updated == 0) {
+                // Post deleted or its image replaced while we worked
+                fileStorageService.releaseMultipleFiles(stored);
+            } else {
+                cacheInvalidationService.postsChanged();
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to store derivatives for post {}: {}", postId, e.getMessage());
+            fileStorageService.releaseMultipleFiles(stored);
+        }
+    }
+
+    private String store(byte[] variant, String contentType, String extension, List<String> stored)
+            throws IOException {
+        if (variant == null) {
+            return null;
+        }
+        // Stored content-addressed like any upload, so identical images share their variants too
+        String url = fileStorageService.uploadBytes(variant, contentType, "variant" + extension, VARIANTS_FOLDER);
+        // Held for the post from here; released above if the post doesn't take it
+        fileStorageService.attach(url);
+        stored.add(url);
+        return url;
+    }
+
+    private String srcset(String originalUrl, Derivatives derivatives, String thumbnailUrl, String mediumUrl) {
+        StringBuilder srcset = new StringBuilder();
+        if (thumbnailUrl != null) {
+            srcset.append(thumbnailUrl).append(' ').append(thumbnailWidth).append("w, ");
+        }
+        if (mediumUrl != null) {
+            srcset.append(mediumUrl).append(' ').append(mediumWidth).append("w, ");
+        }
+        return srcset.append(originalUrl).append(' ').append(derivatives.width()).append('w').toString();
+    }
+
+    /**
+     * Decode an image and render its variants, or return null if it is not a readable image.
+     * Reads nothing but the given stream, so it can be run directly on sample files.
+     */
+    public Derivatives render(InputStream content) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(content)) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxPixels) {
+                    logger.warn("Not generating derivatives for a {}x{} image", width, height);
+                    return null;
+                }
+
+                // Large originals are decoded at reduced resolution; no variant needs more than twice mediumWidth
+                ImageReadParam param = reader.getDefaultReadParam();
+                int subsampling = Math.max(1, width / (mediumWidth * 2));
+                if (subsampling > 1) {
+                    param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                }
+                BufferedImage image = reader.read(0, param);
+
+                boolean alpha = image.getColorModel().hasAlpha();
+                byte[] thumbnail = width > thumbnailWidth ? encode(scale(image, thumbnailWidth, alpha), alpha) : null;
+                byte[] medium = width > mediumWidth ? encode(scale(image, mediumWidth, alpha), alpha) : null;
+                String blurhash = BlurHash.encode(scale(image, BLURHASH_WIDTH, false), 4, 3);
+                return new Derivatives(width, height, thumbnail, medium, alpha ? "image/png" : "image/jpeg", blurhash);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Scale to a width in halving steps, which keeps bilinear filtering from dropping pixels on large reductions.
+     */
+    private static BufferedImage scale(BufferedImage image, int targetWidth, boolean alpha) {
+        int targetHeight = Math.max(1, (int) Math.round((double) image.getHeight() * targetWidth / image.getWidth()));
+        int type = alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage current = image;
+        int width = image.getWidth();
+        int height = image.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            BufferedImage next = new BufferedImage(width, height, type);
+            Graphics2D graphics = next.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = next;
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    private byte[] encode(BufferedImage image, boolean alpha) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (alpha) {
+            ImageIO.write(image, "png", out);
+            return out.toByteArray();
+        }
+
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(out)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            // Progressive JPEGs show a full preview after the first few KB
+            param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Rendered variants; thumbnail and medium are null when the original is not wider than them.
+     */
+    public record Derivatives(int width, int height, byte[] thumbnail, byte[] medium, String contentType,
+            String blurhash) {
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.demo.services;
+
+import com.example.demo.repositories.JobRunRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Deletes job run history older than {@code jobs.history.retentionDays}, in chunks.
+ */
+@Component
+public class JobRunRetentionJob implements ClusterJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(JobRunRetentionJob.class);
+    private static final int CHUNK_SIZE = 1000;
+
+    @Value("${jobs.history.retentionDays:14}")
+    private int retentionDays;
+
+    private final JobRunRepository jobRunRepository;
+
+    public JobRunRetentionJob(JobRunRepository jobRunRepository) {
+        this.jobRunRepository = jobRunRepository;
+    }
+
+    @Override
+    public String name() {
+        return "job-run-retention";
+    }
+
+    @Override
+    public Duration interval() {
+        return Duration.ofHours(6);
+    }
+
+    @Override
+    public void run() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
+        long total = 0;
+        int deleted;
+        do {
+            deleted = jobRunRepository.deleteChunkStartedBefore(cutoff, CHUNK_SIZE);
+            total += deleted;
+        } while (deleted == CHUNK_SIZE);
+        if (total > 0) {
+            logger.info("Deleted {} job runs older than {} days", total, retentionDays);
+        }
+    }
+}
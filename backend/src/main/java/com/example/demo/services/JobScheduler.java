@@ -0,0 +1,147 @@
+package com.example.demo.services;
+
+import com.example.demo.models.JobRun;
+import com.example.demo.repositories.JobLockRepository;
+import com.example.demo.repositories.JobRunRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs every {@link ClusterJob} once per interval across the cluster.
+ * <p>
+ * Each instance checks each job every interval, stretched by a random jitter so instances
+ * don't all check at once. A check claims the job's {@code job_locks} row, which only
+ * succeeds when the job is due and no live instance holds it; the winner runs the job,
+ * records the run in {@code job_runs} and sets when it is next due. The others skip it.
+ * Runs are timed as {@code jobs.run} (tagged job and outcome); skipped checks are counted
+ * as {@code jobs.skipped}.
+ */
+@Service
+public class JobScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(JobScheduler.class);
+    private static final int MAX_ERROR_LENGTH = 1024;
+
+    private final List<ClusterJob> jobs;
+    private final JobLockRepository jobLockRepository;
+    private final JobRunRepository jobRunRepository;
+    private final MeterRegistry meterRegistry;
+    private final TaskScheduler taskScheduler;
+    private final String instance;
+
+    // Extra delay before each check, as a fraction of the job's interval
+    @Value("${jobs.jitter:0.1}")
+    private double jitter;
+
+    // Guarded by this
+    private final List<ScheduledFuture<?>> scheduled = new ArrayList<>();
+    private boolean stopped;
+
+    public JobScheduler(List<ClusterJob> jobs, JobLockRepository jobLockRepository, JobRunRepository jobRunRepository,
+            MeterRegistry meterRegistry, TaskScheduler taskScheduler, @Value("${jobs.instanceId:}") String instanceId) {
+        Set<String> names = new HashSet<>();
+        for (ClusterJob job : jobs) {
+            if (!names.add(job.name())) {
+                throw new IllegalStateException("Duplicate job name: " + job.name());
+            }
+        }
+        this.jobs = jobs;
+        this.jobLockRepository = jobLockRepository;
+        this.jobRunRepository = jobRunRepository;
+        this.meterRegistry = meterRegistry;
+        this.taskScheduler = taskScheduler;
+        // pid@host unless configured
+        this.instance = instanceId.isBlank() ? ManagementFactory.getRuntimeMXBean().getName() : instanceId;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        for (ClusterJob job : jobs) {
+            logger.info("Scheduling job {} every {}", job.name(), job.interval());
+            scheduleCheck(job);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        stopped = true;
+        scheduled.forEach(future -> future.cancel(false));
+        scheduled.clear();
+    }
+
+    private synchronized void scheduleCheck(ClusterJob job) {
+        if (stopped) {
+            return;
+        }
+        long intervalMs = job.interval().toMillis();
+        long delayMs = intervalMs + (long) (intervalMs * jitter * ThreadLocalRandom.current().nextDouble());
+        scheduled.removeIf(ScheduledFuture::isDone);
+        scheduled.add(taskScheduler.schedule(() -> check(job), Instant.now().plusMillis(delayMs)));
+    }
+
+    private void check(ClusterJob job) {
+        try {
+            if (jobLockRepository.tryClaim(job.name(), instance, seconds(job.lease())) == 1) {
+                runClaimed(job);
+            } else {
+                Counter.builder("jobs.skipped").tag("job", job.name()).register(meterRegistry).increment();
+            }
+        } catch (Exception e) {
+            // Database unavailable; the next check tries again
+            logger.warn("Could not check job {}: {}", job.name(), e.getMessage());
+        } finally {
+            scheduleCheck(job);
+        }
+    }
+
+    private void runClaimed(ClusterJob job) {
+        LocalDateTime startedAt = LocalDateTime.now();
+        long start = System.nanoTime();
+        String error = null;
+        try {
+            job.run();
+        } catch (Exception e) {
+            logger.warn("Job {} failed: {}", job.name(), e.getMessage(), e);
+            error = String.valueOf(e.getMessage());
+            if (error.length() > MAX_ERROR_LENGTH) {
+                error = error.substring(0, MAX_ERROR_LENGTH);
+            }
+        }
+        long nanos = System.nanoTime() - start;
+
+        Timer.builder("jobs.run")
+                .tag("job", job.name())
+                .tag("outcome", error == null ? "success" : "error")
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        jobRunRepository.save(new JobRun(job.name(), instance, startedAt, LocalDateTime.now(),
+                TimeUnit.NANOSECONDS.toMillis(nanos), error == null, error));
+        jobLockRepository.release(job.name(), instance, seconds(job.interval()));
+    }
+
+    private static double seconds(Duration duration) {
+        return duration.toMillis() / 1000.0;
+    }
+}
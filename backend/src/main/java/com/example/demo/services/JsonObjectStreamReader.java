@@ -0,0 +1,235 @@
+package com.example.demo.services;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Pull reader for a flat JSON object of string values, e.g.
+ * {@code {"filename": "a.png", "base64Data": "iVBORw0..."}}.
+ * <p>
+ * Unlike a token or tree parser it can hand out a string value as an {@link InputStream}
+ * ({@link #openString()}), so a multi-megabyte value is never held in memory, and skips
+ * values it is not interested in without buffering them. Nested objects and arrays are not
+ * supported.
+ * <p>
+ * Input that is not such an object fails with an {@link IllegalArgumentException}, which
+ * callers report as a bad request; an {@link IOException} means the body could not be read.
+ */
+public class JsonObjectStreamReader {
+
+    private static final int MAX_FIELD_NAME_LENGTH = 256;
+
+    private final InputStream in;
+    private boolean started;
+    private boolean finished;
+    private InputStream openValue;
+
+    public JsonObjectStreamReader(InputStream in) {
+        this.in = new BufferedInputStream(in, 8192);
+    }
+
+    /**
+     * Advance to the next field and return its name, or null after the closing brace.
+     * Unread parts of a value opened with {@link #openString()} are skipped.
+     */
+    public String nextField() throws IOException {
+        if (openValue != null) {
+            openValue.transferTo(OutputStream.nullOutputStream());
+            openValue = null;
+        }
+        if (finished) {
+            return null;
+        }
+        int c = skipWhitespace();
+        if (!started) {
+            expect(c, '{');
+            started = true;
+            c = skipWhitespace();
+        } else if (c == ',') {
+            c = skipWhitespace();
+        } else if (c != '}') {
+            throw new IllegalArgumentException("Malformed JSON body: expected ',' or '}'");
+        }
+        if (c == '}') {
+            finished = true;
+            // Read to the end, so wrappers that verify the whole body see all of it
+            if (skipWhitespace() != -1) {
+                throw new IllegalArgumentException("Malformed JSON body: unexpected content after it");
+            }
+            return null;
+        }
+        expect(c, '"');
+        String name = readQuotedString(MAX_FIELD_NAME_LENGTH);
+        expect(skipWhitespace(), ':');
+        return name;
+    }
+
+    /**
+     * Read the current value as a string of at most {@code maxLength} characters; null for JSON null.
+     */
+    public String readString(int maxLength) throws IOException {
+        int c = skipWhitespace();
+        if (c == 'n') {
+            expectLiteral("ull");
+            return null;
+        }
+        expect(c, '"');
+        return readQuotedString(maxLength);
+    }
+
+    /**
+     * Stream the characters of the current string value. Only the escapes that can occur in
+     * base64 or data URLs ({@code \/}, {@code \\}, {@code \"}) are supported.
+     */
+    public InputStream openString() throws IOException {
+        expect(skipWhitespace(), '"');
+        openValue = new InputStream() {
+            private boolean done;
+
+            @Override
+            public int read() throws IOException {
+                if (done) {
+                    return -1;
+                }
+                int c = in.read();
+                if (c == '"') {
+                    done = true;
+                    return -1;
+                }
+                if (c == '\\') {
+                    int escaped = in.read();
+                    if (escaped == '/' || escaped == '\\' || escaped == '"') {
+                        return escaped;
+                    }
+                    throw new IllegalArgumentException("Unsupported escape in streamed JSON string");
+                }
+                if (c == -1) {
+                    throw new IllegalArgumentException("Unterminated JSON string");
+                }
+                return c;
+            }
+        };
+        return openValue;
+    }
+
+    /**
+     * Skip a string, number, boolean or null value, reading it without keeping it.
+     */
+    public void skipValue() throws IOException {
+        int c = skipWhitespace();
+        if (c == '"') {
+            skipQuotedString();
+            return;
+        }
+        if (c == '{' || c == '[') {
+            throw new IllegalArgumentException("Nested JSON values are not supported");
+        }
+        if (c == -1) {
+            throw new IllegalArgumentException("Malformed JSON body: missing value");
+        }
+        // Literal: consume up to the next separator
+        while (true) {
+            in.mark(1);
+            int next = in.read();
+            if (next == -1 || next == ',' || next == '}' || Character.isWhitespace(next)) {
+                in.reset();
+                return;
+            }
+        }
+    }
+
+    private void skipQuotedString() throws IOException {
+        while (true) {
+            int c = in.read();
+            if (c == -1) {
+                throw new IllegalArgumentException("Unterminated JSON string");
+            }
+            if (c == '"') {
+                return;
+            }
+            if (c == '\\') {
+                unescape(in.read());
+            }
+        }
+    }
+
+    private String readQuotedString(int maxLength) throws IOException {
+        StringBuilder text = new StringBuilder();
+        ByteArrayOutputStream utf8 = new ByteArrayOutputStream();
+        while (true) {
+            int c = in.read();
+            if (c == -1) {
+                throw new IllegalArgumentException("Unterminated JSON string");
+            }
+            if (c == '"') {
+                flush(utf8, text);
+                return text.toString();
+            }
+            if (c == '\\') {
+                flush(utf8, text);
+                text.append(unescape(in.read()));
+            } else {
+                utf8.write(c);
+            }
+            if (utf8.size() + text.length() > maxLength) {
+                throw new IllegalArgumentException("JSON string value too long");
+            }
+        }
+    }
+
+    private char unescape(int c) throws IOException {
+        switch (c) {
+            case '"': return '"';
+            case '\\': return '\\';
+            case '/': return '/';
+            case 'b': return '\b';
+            case 'f': return '\f';
+            case 'n': return '\n';
+            case 'r': return '\r';
+            case 't': return '\t';
+            case 'u':
+                int code = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = Character.digit(in.read(), 16);
+                    if (digit < 0) {
+                        throw new IllegalArgumentException("Invalid \\u escape in JSON string");
+                    }
+                    code = (code << 4) | digit;
+                }
+                return (char) code;
+            default:
+                throw new IllegalArgumentException("Invalid escape in JSON string");
+        }
+    }
+
+    private static void flush(ByteArrayOutputStream utf8, StringBuilder text) {
+        if (utf8.size() > 0) {
+            text.append(utf8.toString(StandardCharsets.UTF_8));
+            utf8.reset();
+        }
+    }
+
+    private int skipWhitespace() throws IOException {
+        int c;
+        do {
+            c = in.read();
+        } while (c == ' ' || c == '\n' || c == '\r' || c == '\t');
+        return c;
+    }
+
+    private void expectLiteral(String rest) throws IOException {
+        for (int i = 0; i < rest.length(); i++) {
+            expect(in.read(), rest.charAt(i));
+        }
+    }
+
+    private static void expect(int actual, char expected) {
+        if (actual != expected) {
+            throw new IllegalArgumentException("Malformed JSON body: expected '" + expected + "'");
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.example.demo.services;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.web.util.UriUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stores files on the local disk under {@code file.storage.local.path}, served by
+ * {@code MediaController} under {@code file.storage.base-url}. For on-prem setups and
+ * running without Supabase.
+ * <p>
+ * Files are written to a temp file through a {@link FileChannel} and linked into place once
+ * complete, so a half-written upload is never served and an existing file is never replaced.
+ * <p>
+ * Direct uploads are PUT to the file's own URL with an HMAC-signed query string; this makes
+ * the local store a stand-in for a real object store's presigned URLs when running offline.
+ */
+@Service
+@ConditionalOnProperty(name = "file.storage.type", havingValue = "local")
+public class LocalStorageBackend implements StorageBackend {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalStorageBackend.class);
+    private static final long TRANSFER_CHUNK = 1024 * 1024;
+
+    @Value("${file.storage.local.path:uploads}")
+    private String rootPath;
+
+    @Value("${file.storage.base-url:http://localhost:8080/api/media/}")
+    private String baseUrl;
+
+    @Value("${file.storage.local.signingSecret:${gateway.shared.secret:change-me}}")
+    private String signingSecret;
+
+    private Path root;
+
+    @PostConstruct
+    public void init() throws IOException {
+        root = Path.of(rootPath).toAbsolutePath().normalize();
+        Files.createDirectories(root);
+        if (!baseUrl.endsWith("/")) {
+            baseUrl = baseUrl + "/";
+        }
+        logger.info("Storing uploaded files in {}", root);
+    }
+
+    @Override
+    public String store(String path, InputStream content, long contentLength, String contentType) throws IOException {
+        Path target = resolve(path);
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), ".upload-", ".part");
+        try {
+            // Not closed: that would close the caller's stream
+            ReadableByteChannel in = Channels.newChannel(content);
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                // The stream is wrapped, not a FileChannel, so even a spooled multipart file is copied
+                // through the wrapper's small buffer rather than by the kernel; memory use stays flat
+                long position = 0;
+                long transferred;
+                while ((transferred = out.transferFrom(in, position, TRANSFER_CHUNK)) > 0) {
+                    position += transferred;
+                }
+            }
+            placeNew(temp, target);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+
+        logger.debug("File stored: {}", target);
+        return publicUrl(path);
+    }
+
+    @Override
+    public SignedUpload signUpload(String path, String contentType, long maxBytes, Duration ttl) {
+        resolve(path);
+        long expires = Instant.now().plus(ttl).getEpochSecond();
+        String url = publicUrl(path)
+                + "?expires=" + expires
+                + "&maxBytes=" + maxBytes
+                + "&contentType=" + UriUtils.encodeQueryParam(contentType, StandardCharsets.UTF_8)
+                + "&signature=" + uploadSignature(path, contentType, maxBytes, expires);
+        return new SignedUpload(url, Map.of("Content-Type", contentType), Instant.ofEpochSecond(expires));
+    }
+
+    @Override
+    public void move(String fromPath, String toPath) throws IOException {
+        Path source = resolve(fromPath);
+        Path target = resolve(toPath);
+        Files.createDirectories(target.getParent());
+        placeNew(source, target);
+    }
+
+    /**
+     * Check the query string of a signed upload URL for path.
+     */
+    public boolean verifyUpload(String path, String contentType, long maxBytes, long expires, String signature) {
+        if (Instant.now().getEpochSecond() > expires || signature == null) {
+            return false;
+        }
+        byte[] expected = uploadSignature(path, contentType, maxBytes, expires).getBytes(StandardCharsets.US_ASCII);
+        return MessageDigest.isEqual(expected, signature.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private String uploadSignature(String path, String contentType, long maxBytes, long expires) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(signingSecret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            String payload = path + "\n" + contentType + "\n" + maxBytes + "\n" + expires;
+            return HexFormat.of().formatHex(mac.doFinal(payload.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot sign upload URL", e);
+        }
+    }
+
+    @Override
+    public <T> T read(String path, ContentReader<T> reader) throws IOException {
+        try (InputStream in = Files.newInputStream(resolve(path))) {
+            return reader.read(in);
+        }
+    }
+
+    @Override
+    public void deleteAll(List<String> paths) throws IOException {
+        for (String path : paths) {
+            Path file;
+            try {
+                file = resolve(path);
+            } catch (IllegalArgumentException e) {
+                // Can never succeed, so not worth a retry
+                logger.error("Not deleting invalid storage path: {}", path);
+                continue;
+            }
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Override
+    public String publicUrl(String path) {
+        return baseUrl + path;
+    }
+
+    @Override
+    public String pathOf(String publicUrl) {
+        return publicUrl.startsWith(baseUrl) ? publicUrl.substring(baseUrl.length()) : null;
+    }
+
+    /**
+     * Look up a stored file for serving; null if there is none.
+     */
+    public LocalFile open(String path) throws IOException {
+        Path file = resolve(path);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        return new LocalFile(file, attributes.size(), attributes.lastModifiedTime().toMillis());
+    }
+
+    /**
+     * Move source to target, failing with FileAlreadyExistsException if target exists.
+     * A rename would silently replace it, a check before the rename would race; creating
+     * a hard link is atomic and refuses an existing name.
+     */
+    private static void placeNew(Path source, Path target) throws IOException {
+        Files.createLink(target, source);
+        Files.delete(source);
+    }
+
+    private Path resolve(String path) {
+        Path resolved = root.resolve(path).normalize();
+        if (!resolved.startsWith(root) || resolved.equals(root)) {
+            throw new IllegalArgumentException("Invalid storage path: " + path);
+        }
+        return resolved;
+    }
+
+    public record LocalFile(Path path, long size, long lastModifiedMillis) {
+
+        /**
+         * Strong ETag: a stored path only ever holds one content, so size and modification time identify the bytes.
+         */
+        public String etag() {
+            return "\"" + Long.toHexString(lastModifiedMillis) + "-" + Long.toHexString(size) + "\"";
+        }
+    }
+}
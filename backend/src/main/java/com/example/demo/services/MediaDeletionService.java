@@ -0,0 +1,110 @@
+package com.example.demo.services;
+
+import com.example.demo.models.MediaDeletion;
+import com.example.demo.repositories.MediaDeletionRepository;
+import com.example.demo.repositories.MediaObjectRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Background worker for the {@code media_deletions} outbox: claims due rows in batches,
+ * deletes their files with one bulk storage call per batch and drops the rows, or
+ * reschedules the batch with exponential backoff when storage fails.
+ * <p>
+ * Claims use {@code FOR UPDATE SKIP LOCKED} plus a lease, so several backend instances can
+ * run the worker without deleting the same files twice. Uploads never reuse a path (see
+ * {@link FileStorageService}), so a file stored while its path's deletion is pending can't
+ * be the one deleted.
+ */
+@Service
+public class MediaDeletionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MediaDeletionService.class);
+    private static final int MAX_ERROR_LENGTH = 1024;
+
+    @Value("${media.deletion.batchSize:100}")
+    private int batchSize;
+
+    @Value("${media.deletion.leaseSeconds:300}")
+    private double leaseSeconds;
+
+    @Value("${media.deletion.baseBackoffSeconds:30}")
+    private double baseBackoffSeconds;
+
+    @Value("${media.deletion.maxBackoffSeconds:21600}")
+    private double maxBackoffSeconds;
+
+    private final MediaDeletionRepository mediaDeletionRepository;
+    private final MediaObjectRepository mediaObjectRepository;
+    private final StorageBackend storage;
+    private final TransactionTemplate transactionTemplate;
+
+    public MediaDeletionService(MediaDeletionRepository mediaDeletionRepository,
+            MediaObjectRepository mediaObjectRepository, StorageBackend storage,
+            PlatformTransactionManager transactionManager) {
+        this.mediaDeletionRepository = mediaDeletionRepository;
+        this.mediaObjectRepository = mediaObjectRepository;
+        this.storage = storage;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(fixedDelayString = "${media.deletion.pollMs:5000}")
+    public void deleteDue() {
+        List<MediaDeletion> batch;
+        do {
+            batch = claim();
+            if (!batch.isEmpty()) {
+                deleteBatch(batch);
+            }
+        } while (batch.size() == batchSize);
+    }
+
+    private List<MediaDeletion> claim() {
+        return transactionTemplate.execute(status -> {
+            List<MediaDeletion> due = mediaDeletionRepository.lockDue(batchSize);
+            if (!due.isEmpty()) {
+                mediaDeletionRepository.lease(ids(due), leaseSeconds);
+            }
+            return due;
+        });
+    }
+
+    private void deleteBatch(List<MediaDeletion> batch) {
+        List<Long> ids = ids(batch);
+        Set<String> paths = new LinkedHashSet<>();
+        batch.forEach(deletion -> paths.add(deletion.getPath()));
+        // Stored files get a fresh path, so nothing is written to a queued path after this check;
+        // it guards against rows queued for paths that were recorded again
+        paths.removeAll(mediaObjectRepository.findStoredPaths(paths));
+
+        try {
+            if (!paths.isEmpty()) {
+                storage.deleteAll(new ArrayList<>(paths));
+            }
+            mediaDeletionRepository.deleteByIds(ids);
+            logger.debug("Deleted {} stored files", paths.size());
+        } catch (Exception e) {
+            logger.warn("Failed to delete {} stored files, will retry: {}", paths.size(), e.getMessage());
+            String error = String.valueOf(e.getMessage());
+            mediaDeletionRepository.recordFailure(ids,
+                    error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error,
+                    baseBackoffSeconds, maxBackoffSeconds);
+        }
+    }
+
+    private static List<Long> ids(List<MediaDeletion> deletions) {
+        List<Long> ids = new ArrayList<>(deletions.size());
+        deletions.forEach(deletion -> ids.add(deletion.getId()));
+        return ids;
+    }
+}
@@ -1,6 +1,15 @@
 package com.example.demo.services;
 
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Base64;
 
 import org.springframework.stereotype.Service;
 
@@ -9,6 +18,10 @@ import com.example.demo.models.MediaType;
 @Service
 public class MediaService {
 
+    private static final int MAX_FIELD_LENGTH = 1024;
+    private static final int MAX_DATA_URL_HEADER = 256;
+    private static final byte[] DATA_URL_PREFIX = "data:".getBytes(StandardCharsets.US_ASCII);
+
     private final FileStorageService fileStorageService;
 
     public MediaService(FileStorageService fileStorageService) {
@@ -31,13 +44,13 @@ public class MediaService {
 
         String contentType = "image/jpeg";
         String filename = "avatar.jpg";
-        String base64Payload = avatar;
+        int payloadStart = 0;
 
         if (avatar.startsWith("data:")) {
             int commaIndex = avatar.indexOf(',');
             if (commaIndex > 0) {
                 String header = avatar.substring(0, commaIndex);
-                base64Payload = avatar.substring(commaIndex + 1);
+                payloadStart = commaIndex + 1;
 
                 int colonIdx = header.indexOf(':');
                 int semiIdx = header.indexOf(';');
@@ -55,54 +68,123 @@ public class MediaService {
             }
         }
 
-        byte[] bytes;
+        // Decode while uploading instead of materializing the image next to its base64 text
+        Base64.Decoder decoder = isUrlSafe(avatar) ? Base64.getUrlDecoder() : Base64.getDecoder();
+        InputStream decoded = decoder.wrap(new AsciiInputStream(avatar, payloadStart));
+        return fileStorageService.uploadStream(decoded, -1, contentType, filename, "uploads");
+    }
+
+    /**
+     * Upload the base64 file in a JSON body {@code {"base64Data", "filename", "contentType"}},
+     * read straight from the request stream and decoded while it is uploaded. base64Data may
+     * be a data URL. When it comes before filename/contentType in the body, the decoded file
+     * is spooled to a temp file until they are known; memory use stays constant either way.
+     * A body that is not such an object, or invalid base64, fails with IllegalArgumentException.
+     */
+    public String uploadBase64(InputStream jsonBody, String folder) throws IOException {
+        JsonObjectStreamReader reader = new JsonObjectStreamReader(jsonBody);
+        String filename = null;
+        String contentType = null;
+        String dataUrlType = null;
+        String uploadedUrl = null;
+        Path spooled = null;
         try {
-            bytes = java.util.Base64.getDecoder().decode(base64Payload);
-        } catch (IllegalArgumentException ex) {
-            bytes = java.util.Base64.getUrlDecoder().decode(base64Payload);
-        }
+            String field;
+            while ((field = reader.nextField()) != null) {
+                switch (field) {
+                    case "filename" -> filename = reader.readString(MAX_FIELD_LENGTH);
+                    case "contentType" -> contentType = reader.readString(MAX_FIELD_LENGTH);
+                    case "base64Data" -> {
+                        if (uploadedUrl != null || spooled != null) {
+                            throw new IllegalArgumentException("Duplicate base64Data");
+                        }
+                        PushbackInputStream payload = new PushbackInputStream(reader.openString(), DATA_URL_PREFIX.length);
+                        dataUrlType = readDataUrlType(payload);
+                        InputStream decoded = new Base64BodyInputStream(payload);
+                        if (filename != null && !filename.isEmpty() && (contentType != null || dataUrlType != null)) {
+                            uploadedUrl = fileStorageService.uploadStream(decoded, -1,
+                                    resolveContentType(contentType, dataUrlType), filename, folder);
+                        } else {
+                            spooled = spool(decoded);
+                        }
+                    }
+                    default -> reader.skipValue();
+                }
+            }
 
-        return fileStorageService.uploadBytes(bytes, contentType, filename, "uploads");
+            if (filename == null || filename.isEmpty() || (uploadedUrl == null && spooled == null)) {
+                throw new IllegalArgumentException("Missing base64Data or filename");
+            }
+            if (uploadedUrl != null) {
+                return uploadedUrl;
+            }
+            return fileStorageService.uploadSpooled(spooled, resolveContentType(contentType, dataUrlType),
+                    filename, folder);
+        } finally {
+            if (spooled != null) {
+                Files.deleteIfExists(spooled);
+            }
+        }
     }
 
     /**
-     * Upload a base64 payload directly, handling validation and returning public URL.
+     * Consume a leading "data:<type>;base64," header if present and return its content type.
      */
-    public String uploadBase64(String base64Data, String filename, String contentType, String folder)
-            throws IOException {
-        if (base64Data == null || base64Data.isEmpty()) {
-            throw new IllegalArgumentException("base64Data cannot be empty");
+    private String readDataUrlType(PushbackInputStream payload) throws IOException {
+        byte[] prefix = payload.readNBytes(DATA_URL_PREFIX.length);
+        if (!Arrays.equals(prefix, DATA_URL_PREFIX)) {
+            payload.unread(prefix);
+            return null;
         }
-        if (filename == null || filename.isEmpty()) {
-            throw new IllegalArgumentException("filename cannot be empty");
+        StringBuilder header = new StringBuilder();
+        int c;
+        while ((c = payload.read()) != ',') {
+            if (c == -1 || header.length() >= MAX_DATA_URL_HEADER) {
+                throw new IllegalArgumentException("Invalid data URL");
+            }
+            header.append((char) c);
         }
+        int semiIdx = header.indexOf(";");
+        String type = semiIdx >= 0 ? header.substring(0, semiIdx) : header.toString();
+        return type.isEmpty() ? null : type;
+    }
 
-        // Allow data URLs
-        String payload = base64Data;
-        if (base64Data.startsWith("data:")) {
-            int commaIndex = base64Data.indexOf(',');
-            if (commaIndex > 0) {
-                String header = base64Data.substring(0, commaIndex);
-                payload = base64Data.substring(commaIndex + 1);
-                if (contentType == null || contentType.isEmpty()) {
-                    int colonIdx = header.indexOf(':');
-                    int semiIdx = header.indexOf(';');
-                    if (colonIdx >= 0 && semiIdx > colonIdx) {
-                        contentType = header.substring(colonIdx + 1, semiIdx);
-                    }
+    private static String resolveContentType(String contentType, String dataUrlType) {
+        if (contentType != null && !contentType.isEmpty()) {
+            return contentType;
+        }
+        return dataUrlType != null ? dataUrlType : "application/octet-stream";
+    }
+
+    private static Path spool(InputStream decoded) throws IOException {
+        Path file = Files.createTempFile("base64-upload-", ".tmp");
+        try (OutputStream out = Files.newOutputStream(file)) {
+            byte[] buffer = new byte[8192];
+            long total = 0;
+            int read;
+            while ((read = decoded.read(buffer)) != -1) {
+                total += read;
+                if (total > FileStorageService.MAX_FILE_SIZE) {
+                    throw new IllegalArgumentException("File size exceeds maximum allowed size of 10MB");
                 }
+                out.write(buffer, 0, read);
             }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
         }
+        return file;
+    }
 
-        byte[] bytes = java.util.Base64.getDecoder().decode(payload);
-        return fileStorageService.uploadBytes(bytes,
-                contentType != null && !contentType.isEmpty() ? contentType : "application/octet-stream",
-                filename,
-                folder);
+    private static boolean isUrlSafe(String avatar) {
+        // A data URL header may contain '-' (e.g. image/x-icon), so only look past the comma
+        int start = avatar.startsWith("data:") ? avatar.indexOf(',') + 1 : 0;
+        return avatar.indexOf('-', start) >= 0 || avatar.indexOf('_', start) >= 0;
     }
 
     /**
-     * Determine media type from url/path by extension.
+     * Determine media type from url/path by extension. Only a fallback for external URLs:
+     * files uploaded here have their type detected from their content.
      */
     public MediaType determineMediaTypeFromUrl(String url) {
         if (url == null || url.isEmpty()) {
@@ -121,6 +203,98 @@ public class MediaService {
         }
         return null;
     }
-}
 
+    /**
+     * Decodes base64 read from a request body. Invalid base64 is the client's mistake and fails
+     * as IllegalArgumentException; failures to read the body itself stay IOExceptions.
+     */
+    private static class Base64BodyInputStream extends FilterInputStream {
+
+        private final FailureTrackingInputStream encoded;
+
+        Base64BodyInputStream(InputStream encoded) {
+            this(new FailureTrackingInputStream(encoded));
+        }
+
+        private Base64BodyInputStream(FailureTrackingInputStream encoded) {
+            super(Base64.getDecoder().wrap(encoded));
+            this.encoded = encoded;
+        }
+
+        @Override
+        public int read() throws IOException {
+            try {
+                return super.read();
+            } catch (IOException e) {
+                throw translate(e);
+            }
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            try {
+                return super.read(buffer, offset, length);
+            } catch (IOException e) {
+                throw translate(e);
+            }
+        }
+
+        private IOException translate(IOException e) {
+            if (encoded.failed) {
+                return e;
+            }
+            throw new IllegalArgumentException("Invalid base64Data: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Remembers whether reading the underlying stream failed.
+     */
+    private static class FailureTrackingInputStream extends FilterInputStream {
 
+        private boolean failed;
+
+        FailureTrackingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            try {
+                return super.read();
+            } catch (IOException e) {
+                failed = true;
+                throw e;
+            }
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            try {
+                return super.read(buffer, offset, length);
+            } catch (IOException e) {
+                failed = true;
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Reads the characters of a string as single bytes, without copying it into a byte array.
+     */
+    private static class AsciiInputStream extends InputStream {
+
+        private final String text;
+        private int position;
+
+        AsciiInputStream(String text, int start) {
+            this.text = text;
+            this.position = start;
+        }
+
+        @Override
+        public int read() {
+            return position < text.length() ? text.charAt(position++) & 0xff : -1;
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package com.example.demo.services;
+
+import com.example.demo.models.MediaType;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Detects the format of an upload from its leading bytes, and an image's dimensions from its
+ * header, instead of trusting the file name or the client's Content-Type.
+ * <p>
+ * Detection runs on bytes captured by {@link Capture} while the upload is read for hashing,
+ * so it needs no read pass of its own. Video dimensions sit in containers that may put them
+ * at the end of the file, so they are not detected here.
+ */
+final class MediaSniffer {
+
+    // Enough for JPEG headers with a large EXIF block before the frame header
+    static final int HEAD_BYTES = 64 * 1024;
+
+    private MediaSniffer() {
+    }
+
+    /**
+     * What the content is; width and height are null when the header does not give them.
+     */
+    record Sniffed(MediaType kind, String contentType, Integer width, Integer height) {
+
+        /**
+         * File extension for this format, with the dot.
+         */
+        String extension() {
+            return switch (contentType) {
+                case "image/jpeg" -> ".jpg";
+                case "video/quicktime" -> ".mov";
+                case "video/x-msvideo" -> ".avi";
+                case "video/x-matroska" -> ".mkv";
+                case "video/x-flv" -> ".flv";
+                // image/png -> .png, video/mp4 -> .mp4 and so on
+                default -> "." + contentType.substring(contentType.indexOf('/') + 1);
+            };
+        }
+    }
+
+    /**
+     * Returns null for content that is not a recognised image or video format.
+     */
+    static Sniffed sniff(byte[] head, int length) {
+        if (startsWith(head, length, 0, 0xFF, 0xD8, 0xFF)) {
+            return jpeg(head, length);
+        }
+        if (startsWith(head, length, 0, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A)) {
+            // IHDR is always the first chunk
+            return image("image/png", length >= 24 ? int32(head, 16) : null, length >= 24 ? int32(head, 20) : null);
+        }
+        if (startsWith(head, length, 0, 'G', 'I', 'F', '8') && length >= 10) {
+            return image("image/gif", uint16le(head, 6), uint16le(head, 8));
+        }
+        if (startsWith(head, length, 0, 'R', 'I', 'F', 'F')) {
+            if (startsWith(head, length, 8, 'W', 'E', 'B', 'P')) {
+                return webp(head, length);
+            }
+            if (startsWith(head, length, 8, 'A', 'V', 'I', ' ')) {
+                return video("video/x-msvideo");
+            }
+            return null;
+        }
+        if (startsWith(head, length, 4, 'f', 't', 'y', 'p') && length >= 12) {
+            String brand = new String(head, 8, 4, StandardCharsets.US_ASCII);
+            return switch (brand) {
+                case "avif", "avis" -> image("image/avif", null, null);
+                case "heic", "heix", "mif1" -> image("image/heic", null, null);
+                case "qt  " -> video("video/quicktime");
+                default -> video("video/mp4");
+            };
+        }
+        if (startsWith(head, length, 0, 0x1A, 0x45, 0xDF, 0xA3)) {
+            // Matroska; WebM declares its DocType in the EBML header
+            return video(indexOf(head, length, "webm".getBytes(StandardCharsets.US_ASCII), 64) >= 0
+                    ? "video/webm" : "video/x-matroska");
+        }
+        if (startsWith(head, length, 0, 'F', 'L', 'V', 0x01)) {
+            return video("video/x-flv");
+        }
+        return null;
+    }
+
+    private static Sniffed jpeg(byte[] head, int length) {
+        // Walk the marker segments up to the first frame header
+        int offset = 2;
+        while (offset + 9 <= length) {
+            if ((head[offset] & 0xFF) != 0xFF) {
+                break;
+            }
+            int marker = head[offset + 1] & 0xFF;
+            if (marker == 0xFF) {
+                offset++;
+                continue;
+            }
+            if (marker >= 0xC0 && marker <= 0xCF && marker != 0xC4 && marker != 0xC8 && marker != 0xCC) {
+                return image("image/jpeg", uint16(head, offset + 7), uint16(head, offset + 5));
+            }
+            if (marker == 0xD9 || marker == 0xDA) {
+                break;
+            }
+            offset += 2 + uint16(head, offset + 2);
+        }
+        return image("image/jpeg", null, null);
+    }
+
+    private static Sniffed webp(byte[] head, int length) {
+        if (length >= 30 && startsWith(head, length, 12, 'V', 'P', '8', ' ')) {
+            return image("image/webp", uint16le(head, 26) & 0x3FFF, uint16le(head, 28) & 0x3FFF);
+        }
+        if (length >= 25 && startsWith(head, length, 12, 'V', 'P', '8', 'L')) {
+            int b0 = head[21] & 0xFF;
+            int b1 = head[22] & 0xFF;
+            int b2 = head[23] & 0xFF;
+            int b3 = head[24] & 0xFF;
+            return image("image/webp", 1 + (((b1 & 0x3F) << 8) | b0),
+                    1 + (((b3 & 0x0F) << 10) | (b2 << 2) | ((b1 & 0xC0) >> 6)));
+        }
+        if (length >= 30 && startsWith(head, length, 12, 'V', 'P', '8', 'X')) {
+            return image("image/webp", 1 + uint24le(head, 24), 1 + uint24le(head, 27));
+        }
+        return image("image/webp", null, null);
+    }
+
+    private static Sniffed image(String contentType, Integer width, Integer height) {
+        boolean known = width != null && height != null && width > 0 && height > 0;
+        return new Sniffed(MediaType.IMAGE, contentType, known ? width : null, known ? height : null);
+    }
+
+    private static Sniffed video(String contentType) {
+        return new Sniffed(MediaType.VIDEO, contentType, null, null);
+    }
+
+    private static boolean startsWith(byte[] head, int length, int offset, int... expected) {
+        if (offset + expected.length > length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if ((head[offset + i] & 0xFF) != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOf(byte[] head, int length, byte[] needle, int limit) {
+        int end = Math.min(length, limit) - needle.length;
+        outer:
+        for (int i = 0; i <= end; i++) {
+            for (int j = 0; j < needle.length; j++) {
+                if (head[i + j] != needle[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private static int uint16(byte[] b, int offset) {
+        return ((b[offset] & 0xFF) << 8) | (b[offset + 1] & 0xFF);
+    }
+
+    private static int uint16le(byte[] b, int offset) {
+        return (b[offset] & 0xFF) | ((b[offset + 1] & 0xFF) << 8);
+    }
+
+    private static int uint24le(byte[] b, int offset) {
+        return uint16le(b, offset) | ((b[offset + 2] & 0xFF) << 16);
+    }
+
+    private static Integer int32(byte[] b, int offset) {
+        int value = (uint16(b, offset) << 16) | uint16(b, offset + 2);
+        return value > 0 ? value : null;
+    }
+
+    /**
+     * Passes a stream through unchanged, keeping a copy of its first {@link #HEAD_BYTES} bytes.
+     */
+    static class Capture extends FilterInputStream {
+
+        private final byte[] head = new byte[HEAD_BYTES];
+        private int length;
+
+        Capture(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1 && length < head.length) {
+                head[length++] = (byte) b;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int count) throws IOException {
+            int n = super.read(buffer, offset, count);
+            if (n > 0 && length < head.length) {
+                int copied = Math.min(n, head.length - length);
+                System.arraycopy(buffer, offset, head, length, copied);
+                length += copied;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            if (length >= head.length || n <= 0) {
+                return super.skip(n);
+            }
+            // Read instead, so the captured head has no gap
+            return Math.max(0, read(new byte[(int) Math.min(n, head.length - length)]));
+        }
+
+        Sniffed sniffed() {
+            return sniff(head, length);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.demo.services;
+
+import com.example.demo.models.Report;
+import com.example.demo.models.ReportCase;
+import com.example.demo.models.ReportCaseStatus;
+import com.example.demo.models.ReportStatus;
+import com.example.demo.repositories.ReportCaseRepository;
+import com.example.demo.repositories.ReportRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Groups reports into one case per reported post or user.
+ * <p>
+ * Each new report is counted into its target's case with a single upsert, which keeps the
+ * counters and a sample of distinct reasons, so a post reported thousands of times is still
+ * one row for moderators. Closing a case resolves or dismisses all its pending reports in one
+ * statement. A post whose open case reaches {@code reports.autoHide.threshold} pending reports
+ * is hidden until a moderator looks at it, and shown again if they dismiss the case.
+ */
+@Service
+public class ReportCaseService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportCaseService.class);
+
+    @Value("${reports.cases.reasonSample:5}")
+    private int reasonSample;
+
+    // 0 turns auto-hiding off
+    @Value("${reports.autoHide.threshold:25}")
+    private int autoHideThreshold;
+
+    private final ReportCaseRepository reportCaseRepository;
+    private final ReportRepository reportRepository;
+    private final CacheInvalidationService cacheInvalidationService;
+
+    public ReportCaseService(ReportCaseRepository reportCaseRepository, ReportRepository reportRepository,
+            CacheInvalidationService cacheInvalidationService) {
+        this.reportCaseRepository = reportCaseRepository;
+        this.reportRepository = reportRepository;
+        this.cacheInvalidationService = cacheInvalidationService;
+    }
+
+    /**
+     * The reporter's pending report on the same target, if they already filed one.
+     */
+    public Optional<Report> findOpenDuplicate(Report report) {
+        Long reporterId = report.getReporter().getId();
+        if (report.getReportedPost() != null) {
+            return reportRepository.findFirstByReporter_IdAndReportedPost_IdAndStatus(reporterId,
+                    report.getReportedPost().getId(), ReportStatus.PENDING);
+        }
+        return reportRepository.findFirstByReporter_IdAndReportedUser_IdAndStatus(reporterId,
+                report.getReportedUser().getId(), ReportStatus.PENDING);
+    }
+
+    /**
+     * Count a report just saved into its case, and hide the post if that puts it over the threshold.
+     */
+    @Transactional
+    public void reportFiled(Report report) {
+        Long caseId = report.getReportedPost() != null
+                ? reportCaseRepository.countPostReport(report.getReportedPost().getId(), report.getReason(), reasonSample)
+                : reportCaseRepository.countUserReport(report.getReportedUser().getId(), report.getReason(), reasonSample);
+        reportCaseRepository.linkReport(report.getId(), caseId);
+
+        if (autoHideThreshold > 0 && report.getReportedPost() != null
+                && reportCaseRepository.autoHidePost(caseId, autoHideThreshold,
+                        "Hidden automatically after " + autoHideThreshold + " reports") > 0) {
+            logger.info("Hid post {} after {} reports (case {})", report.getReportedPost().getId(),
+                    autoHideThreshold, caseId);
+            cacheInvalidationService.postsChanged();
+        }
+    }
+
+    /**
+     * A report of the case changed status or was deleted.
+     */
+    public void reportChanged(Long caseId) {
+        if (caseId != null) {
+            reportCaseRepository.recount(List.of(caseId));
+        }
+    }
+
+    /**
+     * Resolve or dismiss every pending report of a case. Dismissing it also shows the post again
+     * if the case had hidden it. Returns the number of reports closed, or empty when there is no
+     * such case.
+     */
+    @Transactional
+    public Optional<Long> close(Long caseId, ReportCaseStatus status) {
+        if (status == ReportCaseStatus.OPEN) {
+            throw new IllegalArgumentException("A case is closed as RESOLVED or DISMISSED");
+        }
+        // Before closing, which clears auto_hidden
+        boolean unhidden = status == ReportCaseStatus.DISMISSED
+                && reportCaseRepository.unhideAutoHiddenPost(caseId) > 0;
+        Optional<Long> closed = Optional.ofNullable(reportCaseRepository.close(caseId, status.name()));
+        if (unhidden) {
+            logger.info("Showing post of dismissed case {} again", caseId);
+            cacheInvalidationService.postsChanged();
+        }
+        return closed;
+    }
+
+    public Page<ReportCase> findCases(ReportCaseStatus status, Pageable pageable) {
+        return status != null ? reportCaseRepository.findByStatus(status, pageable)
+                : reportCaseRepository.findAll(pageable);
+    }
+
+    public Optional<ReportCase> findCase(Long caseId) {
+        return reportCaseRepository.findById(caseId);
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.demo.services;
+
+import com.example.demo.models.Report;
+import com.example.demo.models.ReportStatus;
+import com.example.demo.repositories.ReportRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * The moderation queue: reports ranked by a priority stored on each row, so moderators can
+ * page through a large backlog highest priority first.
+ * <p>
+ * The priority combines how many pending reports the same post or user has, how often the
+ * reporter's past reports were upheld, and how recent the report is (see
+ * {@link ReportRepository#rescorePending}). Reports on a target are rescored when one is filed
+ * or closed; recency decays, so this job also rescores every pending report each interval.
+ * <p>
+ * Pages are read in (priority, id) keyset order: a cursor names the last row seen, so a page
+ * costs the same however deep into the queue it is.
+ */
+@Service
+public class ReportQueueService implements ClusterJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportQueueService.class);
+
+    /**
+     * A page of the queue; nextCursor is null on the last page.
+     */
+    public record QueuePage(List<Report> reports, String nextCursor) {
+    }
+
+    @Value("${reports.priority.refreshMs:300000}")
+    private long refreshMs;
+
+    @Value("${reports.priority.volumeWeight:100}")
+    private double volumeWeight;
+
+    @Value("${reports.priority.trustWeight:100}")
+    private double trustWeight;
+
+    @Value("${reports.priority.recencyWeight:100}")
+    private double recencyWeight;
+
+    @Value("${reports.priority.halfLifeHours:24}")
+    private double halfLifeHours;
+
+    @Value("${reports.priority.escalationBoost:10000}")
+    private int escalationBoost;
+
+    @Value("${reports.priority.critical:500}")
+    private int criticalPriority;
+
+    private final ReportRepository reportRepository;
+
+    public ReportQueueService(ReportRepository reportRepository) {
+        this.reportRepository = reportRepository;
+    }
+
+    @Override
+    public String name() {
+        return "report-priority";
+    }
+
+    @Override
+    public Duration interval() {
+        return Duration.ofMillis(refreshMs);
+    }
+
+    @Override
+    public void run() {
+        int updated = rescore(null, null);
+        if (updated > 0) {
+            logger.debug("Rescored {} pending reports", updated);
+        }
+    }
+
+    /**
+     * A report was filed, resolved or dismissed: rescore the pending reports on its target,
+     * whose volume changed, so it takes its place in the queue right away.
+     */
+    public void targetChanged(Report report) {
+        Long postId = report.getReportedPost() != null ? report.getReportedPost().getId() : null;
+        Long userId = report.getReportedUser() != null ? report.getReportedUser().getId() : null;
+        if (postId != null || userId != null) {
+            rescore(postId, userId);
+        }
+    }
+
+    /**
+     * Move a report to the top of the queue. Returns false when there is no such report.
+     */
+    public boolean escalate(Long reportId) {
+        if (reportRepository.markEscalated(reportId) == 0) {
+            return false;
+        }
+        reportRepository.findById(reportId).ifPresent(this::targetChanged);
+        return true;
+    }
+
+    /**
+     * Reports after the cursor, highest priority first; a null status lists every status.
+     *
+     * @throws IllegalArgumentException if the cursor is not one this service returned
+     */
+    public QueuePage page(ReportStatus status, String cursor, int size) {
+        int afterPriority = Integer.MAX_VALUE;
+        long afterId = Long.MAX_VALUE;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] parts = cursor.split(":", 2);
+            try {
+                afterPriority = Integer.parseInt(parts[0]);
+                afterId = Long.parseLong(parts[1]);
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+        }
+
+        List<Report> reports = reportRepository.findQueuePage(status, afterPriority, afterId, PageRequest.of(0, size));
+        String nextCursor = null;
+        if (reports.size() == size) {
+            Report last = reports.get(reports.size() - 1);
+            nextCursor = last.getPriority() + ":" + last.getId();
+        }
+        return new QueuePage(reports, nextCursor);
+    }
+
+    /**
+     * The whole queue in page order, for callers that don't page; a null status lists every status.
+     */
+    public List<Report> all(ReportStatus status) {
+        return reportRepository.findQueuePage(status, Integer.MAX_VALUE, Long.MAX_VALUE, Pageable.unpaged());
+    }
+
+    /**
+     * Pending reports at or above the critical priority, escalated reports included.
+     */
+    public long countCritical() {
+        return reportRepository.countByStatusAndPriorityGreaterThanEqual(ReportStatus.PENDING, criticalPriority);
+    }
+
+    private int rescore(Long postId, Long userId) {
+        return reportRepository.rescorePending(postId, userId, volumeWeight, trustWeight, recencyWeight,
+                halfLifeHours, escalationBoost);
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.demo.services;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Where uploaded files live. Selected with {@code file.storage.type}: {@code supabase}
+ * (default) or {@code local}.
+ * <p>
+ * Paths are relative, e.g. {@code uploads/<sha256>-<suffix>.png}. Each stored copy gets a
+ * path of its own, so a path queued for deletion is never written again.
+ */
+public interface StorageBackend {
+
+    /**
+     * Store content of the given length (-1 if unknown) at path and return its public URL.
+     * The stream is read to the end but not closed. Fails if something is already stored there.
+     */
+    String store(String path, InputStream content, long contentLength, String contentType) throws IOException;
+
+    /**
+     * A URL the client can PUT the content for path to directly, so the bytes never pass
+     * through the backend. The PUT cannot replace an existing file, but neither store can
+     * enforce size on it: check the stored file before using it.
+     */
+    SignedUpload signUpload(String path, String contentType, long maxBytes, Duration ttl) throws IOException;
+
+    /**
+     * Move a stored file to a path nothing is stored at, without copying it through the backend.
+     * Fails if the target exists.
+     */
+    void move(String fromPath, String toPath) throws IOException;
+
+    /**
+     * Open a stored file and hand its content to reader; the stream is closed afterwards.
+     * A remote store downloads the file first, so the reader does not hold a connection; it
+     * may then hand over only the first {@link FileStorageService#MAX_FILE_SIZE} + 1 bytes.
+     */
+    <T> T read(String path, ContentReader<T> reader) throws IOException;
+
+    /**
+     * Delete stored files in as few calls as the store allows; missing paths are ignored.
+     * Throws when the deletion did not happen, so the caller can retry it.
+     */
+    void deleteAll(List<String> paths) throws IOException;
+
+    String publicUrl(String path);
+
+    /**
+     * Storage path of a public URL returned by {@link #store}, or null if the URL is not from this backend.
+     */
+    String pathOf(String publicUrl);
+
+    /**
+     * Where and how to send a direct upload: PUT to url with these headers before expiresAt.
+     */
+    record SignedUpload(String url, Map<String, String> headers, Instant expiresAt) {
+    }
+
+    @FunctionalInterface
+    interface ContentReader<T> {
+        T read(InputStream content) throws IOException;
+    }
+}
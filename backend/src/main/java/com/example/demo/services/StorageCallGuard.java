@@ -0,0 +1,229 @@
+package com.example.demo.services;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.io.IOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wraps calls to the remote object store with a bulkhead, a circuit breaker and per-operation
+ * latency histograms ({@code storage.client.requests}, tagged operation and outcome).
+ * <p>
+ * The bulkhead caps concurrent storage calls so a slow store cannot take every request
+ * thread; callers beyond it wait briefly and then fail. The breaker opens when too many of
+ * the recent calls failed, fails calls at once while open, and after {@code openMs} lets a
+ * few trial calls through to decide whether to close again. Only what says the store is in
+ * trouble counts as a failure: transport errors (refused or reset connections, timeouts),
+ * 5xx and 429 responses. Other client errors (404, 400) mean the store is answering, and
+ * any other exception is the caller's own, so neither affects the breaker.
+ * <p>
+ * A guarded call should only talk to the store: work on the response (decoding, hashing)
+ * belongs after it, so it neither holds a permit nor has its errors blamed on the store.
+ */
+@Component
+public class StorageCallGuard {
+
+    private static final Logger logger = LoggerFactory.getLogger(StorageCallGuard.class);
+
+    private enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final MeterRegistry meterRegistry;
+    private final Semaphore bulkhead;
+    private final long bulkheadWaitMs;
+    private final int failureRateThreshold;
+    private final int minimumCalls;
+    private final long openMs;
+    private final int halfOpenCalls;
+
+    // Breaker state, guarded by this. The window is a ring of the latest outcomes, true = failure
+    private State state = State.CLOSED;
+    private long openedAtMs;
+    private int halfOpenInFlight;
+    private int halfOpenSuccesses;
+    private final boolean[] window;
+    private int windowIndex;
+    private int windowCount;
+    private int windowFailures;
+
+    public StorageCallGuard(MeterRegistry meterRegistry,
+            @Value("${storage.client.maxConcurrent:32}") int maxConcurrent,
+            @Value("${storage.client.bulkheadWaitMs:500}") long bulkheadWaitMs,
+            @Value("${storage.client.breaker.windowSize:20}") int windowSize,
+            @Value("${storage.client.breaker.minimumCalls:10}") int minimumCalls,
+            @Value("${storage.client.breaker.failureRateThreshold:50}") int failureRateThreshold,
+            @Value("${storage.client.breaker.openMs:30000}") long openMs,
+            @Value("${storage.client.breaker.halfOpenCalls:3}") int halfOpenCalls) {
+        this.meterRegistry = meterRegistry;
+        this.bulkhead = new Semaphore(maxConcurrent);
+        this.bulkheadWaitMs = bulkheadWaitMs;
+        this.window = new boolean[windowSize];
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.openMs = openMs;
+        this.halfOpenCalls = halfOpenCalls;
+
+        Gauge.builder("storage.client.circuit.state", this, guard -> guard.currentState().ordinal())
+                .description("Storage circuit breaker: 0 closed, 1 open, 2 half-open")
+                .register(meterRegistry);
+        Gauge.builder("storage.client.bulkhead.available", bulkhead, Semaphore::availablePermits)
+                .register(meterRegistry);
+    }
+
+    @FunctionalInterface
+    public interface StorageCall<T> {
+        T call() throws IOException;
+    }
+
+    public <T> T call(String operation, StorageCall<T> call) throws IOException {
+        State admittedIn = admit();
+        if (admittedIn == null) {
+            record(operation, "rejected", 0);
+            throw new IOException("Storage unavailable: circuit open after repeated failures");
+        }
+
+        boolean acquired;
+        try {
+            acquired = bulkhead.tryAcquire(bulkheadWaitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            // Not the store's fault; leave the breaker as it was
+            release(admittedIn);
+            record(operation, "rejected", 0);
+            throw new IOException("Storage busy: too many concurrent requests");
+        }
+
+        long start = System.nanoTime();
+        try {
+            T result = call.call();
+            onResult(admittedIn, false);
+            record(operation, "success", System.nanoTime() - start);
+            return result;
+        } catch (IOException | RuntimeException e) {
+            boolean failure = isStoreFailure(e);
+            onResult(admittedIn, failure);
+            record(operation, failure ? "error" : "client_error", System.nanoTime() - start);
+            throw e;
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    /**
+     * The state a call was let through in, or null if the breaker rejects it.
+     */
+    private synchronized State admit() {
+        if (state == State.OPEN) {
+            if (System.currentTimeMillis() - openedAtMs < openMs) {
+                return null;
+            }
+            state = State.HALF_OPEN;
+            halfOpenInFlight = 0;
+            halfOpenSuccesses = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenInFlight >= halfOpenCalls) {
+                return null;
+            }
+            halfOpenInFlight++;
+        }
+        return state;
+    }
+
+    private synchronized void release(State admittedIn) {
+        if (admittedIn == State.HALF_OPEN && state == State.HALF_OPEN) {
+            halfOpenInFlight--;
+        }
+    }
+
+    private synchronized void onResult(State admittedIn, boolean failure) {
+        if (admittedIn != state) {
+            // The breaker changed state while this call ran; its outcome is stale
+            return;
+        }
+        if (state == State.HALF_OPEN) {
+            halfOpenInFlight--;
+            if (failure) {
+                open();
+            } else if (++halfOpenSuccesses >= halfOpenCalls) {
+                state = State.CLOSED;
+                resetWindow();
+                logger.info("Storage circuit closed");
+            }
+            return;
+        }
+
+        if (windowCount == window.length) {
+            if (window[windowIndex]) {
+                windowFailures--;
+            }
+        } else {
+            windowCount++;
+        }
+        window[windowIndex] = failure;
+        if (failure) {
+            windowFailures++;
+        }
+        windowIndex = (windowIndex + 1) % window.length;
+
+        if (windowCount >= minimumCalls && windowFailures * 100 >= failureRateThreshold * windowCount) {
+            open();
+        }
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAtMs = System.currentTimeMillis();
+        resetWindow();
+        logger.warn("Storage circuit opened for {} ms after repeated failures", openMs);
+    }
+
+    private void resetWindow() {
+        windowIndex = 0;
+        windowCount = 0;
+        windowFailures = 0;
+    }
+
+    private synchronized State currentState() {
+        return state;
+    }
+
+    private void record(String operation, String outcome, long nanos) {
+        Timer.builder("storage.client.requests")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Whether an exception from a storage call means the store is failing. The backends wrap
+     * RestTemplate exceptions in IOExceptions, so the cause chain is searched.
+     */
+    static boolean isStoreFailure(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof HttpStatusCodeException status) {
+                return status.getStatusCode().is5xxServerError()
+                        || status.getStatusCode().isSameCodeAs(HttpStatus.TOO_MANY_REQUESTS);
+            }
+            if (cause instanceof ResourceAccessException) {
+                // I/O on the connection itself: refused, reset or timed out
+                return true;
+            }
+        }
+        return false;
+    }
+}
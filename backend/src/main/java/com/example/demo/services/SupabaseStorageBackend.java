@@ -0,0 +1,325 @@
+package com.example.demo.services;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.*;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stores files in a public Supabase storage bucket over its REST API.
+ * <p>
+ * Uses the pooled, timeout-bounded {@code storageRestTemplate}, and every call goes through
+ * {@link StorageCallGuard} (bulkhead, circuit breaker, latency metrics per operation).
+ */
+@Service
+@ConditionalOnProperty(name = "file.storage.type", havingValue = "supabase", matchIfMissing = true)
+public class SupabaseStorageBackend implements StorageBackend {
+
+    private static final Logger logger = LoggerFactory.getLogger(SupabaseStorageBackend.class);
+    private static final Duration SIGNED_UPLOAD_VALIDITY = Duration.ofHours(2);
+    private static final long MAX_READ_BYTES = FileStorageService.MAX_FILE_SIZE + 1;
+
+    @Value("${supabase.url}")
+    private String supabaseUrl;
+
+    @Value("${supabase.service-role-key}")
+    private String serviceRoleKey;
+
+    @Value("${supabase.storage.bucket}")
+    private String bucketName;
+
+    // Upload bodies are copied to storage through one buffer of this size, never held in full
+    @Value("${file.upload.bufferBytes:65536}")
+    private int uploadBufferBytes;
+
+    private final RestTemplate restTemplate;
+    private final StorageCallGuard guard;
+
+    public SupabaseStorageBackend(@Qualifier("storageRestTemplate") RestTemplate restTemplate,
+            StorageCallGuard guard) {
+        this.restTemplate = restTemplate;
+        this.guard = guard;
+    }
+
+    @Override
+    public String store(String path, InputStream content, long contentLength, String contentType) throws IOException {
+        // Encode file path components for URL
+        String encodedFilePath = encodeFilePath(path);
+        String uploadUrl = String.format("%s/storage/v1/object/%s/%s",
+                supabaseUrl, bucketName, encodedFilePath);
+
+        logger.debug("Uploading file to Supabase: {}", uploadUrl);
+        logger.debug("File size: {} bytes, Content-Type: {}", contentLength, contentType);
+
+        try {
+            guard.call("upload", () -> {
+                streamToSupabase(uploadUrl, contentType, contentLength, content);
+                return null;
+            });
+        } catch (SourceReadException e) {
+            throw e.getCause();
+        }
+
+        logger.debug("File uploaded successfully: {}", path);
+        return publicUrl(path);
+    }
+
+    @Override
+    public SignedUpload signUpload(String path, String contentType, long maxBytes, Duration ttl) throws IOException {
+        String signUrl = String.format("%s/storage/v1/object/upload/sign/%s/%s",
+                supabaseUrl, bucketName, encodeFilePath(path));
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Authorization", "Bearer " + serviceRoleKey);
+
+        return guard.call("sign_upload", () -> {
+            try {
+                ResponseEntity<Map> response = restTemplate.exchange(signUrl, HttpMethod.POST,
+                        new HttpEntity<>(headers), Map.class);
+                Object relativeUrl = response.getBody() != null ? response.getBody().get("url") : null;
+                if (!(relativeUrl instanceof String url)) {
+                    throw new IOException("Supabase returned no signed upload URL for " + path);
+                }
+                // Supabase signs upload URLs for a fixed two hours, and size is checked after the upload.
+                // Without x-upsert the URL can only create the object, never overwrite it
+                return new SignedUpload(supabaseUrl + "/storage/v1" + url,
+                        Map.of("Content-Type", contentType),
+                        Instant.now().plus(SIGNED_UPLOAD_VALIDITY));
+            } catch (RestClientException e) {
+                throw new IOException("Failed to sign upload URL with Supabase: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    @Override
+    public void move(String fromPath, String toPath) throws IOException {
+        String moveUrl = String.format("%s/storage/v1/object/move", supabaseUrl);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Authorization", "Bearer " + serviceRoleKey);
+        headers.setContentType(MediaType.APPLICATION_JSON);
+
+        // Supabase refuses the move if the destination exists
+        HttpEntity<Map<String, String>> requestEntity = new HttpEntity<>(Map.of(
+                "bucketId", bucketName,
+                "sourceKey", fromPath,
+                "destinationKey", toPath), headers);
+
+        guard.call("move", () -> {
+            try {
+                restTemplate.exchange(moveUrl, HttpMethod.POST, requestEntity, String.class);
+            } catch (RestClientException e) {
+                throw new IOException("Failed to move " + fromPath + " to " + toPath + " in Supabase: "
+                        + e.getMessage(), e);
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public <T> T read(String path, ContentReader<T> reader) throws IOException {
+        String downloadUrl = String.format("%s/storage/v1/object/%s/%s",
+                supabaseUrl, bucketName, encodeFilePath(path));
+        // Downloaded under the guard and handed to the reader after it, so decoding neither holds
+        // a permit and a pooled connection nor has its errors counted against storage
+        Path spooled = Files.createTempFile("storage-read-", ".part");
+        try {
+            guard.call("read", () -> {
+                try {
+                    return restTemplate.execute(downloadUrl, HttpMethod.GET,
+                            request -> request.getHeaders().set("Authorization", "Bearer " + serviceRoleKey),
+                            response -> {
+                                if (!response.getStatusCode().is2xxSuccessful()) {
+                                    throw new IOException("Failed to download file from Supabase. Status: "
+                                            + response.getStatusCode());
+                                }
+                                spool(response.getBody(), spooled);
+                                return null;
+                            });
+                } catch (HttpClientErrorException.NotFound | HttpClientErrorException.BadRequest e) {
+                    // Supabase answers 400 "Object not found" on some versions
+                    throw new FileNotFoundException("Not in Supabase storage: " + path);
+                } catch (RestClientException e) {
+                    throw new IOException("I/O error downloading file from Supabase: " + downloadUrl, e);
+                }
+            });
+            try (InputStream in = Files.newInputStream(spooled)) {
+                return reader.read(in);
+            }
+        } finally {
+            Files.deleteIfExists(spooled);
+        }
+    }
+
+    @Override
+    public void deleteAll(List<String> paths) throws IOException {
+        // Bulk delete: one call removes every listed object in the bucket
+        String deleteUrl = String.format("%s/storage/v1/object/%s", supabaseUrl, bucketName);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Authorization", "Bearer " + serviceRoleKey);
+        headers.setContentType(MediaType.APPLICATION_JSON);
+
+        HttpEntity<Map<String, List<String>>> requestEntity = new HttpEntity<>(Map.of("prefixes", paths), headers);
+
+        guard.call("delete", () -> {
+            try {
+                restTemplate.exchange(
+                        deleteUrl,
+                        HttpMethod.DELETE,
+                        requestEntity,
+                        String.class);
+            } catch (RestClientException e) {
+                throw new IOException("Failed to delete " + paths.size() + " files from Supabase: " + e.getMessage(), e);
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public String publicUrl(String path) {
+        return String.format("%s/storage/v1/object/public/%s/%s",
+                supabaseUrl, bucketName, path);
+    }
+
+    @Override
+    public String pathOf(String publicUrl) {
+        String prefix = String.format("%s/storage/v1/object/public/%s/",
+                supabaseUrl, bucketName);
+        return publicUrl.startsWith(prefix) ? publicUrl.substring(prefix.length()) : null;
+    }
+
+    /**
+     * POST a body to Supabase storage, copying it straight into the request stream.
+     * A known length is sent as Content-Length, an unknown one (-1) with chunked transfer.
+     */
+    private void streamToSupabase(String uploadUrl, String contentType, long contentLength, InputStream body)
+            throws IOException {
+        try {
+            restTemplate.execute(uploadUrl, HttpMethod.POST, request -> {
+                HttpHeaders headers = request.getHeaders();
+                // No x-upsert: every upload gets a path of its own, so an existing object is never replaced
+                headers.set("Authorization", "Bearer " + serviceRoleKey);
+                if (contentType != null && !contentType.isEmpty()) {
+                    headers.setContentType(MediaType.parseMediaType(contentType));
+                } else {
+                    headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+                }
+                if (contentLength >= 0) {
+                    headers.setContentLength(contentLength);
+                }
+                // getBody() would buffer the whole request; a streaming body is written on send
+                if (request instanceof StreamingHttpOutputMessage streaming) {
+                    streaming.setBody(out -> copy(body, out));
+                } else {
+                    copy(body, request.getBody());
+                }
+            }, response -> {
+                if (!response.getStatusCode().is2xxSuccessful()) {
+                    String errorMsg = String.format("Failed to upload file to Supabase. Status: %s, Body: %s",
+                            response.getStatusCode(),
+                            StreamUtils.copyToString(response.getBody(), StandardCharsets.UTF_8));
+                    logger.error(errorMsg);
+                    throw new RuntimeException(errorMsg);
+                }
+                return null;
+            });
+        } catch (RestClientException e) {
+            String errorMsg = String.format("I/O error uploading file to Supabase. URL: %s, Error: %s",
+                    uploadUrl, e.getMessage());
+            logger.error(errorMsg, e);
+            throw new IOException(errorMsg, e);
+        }
+    }
+
+    private void copy(InputStream in, OutputStream out) throws IOException {
+        byte[] buffer = new byte[uploadBufferBytes];
+        int read;
+        while ((read = readSource(in, buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        out.flush();
+    }
+
+    /**
+     * Read the upload's own content. Its failures are the caller's, so they are kept apart from
+     * connection errors, which RestTemplate would report the same way and the guard counts.
+     */
+    private static int readSource(InputStream in, byte[] buffer) {
+        try {
+            return in.read(buffer);
+        } catch (IOException e) {
+            throw new SourceReadException(e);
+        }
+    }
+
+    /**
+     * Copy a download to a temp file. Nothing larger than {@link FileStorageService#MAX_FILE_SIZE}
+     * is stored on purpose, so one byte more is enough for a reader to tell the file is too large.
+     */
+    private void spool(InputStream in, Path target) throws IOException {
+        byte[] buffer = new byte[uploadBufferBytes];
+        long remaining = MAX_READ_BYTES;
+        try (OutputStream out = Files.newOutputStream(target)) {
+            int read;
+            while (remaining > 0 && (read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining))) != -1) {
+                out.write(buffer, 0, read);
+                remaining -= read;
+            }
+        }
+    }
+
+    private static class SourceReadException extends UncheckedIOException {
+
+        SourceReadException(IOException cause) {
+            super(cause);
+        }
+    }
+
+    /**
+     * Encode file path components for URL.
+     * Encodes each path segment separately to preserve slashes.
+     */
+    private String encodeFilePath(String filePath) {
+        if (filePath == null || filePath.isEmpty()) {
+            return filePath;
+        }
+        
+        // Split by '/' and encode each segment separately
+        String[] segments = filePath.split("/");
+        StringBuilder encoded = new StringBuilder();
+        
+        for (int i = 0; i < segments.length; i++) {
+            if (i > 0) {
+                encoded.append("/");
+            }
+            // Only encode if segment is not empty
+            if (!segments[i].isEmpty()) {
+                encoded.append(URLEncoder.encode(segments[i], StandardCharsets.UTF_8));
+            }
+        }
+        
+        return encoded.toString();
+    }
+}
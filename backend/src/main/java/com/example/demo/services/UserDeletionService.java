@@ -0,0 +1,248 @@
+package com.example.demo.services;
+
+import com.example.demo.models.User;
+import com.example.demo.models.UserDeletionJob;
+import com.example.demo.repositories.CommentRepository;
+import com.example.demo.repositories.LikeRepository;
+import com.example.demo.repositories.NotificationRepository;
+import com.example.demo.repositories.PostRepository;
+import com.example.demo.repositories.ReportCaseRepository;
+import com.example.demo.repositories.ReportRepository;
+import com.example.demo.repositories.SubscriptionRepository;
+import com.example.demo.repositories.UserDeletionJobRepository;
+import com.example.demo.repositories.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Deletes users and everything that references them as background jobs, so an admin request
+ * only records the job and returns.
+ * <p>
+ * A job walks the {@link Step}s in order. Each step deletes rows with set-based statements,
+ * at most {@code chunkSize} rows per transaction, and records its progress in the same
+ * transaction. Jobs are claimed with {@code FOR UPDATE SKIP LOCKED} plus a lease that every
+ * chunk extends; a job whose instance died comes back when the lease runs out and resumes at
+ * the step it was in. Failed jobs are retried with backoff up to {@code maxAttempts}.
+ */
+@Service
+public class UserDeletionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserDeletionService.class);
+    private static final int MAX_ERROR_LENGTH = 1024;
+
+    /**
+     * Cascade order: rows are deleted before anything they reference.
+     */
+    enum Step {
+        // Comments and likes the user wrote
+        COMMENTS,
+        LIKES,
+        // Other users' comments and likes on the user's posts
+        POST_COMMENTS,
+        POST_LIKES,
+        // Sent by or to the user
+        NOTIFICATIONS,
+        // Filed by or against the user; reports on their posts are unlinked when the post goes
+        REPORTS,
+        // Follows in either direction
+        SUBSCRIPTIONS,
+        // Tags go with each post; media references are released in the same transaction
+        POSTS,
+        // The avatar reference is released with the row
+        USER
+    }
+
+    @Value("${user.deletion.chunkSize:500}")
+    private int chunkSize;
+
+    @Value("${user.deletion.leaseSeconds:300}")
+    private double leaseSeconds;
+
+    @Value("${user.deletion.maxAttempts:10}")
+    private int maxAttempts;
+
+    @Value("${user.deletion.baseBackoffSeconds:30}")
+    private double baseBackoffSeconds;
+
+    @Value("${user.deletion.maxBackoffSeconds:3600}")
+    private double maxBackoffSeconds;
+
+    private final UserDeletionJobRepository userDeletionJobRepository;
+    private final UserRepository userRepository;
+    private final PostRepository postRepository;
+    private final CommentRepository commentRepository;
+    private final LikeRepository likeRepository;
+    private final NotificationRepository notificationRepository;
+    private final ReportRepository reportRepository;
+    private final ReportCaseRepository reportCaseRepository;
+    private final SubscriptionRepository subscriptionRepository;
+    private final FileStorageService fileStorageService;
+    private final CacheInvalidationService cacheInvalidationService;
+    private final TransactionTemplate transactionTemplate;
+
+    public UserDeletionService(UserDeletionJobRepository userDeletionJobRepository, UserRepository userRepository,
+            PostRepository postRepository, CommentRepository commentRepository, LikeRepository likeRepository,
+            NotificationRepository notificationRepository, ReportRepository reportRepository,
+            ReportCaseRepository reportCaseRepository, SubscriptionRepository subscriptionRepository,
+            FileStorageService fileStorageService, CacheInvalidationService cacheInvalidationService,
+            PlatformTransactionManager transactionManager) {
+        this.userDeletionJobRepository = userDeletionJobRepository;
+        this.userRepository = userRepository;
+        this.postRepository = postRepository;
+        this.commentRepository = commentRepository;
+        this.likeRepository = likeRepository;
+        this.notificationRepository = notificationRepository;
+        this.reportRepository = reportRepository;
+        this.reportCaseRepository = reportCaseRepository;
+        this.subscriptionRepository = subscriptionRepository;
+        this.fileStorageService = fileStorageService;
+        this.cacheInvalidationService = cacheInvalidationService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Queue the deletion of a user, or return the deletion already in progress.
+     */
+    @Transactional
+    public UserDeletionJob requestDeletion(User user, Long requestedBy) {
+        // Locked out at once, so they add nothing while their data is being deleted
+        user.setBanned(true);
+        user.setBanEnd(null);
+        userRepository.save(user);
+
+        userDeletionJobRepository.enqueue(user.getId(), requestedBy);
+        return userDeletionJobRepository.findFirstByUserIdOrderByIdDesc(user.getId()).orElseThrow();
+    }
+
+    public Optional<UserDeletionJob> findJob(Long jobId) {
+        return userDeletionJobRepository.findById(jobId);
+    }
+
+    @Scheduled(fixedDelayString = "${user.deletion.pollMs:5000}")
+    public void runDue() {
+        UserDeletionJob job;
+        while ((job = claim()) != null) {
+            run(job);
+        }
+    }
+
+    private UserDeletionJob claim() {
+        return transactionTemplate.execute(status -> {
+            List<UserDeletionJob> due = userDeletionJobRepository.lockDue(1);
+            if (due.isEmpty()) {
+                return null;
+            }
+            userDeletionJobRepository.lease(due.get(0).getId(), leaseSeconds);
+            return due.get(0);
+        });
+    }
+
+    private void run(UserDeletionJob job) {
+        Long jobId = job.getId();
+        Long userId = job.getUserId();
+        Step[] steps = Step.values();
+        int first = job.getStep() != null ? Step.valueOf(job.getStep()).ordinal() : 0;
+        Step current = steps[first];
+        try {
+            for (int i = first; i < steps.length; i++) {
+                Step step = steps[i];
+                current = step;
+                int deleted;
+                do {
+                    deleted = transactionTemplate.execute(status -> {
+                        int rows = deleteChunk(step, userId);
+                        userDeletionJobRepository.recordProgress(jobId, step.name(), rows, leaseSeconds);
+                        return rows;
+                    });
+                } while (deleted >= chunkSize);
+            }
+            userDeletionJobRepository.complete(jobId);
+            cacheInvalidationService.userContentChanged();
+            logger.info("Deleted user {} (job {})", userId, jobId);
+        } catch (DataIntegrityViolationException e) {
+            // Something referencing the user was added after its step had run; go through them all again
+            fail(jobId, userId, steps[0], e);
+        } catch (Exception e) {
+            fail(jobId, userId, current, e);
+        }
+    }
+
+    private int deleteChunk(Step step, Long userId) {
+        return switch (step) {
+            case COMMENTS -> commentRepository.deleteChunkByCreator(userId, chunkSize);
+            case LIKES -> likeRepository.deleteChunkByCreator(userId, chunkSize);
+            case POST_COMMENTS -> commentRepository.deleteChunkOnPostsOf(userId, chunkSize);
+            case POST_LIKES -> likeRepository.deleteChunkOnPostsOf(userId, chunkSize);
+            case NOTIFICATIONS -> notificationRepository.deleteChunkInvolving(userId, chunkSize);
+            case REPORTS -> deleteReportChunk(userId);
+            case SUBSCRIPTIONS -> subscriptionRepository.deleteChunkInvolving(userId, chunkSize);
+            case POSTS -> deletePostChunk(userId);
+            case USER -> deleteUserRow(userId);
+        };
+    }
+
+    // Other users' cases lose the reports this user filed; recount them so pending counts and
+    // auto-hiding only see the reports that are left
+    private int deleteReportChunk(Long userId) {
+        List<Long> caseIds = reportRepository.deleteChunkInvolving(userId, chunkSize);
+        Set<Long> affected = new HashSet<>(caseIds);
+        affected.remove(null);
+        if (!affected.isEmpty()) {
+            reportCaseRepository.recount(affected);
+        }
+        return caseIds.size();
+    }
+
+    private int deletePostChunk(Long userId) {
+        List<Long> ids = postRepository.findIdChunkByCreator(userId, chunkSize);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        // Comments and likes added to these posts since their steps ran
+        commentRepository.deleteByPostIds(ids);
+        likeRepository.deleteByPostIds(ids);
+
+        List<String> mediaUrls = new ArrayList<>();
+        for (Object[] urls : postRepository.findMediaFileUrls(ids)) {
+            for (Object url : urls) {
+                if (url != null) {
+                    mediaUrls.add((String) url);
+                }
+            }
+        }
+        int deleted = postRepository.deleteByIds(ids);
+        fileStorageService.releaseMultipleFiles(mediaUrls);
+        return deleted;
+    }
+
+    private int deleteUserRow(Long userId) {
+        Optional<User> user = userRepository.findById(userId);
+        if (user.isEmpty()) {
+            return 0;
+        }
+        int deleted = userRepository.deleteRowById(userId);
+        fileStorageService.releaseFileByUrl(user.get().getImage());
+        return deleted;
+    }
+
+    private void fail(Long jobId, Long userId, Step resumeAt, Exception e) {
+        logger.warn("Deleting user {} (job {}) failed, will retry from {}: {}", userId, jobId, resumeAt, e.getMessage());
+        String error = String.valueOf(e.getMessage());
+        userDeletionJobRepository.recordFailure(jobId, resumeAt.name(),
+                error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error,
+                maxAttempts, baseBackoffSeconds, maxBackoffSeconds);
+    }
+}
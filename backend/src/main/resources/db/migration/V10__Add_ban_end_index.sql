@@ -0,0 +1,3 @@
+-- Ban expiry looks up banned users by ban_end: the earliest upcoming end, and the bans that
+-- have ended. Only a handful of users are banned at any time, so the index stays tiny.
+CREATE INDEX IF NOT EXISTS idx_users_ban_end ON users (ban_end) WHERE banned;
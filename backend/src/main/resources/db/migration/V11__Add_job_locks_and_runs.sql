@@ -0,0 +1,25 @@
+-- Cluster-wide scheduling of background jobs. One row per job name: an instance runs the job
+-- only after claiming the row, when the job is due (next_run_at) and not held by another
+-- instance (locked_until, a lease in case the holder dies mid-run).
+CREATE TABLE IF NOT EXISTS job_locks (
+    name VARCHAR(100) PRIMARY KEY,
+    locked_by VARCHAR(255),
+    locked_until TIMESTAMP NOT NULL DEFAULT LOCALTIMESTAMP,
+    next_run_at TIMESTAMP NOT NULL DEFAULT LOCALTIMESTAMP,
+    last_run_at TIMESTAMP
+);
+
+-- One row per finished run, pruned by the job-run-retention job
+CREATE TABLE IF NOT EXISTS job_runs (
+    id BIGSERIAL PRIMARY KEY,
+    name VARCHAR(100) NOT NULL,
+    instance VARCHAR(255) NOT NULL,
+    started_at TIMESTAMP NOT NULL,
+    finished_at TIMESTAMP NOT NULL,
+    duration_ms BIGINT NOT NULL,
+    succeeded BOOLEAN NOT NULL,
+    error VARCHAR(1024)
+);
+
+CREATE INDEX IF NOT EXISTS idx_job_runs_name_started_at ON job_runs (name, started_at DESC);
+CREATE INDEX IF NOT EXISTS idx_job_runs_started_at ON job_runs (started_at);
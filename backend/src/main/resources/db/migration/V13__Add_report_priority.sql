@@ -0,0 +1,6 @@
+-- Moderation queue: pending reports are ranked by a stored priority, recomputed by
+-- ReportQueueService, and read in (priority, id) keyset order per status.
+ALTER TABLE reports ADD COLUMN IF NOT EXISTS priority INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE reports ADD COLUMN IF NOT EXISTS escalated BOOLEAN NOT NULL DEFAULT FALSE;
+
+CREATE INDEX IF NOT EXISTS idx_reports_queue ON reports (status, priority DESC, id DESC);
@@ -0,0 +1,42 @@
+-- Reports are grouped into one case per reported post or user, so moderators handle a target
+-- once however many times it was reported. Counters and a sample of distinct reasons are kept
+-- up to date as reports come in; cases go with their target.
+CREATE TABLE IF NOT EXISTS report_cases (
+    id BIGSERIAL PRIMARY KEY,
+    reported_post_id BIGINT REFERENCES posts(id) ON DELETE CASCADE,
+    reported_user_id BIGINT REFERENCES users(id) ON DELETE CASCADE,
+    status VARCHAR(16) NOT NULL DEFAULT 'OPEN',
+    report_count INTEGER NOT NULL DEFAULT 0,
+    pending_count INTEGER NOT NULL DEFAULT 0,
+    reason_sample TEXT[] NOT NULL DEFAULT '{}',
+    auto_hidden BOOLEAN NOT NULL DEFAULT FALSE,
+    first_reported_at TIMESTAMP NOT NULL DEFAULT LOCALTIMESTAMP,
+    last_reported_at TIMESTAMP NOT NULL DEFAULT LOCALTIMESTAMP,
+    closed_at TIMESTAMP,
+    CONSTRAINT chk_report_cases_one_target CHECK ((reported_post_id IS NULL) <> (reported_user_id IS NULL))
+);
+
+CREATE UNIQUE INDEX IF NOT EXISTS idx_report_cases_post ON report_cases (reported_post_id) WHERE reported_post_id IS NOT NULL;
+CREATE UNIQUE INDEX IF NOT EXISTS idx_report_cases_user ON report_cases (reported_user_id) WHERE reported_user_id IS NOT NULL;
+CREATE INDEX IF NOT EXISTS idx_report_cases_queue ON report_cases (status, pending_count DESC, id DESC);
+
+ALTER TABLE reports ADD COLUMN IF NOT EXISTS case_id BIGINT REFERENCES report_cases(id) ON DELETE SET NULL;
+CREATE INDEX IF NOT EXISTS idx_reports_case_id ON reports (case_id);
+
+-- Cases for the reports filed so far
+INSERT INTO report_cases (reported_post_id, reported_user_id, status, report_count, pending_count,
+        reason_sample, first_reported_at, last_reported_at)
+SELECT reported_post_id, reported_user_id,
+       CASE WHEN COUNT(*) FILTER (WHERE status = 'PENDING') > 0 THEN 'OPEN'
+            WHEN COUNT(*) FILTER (WHERE status = 'RESOLVED') > 0 THEN 'RESOLVED'
+            ELSE 'DISMISSED' END,
+       COUNT(*), COUNT(*) FILTER (WHERE status = 'PENDING'),
+       (ARRAY_AGG(DISTINCT reason))[1:5], MIN(created_at), MAX(created_at)
+FROM reports
+WHERE (reported_post_id IS NULL) <> (reported_user_id IS NULL)
+GROUP BY reported_post_id, reported_user_id;
+
+UPDATE reports r SET case_id = c.id FROM report_cases c
+WHERE r.case_id IS NULL AND r.reported_post_id = c.reported_post_id;
+UPDATE reports r SET case_id = c.id FROM report_cases c
+WHERE r.case_id IS NULL AND r.reported_user_id = c.reported_user_id;
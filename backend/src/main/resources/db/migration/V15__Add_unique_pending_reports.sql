@@ -0,0 +1,21 @@
+-- A reporter has at most one pending report per post or user. The application checks before
+-- saving, but two requests at once can both pass the check; these indexes let only one in.
+
+-- Keep the first of any pending duplicates filed so far
+DELETE FROM reports r USING reports k
+WHERE r.status = 'PENDING' AND k.status = 'PENDING' AND r.reporter_id = k.reporter_id
+  AND r.reported_post_id = k.reported_post_id AND k.id < r.id;
+DELETE FROM reports r USING reports k
+WHERE r.status = 'PENDING' AND k.status = 'PENDING' AND r.reporter_id = k.reporter_id
+  AND r.reported_user_id = k.reported_user_id AND k.id < r.id;
+
+-- and count their cases again; each still has the kept report pending
+UPDATE report_cases c SET report_count = n.total, pending_count = n.pending
+FROM (SELECT case_id, COUNT(*) AS total, COUNT(*) FILTER (WHERE status = 'PENDING') AS pending
+      FROM reports WHERE case_id IS NOT NULL GROUP BY case_id) n
+WHERE c.id = n.case_id AND (c.report_count <> n.total OR c.pending_count <> n.pending);
+
+CREATE UNIQUE INDEX IF NOT EXISTS idx_reports_pending_post ON reports (reporter_id, reported_post_id)
+    WHERE status = 'PENDING' AND reported_post_id IS NOT NULL;
+CREATE UNIQUE INDEX IF NOT EXISTS idx_reports_pending_user ON reports (reporter_id, reported_user_id)
+    WHERE status = 'PENDING' AND reported_user_id IS NOT NULL;
@@ -0,0 +1,5 @@
+-- Uploads whose URL no post or avatar uses yet. The first post or avatar to use the URL takes
+-- the upload's reference over; later ones take their own, so two posts sharing a file each
+-- hold a reference. Existing objects start fully claimed: a post using one already holds the
+-- reference its upload took.
+ALTER TABLE media_objects ADD COLUMN IF NOT EXISTS unclaimed_count INTEGER NOT NULL DEFAULT 0;
@@ -0,0 +1,15 @@
+-- Content-addressed media: one stored object per distinct file content (SHA-256),
+-- shared by every post and avatar that uploaded the same bytes.
+-- ref_count is the number of uploads still pointing at the object; it is deleted at zero.
+-- Files uploaded before this migration are not tracked here and are deleted as before.
+CREATE TABLE IF NOT EXISTS media_objects (
+    sha256 CHAR(64) PRIMARY KEY,
+    path VARCHAR(512) NOT NULL,
+    url VARCHAR(1024) NOT NULL,
+    content_type VARCHAR(255),
+    size_bytes BIGINT NOT NULL,
+    ref_count INTEGER NOT NULL DEFAULT 1,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE UNIQUE INDEX IF NOT EXISTS idx_media_objects_url ON media_objects (url);
@@ -0,0 +1,8 @@
+-- Resized variants of a post's image, filled in asynchronously after the post is saved.
+-- All NULL until then (and for videos and external image URLs); clients fall back to media_url.
+ALTER TABLE posts ADD COLUMN IF NOT EXISTS media_thumbnail_url VARCHAR(1024);
+ALTER TABLE posts ADD COLUMN IF NOT EXISTS media_medium_url VARCHAR(1024);
+ALTER TABLE posts ADD COLUMN IF NOT EXISTS media_srcset TEXT;
+ALTER TABLE posts ADD COLUMN IF NOT EXISTS media_width INTEGER;
+ALTER TABLE posts ADD COLUMN IF NOT EXISTS media_height INTEGER;
+ALTER TABLE posts ADD COLUMN IF NOT EXISTS media_blurhash VARCHAR(64);
@@ -0,0 +1,13 @@
+-- Outbox of stored files to delete. Rows are written in the same statement that drops the
+-- last reference to a file and removed by the background worker once storage confirms the
+-- deletion; failed attempts are retried with exponential backoff.
+CREATE TABLE IF NOT EXISTS media_deletions (
+    id BIGSERIAL PRIMARY KEY,
+    path VARCHAR(512) NOT NULL,
+    attempts INTEGER NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP NOT NULL DEFAULT LOCALTIMESTAMP,
+    last_error VARCHAR(1024),
+    created_at TIMESTAMP NOT NULL DEFAULT LOCALTIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_media_deletions_next_attempt ON media_deletions (next_attempt_at);
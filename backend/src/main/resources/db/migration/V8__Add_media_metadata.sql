@@ -0,0 +1,10 @@
+-- What a stored file actually is, detected from its leading bytes when it was uploaded:
+-- media_kind IMAGE or VIDEO (NULL for anything else), and an image's pixel size when its
+-- header gives it. content_type holds the detected type when there is one.
+ALTER TABLE media_objects ADD COLUMN IF NOT EXISTS media_kind VARCHAR(16);
+ALTER TABLE media_objects ADD COLUMN IF NOT EXISTS width INTEGER;
+ALTER TABLE media_objects ADD COLUMN IF NOT EXISTS height INTEGER;
+
+-- Copied onto the post when it is saved with a stored file, so feeds read it from the post row.
+ALTER TABLE posts ADD COLUMN IF NOT EXISTS media_content_type VARCHAR(255);
+ALTER TABLE posts ADD COLUMN IF NOT EXISTS media_size_bytes BIGINT;
@@ -0,0 +1,29 @@
+-- Background jobs deleting a user and everything that references them, a bounded chunk per
+-- transaction. step is the cascade step in progress; a job interrupted by a crash comes
+-- back when its lease (next_attempt_at) runs out and resumes from that step.
+CREATE TABLE IF NOT EXISTS user_deletion_jobs (
+    id BIGSERIAL PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    requested_by BIGINT,
+    status VARCHAR(16) NOT NULL DEFAULT 'PENDING',
+    step VARCHAR(32),
+    rows_deleted BIGINT NOT NULL DEFAULT 0,
+    attempts INTEGER NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP NOT NULL DEFAULT LOCALTIMESTAMP,
+    last_error VARCHAR(1024),
+    created_at TIMESTAMP NOT NULL DEFAULT LOCALTIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT LOCALTIMESTAMP,
+    completed_at TIMESTAMP
+);
+
+-- At most one unfinished job per user
+CREATE UNIQUE INDEX IF NOT EXISTS idx_user_deletion_jobs_active_user
+    ON user_deletion_jobs (user_id) WHERE status IN ('PENDING', 'RUNNING');
+CREATE INDEX IF NOT EXISTS idx_user_deletion_jobs_due
+    ON user_deletion_jobs (next_attempt_at) WHERE status IN ('PENDING', 'RUNNING');
+
+-- The chunked deletes find reports by reported user and notifications by creator, and
+-- deleting a post clears reports.reported_post_id; none of these had an index
+CREATE INDEX IF NOT EXISTS idx_reports_reported_user_id ON reports (reported_user_id);
+CREATE INDEX IF NOT EXISTS idx_reports_reported_post_id ON reports (reported_post_id);
+CREATE INDEX IF NOT EXISTS idx_notifications_creator_id ON notifications (creator_id);
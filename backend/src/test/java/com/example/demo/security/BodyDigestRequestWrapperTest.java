@@ -0,0 +1,77 @@
+package com.example.demo.security;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class BodyDigestRequestWrapperTest {
+
+    private static final byte[] BODY = "{\"title\":\"Hello\",\"content\":\"World\"}".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void matchingBodyIsReadableByTheHandler() throws IOException {
+        BodyDigestRequestWrapper checked = BodyDigestRequestWrapper.verify(request(BODY), sha256(BODY), 1024);
+
+        assertNotNull(checked);
+        assertArrayEquals(BODY, checked.getInputStream().readAllBytes());
+        assertEquals(BODY.length, checked.getContentLength());
+    }
+
+    @Test
+    void tamperedBodyIsRejectedBeforeAnyoneReadsIt() throws IOException {
+        byte[] tampered = "{\"title\":\"Hello\",\"content\":\"Worle\"}".getBytes(StandardCharsets.UTF_8);
+
+        assertNull(BodyDigestRequestWrapper.verify(request(tampered), sha256(BODY), 1024));
+    }
+
+    @Test
+    void trailingBytesAfterTheJsonValueAreChecked() throws IOException {
+        byte[] extended = (new String(BODY, StandardCharsets.UTF_8) + " {}").getBytes(StandardCharsets.UTF_8);
+
+        assertNull(BodyDigestRequestWrapper.verify(request(extended), sha256(BODY), 1024));
+    }
+
+    @Test
+    void bodyLargerThanTheSignedLimitIsRejected() throws IOException {
+        assertNull(BodyDigestRequestWrapper.verify(request(BODY), sha256(BODY), BODY.length - 1));
+    }
+
+    @Test
+    void parsesHexDigest() {
+        assertArrayEquals(sha256(BODY), BodyDigestRequestWrapper.parseDigest(hex(sha256(BODY)).toUpperCase()));
+        assertNull(BodyDigestRequestWrapper.parseDigest("abc"));
+        assertNull(BodyDigestRequestWrapper.parseDigest("z".repeat(64)));
+    }
+
+    private static MockHttpServletRequest request(byte[] body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/posts");
+        request.setContentType("application/json");
+        request.setContent(body);
+        return request;
+    }
+
+    private static byte[] sha256(byte[] data) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(data);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : bytes) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}
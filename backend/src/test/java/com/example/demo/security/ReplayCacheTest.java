@@ -0,0 +1,50 @@
+package com.example.demo.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReplayCacheTest {
+
+    @Test
+    void acceptsEachNonceOnce() {
+        ReplayCache cache = new ReplayCache(15_000, 100);
+
+        assertTrue(cache.markSeen("a"));
+        assertTrue(cache.markSeen("b"));
+        assertFalse(cache.markSeen("a"));
+    }
+
+    @Test
+    void remembersNoncesAcrossOneRotation() throws InterruptedException {
+        // Generations last twice the skew: 20ms here
+        ReplayCache cache = new ReplayCache(10, 100);
+        assertTrue(cache.markSeen("a"));
+
+        Thread.sleep(25);
+        assertFalse(cache.markSeen("a"));
+    }
+
+    @Test
+    void forgetsNoncesAfterTwoRotations() throws InterruptedException {
+        ReplayCache cache = new ReplayCache(10, 100);
+        assertTrue(cache.markSeen("a"));
+
+        Thread.sleep(25);
+        assertTrue(cache.markSeen("b"));
+        Thread.sleep(25);
+        assertTrue(cache.markSeen("c"));
+
+        assertTrue(cache.markSeen("a"));
+    }
+
+    @Test
+    void refusesNewNoncesWhenFull() {
+        ReplayCache cache = new ReplayCache(15_000, 2);
+
+        assertTrue(cache.markSeen("a"));
+        assertTrue(cache.markSeen("b"));
+        assertFalse(cache.markSeen("c"));
+    }
+}
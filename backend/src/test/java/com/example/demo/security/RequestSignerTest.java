@@ -0,0 +1,52 @@
+package com.example.demo.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The gateway's RequestSignerTest checks its copy of the signer against the same vectors,
+ * so a change to either copy that breaks compatibility fails on both sides.
+ */
+class RequestSignerTest {
+
+    static final String SECRET = "gateway-signing-secret-for-tests";
+    static final long TIMESTAMP = 1700000000000L;
+    static final String EMPTY_BODY = "e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855";
+
+    private final RequestSigner signer = new RequestSigner(SECRET);
+
+    @Test
+    void signsAsciiRequestLine() {
+        assertEquals("3a4671e3643d2162e241ac46b977f19a13c3b08cc6621bc2342e4efca9f36454",
+                signer.sign("GET", "/api/posts?page=1", TIMESTAMP, "3f2a9c1e-0b7d-4c55-9e21-6a1d2f3b4c5d",
+                        "UNSIGNED-PAYLOAD"));
+    }
+
+    @Test
+    void signsNonAsciiPathAsUtf8() {
+        assertEquals("9157b87a16fefbafa2818237d717ddaa1d5ec36c9b4f9d72f75cbda30c99eee8",
+                signer.sign("POST", "/api/posts/caf\u00e9", TIMESTAMP, "n-1", EMPTY_BODY));
+    }
+
+    @Test
+    void verifiesOwnSignatureOnly() {
+        String signature = signer.sign("DELETE", "/api/posts/7", TIMESTAMP, "n-2", EMPTY_BODY);
+
+        assertTrue(signer.verify("DELETE", "/api/posts/7", TIMESTAMP, "n-2", EMPTY_BODY, signature));
+        assertFalse(signer.verify("DELETE", "/api/posts/8", TIMESTAMP, "n-2", EMPTY_BODY, signature));
+        assertFalse(signer.verify("DELETE", "/api/posts/7", TIMESTAMP + 1, "n-2", EMPTY_BODY, signature));
+        assertFalse(signer.verify("DELETE", "/api/posts/7", TIMESTAMP, "n-2", EMPTY_BODY, "not-hex"));
+        assertFalse(signer.verify("DELETE", "/api/posts/7", TIMESTAMP, "n-2", EMPTY_BODY, null));
+    }
+
+    @Test
+    void growsBufferForLongPaths() {
+        String path = "/api/posts?tags=" + "a".repeat(1000);
+        String signature = signer.sign("GET", path, TIMESTAMP, "n-3", "UNSIGNED-PAYLOAD");
+
+        assertTrue(new RequestSigner(SECRET).verify("GET", path, TIMESTAMP, "n-3", "UNSIGNED-PAYLOAD", signature));
+    }
+}
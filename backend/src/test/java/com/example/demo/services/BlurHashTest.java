@@ -0,0 +1,53 @@
+package com.example.demo.services;
+
+import java.awt.image.BufferedImage;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Expected hashes come from a straight port of the reference TypeScript encoder.
+ */
+class BlurHashTest {
+
+    @Test
+    void encodesSolidImage() {
+        BufferedImage white = image((x, y) -> 0xffffff);
+
+        assertEquals("LDTSUA_3fQ_3~qoffQoffQfQfQfQ", BlurHash.encode(white, 4, 3));
+        assertEquals("00TSUA", BlurHash.encode(white, 1, 1));
+    }
+
+    @Test
+    void encodesHorizontalGradient() {
+        BufferedImage gradient = image((x, y) -> {
+            int v = x * 255 / 31;
+            return (v << 16) | (v << 8) | v;
+        });
+
+        assertEquals("L$HetW00xuWBofWBj[fQfQfQfQfQ", BlurHash.encode(gradient, 4, 3));
+    }
+
+    @Test
+    void hashLengthFollowsComponentCount() {
+        BufferedImage white = image((x, y) -> 0xffffff);
+
+        assertEquals(4 + 2 * 9 * 9, BlurHash.encode(white, 9, 9).length());
+    }
+
+    private static BufferedImage image(Pixel pixel) {
+        BufferedImage image = new BufferedImage(32, 24, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                image.setRGB(x, y, pixel.rgb(x, y));
+            }
+        }
+        return image;
+    }
+
+    @FunctionalInterface
+    private interface Pixel {
+        int rgb(int x, int y);
+    }
+}
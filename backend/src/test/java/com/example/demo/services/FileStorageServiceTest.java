@@ -0,0 +1,241 @@
+package com.example.demo.services;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Optional;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.demo.models.MediaObject;
+import com.example.demo.repositories.MediaDeletionRepository;
+import com.example.demo.repositories.MediaObjectRepository;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Direct uploads against {@link StubStorageServer}; the database side is mocked.
+ */
+class FileStorageServiceTest {
+
+    private final MediaObjectRepository mediaObjectRepository = mock(MediaObjectRepository.class);
+    private final MediaDeletionRepository mediaDeletionRepository = mock(MediaDeletionRepository.class);
+    private StubStorageServer server;
+    private SupabaseStorageBackend storage;
+    private FileStorageService service;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new StubStorageServer(true);
+        storage = server.backend();
+        service = new FileStorageService(storage, mediaObjectRepository, mediaDeletionRepository);
+        ReflectionTestUtils.setField(service, "directUploadTtlSeconds", 600L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    @Test
+    void directUploadIsStagedCheckedAndMoved() throws Exception {
+        byte[] png = png();
+        FileStorageService.DirectUpload upload = service.createDirectUpload(sha256(png), png.length, "image/png",
+                "photo.png", "uploads");
+        String stagingPath = "staging/" + upload.uploadId();
+        assertTrue(upload.upload().url().contains(stagingPath));
+        // Swept once the URL has expired, whatever happens to the upload
+        verify(mediaDeletionRepository).enqueueAfter(eq(stagingPath), anyDouble());
+
+        assertEquals(200, SupabaseStorageBackendTest.put(upload.upload(), png));
+        String url = service.completeDirectUpload(sha256(png), png.length, "image/png", upload.uploadId(),
+                "photo.png", "uploads");
+
+        String path = storage.pathOf(url);
+        assertTrue(path.startsWith("uploads/" + sha256(png) + "-"));
+        assertArrayEquals(png, server.object(path));
+        assertNull(server.object(stagingPath));
+        verify(mediaObjectRepository).insertOrAcquire(eq(sha256(png)), eq(path), eq(url), eq("image/png"),
+                eq("IMAGE"), eq(16), eq(8), eq((long) png.length));
+    }
+
+    @Test
+    void signedUrlCannotReplaceTheStoredFile() throws Exception {
+        byte[] png = png();
+        FileStorageService.DirectUpload upload = service.createDirectUpload(sha256(png), png.length, "image/png",
+                "photo.png", "uploads");
+        SupabaseStorageBackendTest.put(upload.upload(), png);
+        assertEquals(409, SupabaseStorageBackendTest.put(upload.upload(), new byte[png.length]));
+
+        String path = storage.pathOf(service.completeDirectUpload(sha256(png), png.length, "image/png",
+                upload.uploadId(), "photo.png", "uploads"));
+        SupabaseStorageBackendTest.put(upload.upload(), new byte[png.length]);
+
+        assertArrayEquals(png, server.object(path));
+    }
+
+    @Test
+    void mismatchedUploadIsRejectedAndQueuedForDeletion() throws Exception {
+        byte[] png = png();
+        FileStorageService.DirectUpload upload = service.createDirectUpload(sha256(png), png.length, "image/png",
+                "photo.png", "uploads");
+        byte[] tampered = png.clone();
+        tampered[tampered.length - 1] ^= 1;
+        SupabaseStorageBackendTest.put(upload.upload(), tampered);
+
+        assertThrows(IllegalArgumentException.class, () -> service.completeDirectUpload(sha256(png), png.length,
+                "image/png", upload.uploadId(), "photo.png", "uploads"));
+
+        verify(mediaDeletionRepository).enqueue("staging/" + upload.uploadId());
+        verify(mediaObjectRepository, never()).insertOrAcquire(anyString(), anyString(), anyString(), any(), any(),
+                any(), any(), anyLong());
+    }
+
+    @Test
+    void completionNeedsTheUploadId() {
+        byte[] png = new byte[] { 1 };
+        assertThrows(IllegalArgumentException.class, () -> service.completeDirectUpload(sha256(png), 1, "image/png",
+                "../uploads/someone-else", "photo.png", "uploads"));
+    }
+
+    @Test
+    void storesUnderTheDetectedTypeNotTheClientsName() throws IOException {
+        byte[] png = png();
+
+        String url = service.uploadBytes(png, "text/html", "page.html", "uploads");
+
+        assertTrue(url.endsWith(".png"));
+        verify(mediaObjectRepository).insertOrAcquire(anyString(), anyString(), eq(url), eq("image/png"),
+                eq("IMAGE"), eq(16), eq(8), eq((long) png.length));
+    }
+
+    @Test
+    void rejectsContentThatIsNotAnImageOrVideo() {
+        byte[] html = "<!DOCTYPE html><script>alert(1)</script>".getBytes(StandardCharsets.UTF_8);
+
+        assertThrows(IllegalArgumentException.class, () -> service.uploadBytes(html, "image/png", "a.png", "uploads"));
+        assertThrows(IllegalArgumentException.class, () -> service.createDirectUpload(sha256(html), html.length,
+                "text/html", "a.html", "uploads"));
+        assertEquals(0, server.receivedBytes());
+    }
+
+    @Test
+    void directUploadMustBeTheTypeItWasSignedFor() throws Exception {
+        byte[] png = png();
+        // Storage would serve the PUT's type, so a PNG declared as GIF is refused
+        FileStorageService.DirectUpload upload = service.createDirectUpload(sha256(png), png.length, "image/gif",
+                "photo.gif", "uploads");
+        SupabaseStorageBackendTest.put(upload.upload(), png);
+
+        assertThrows(IllegalArgumentException.class, () -> service.completeDirectUpload(sha256(png), png.length,
+                "image/gif", upload.uploadId(), "photo.gif", "uploads"));
+        verify(mediaDeletionRepository).enqueue("staging/" + upload.uploadId());
+    }
+
+    @Test
+    void postsSharingOneUrlEachHoldAReference() throws IOException {
+        MediaObject object = modelReferenceCounts();
+        String url = service.uploadBytes(png(), "image/png", "photo.png", "uploads");
+
+        // The first post takes the upload's reference over, the second takes its own
+        assertTrue(service.attach(url));
+        assertTrue(service.attach(url));
+        assertEquals(2, object.getRefCount());
+
+        // Deleting one post leaves the file to the other; deleting both lets it go
+        service.releaseFileByUrl(url);
+        assertEquals(1, object.getRefCount());
+        service.releaseFileByUrl(url);
+        assertEquals(0, object.getRefCount());
+    }
+
+    @Test
+    void attachingSomeoneElsesUploadLeavesTheirsReferenced() throws IOException {
+        MediaObject object = modelReferenceCounts();
+        String url = service.uploadBytes(png(), "image/png", "photo.png", "uploads");
+
+        // Another user's post gets to the URL before the uploader's own post does
+        service.attach(url);
+        service.attach(url);
+        service.releaseFileByUrl(url);
+
+        assertEquals(1, object.getRefCount());
+    }
+
+    @Test
+    void externalUrlsHoldNoReference() {
+        assertFalse(service.attach("https://example.com/photo.png"));
+        assertFalse(service.attach(null));
+    }
+
+    // Answers the reference count statements for a single object as the database would
+    private MediaObject modelReferenceCounts() {
+        MediaObject object = new MediaObject();
+        when(mediaObjectRepository.insertOrAcquire(anyString(), anyString(), anyString(), any(), any(), any(), any(),
+                anyLong())).thenAnswer(call -> {
+                    object.setSha256(call.getArgument(0));
+                    object.setUrl(call.getArgument(2));
+                    object.setRefCount(object.getRefCount() + 1);
+                    object.setUnclaimedCount(object.getUnclaimedCount() + 1);
+                    return 1;
+                });
+        when(mediaObjectRepository.findById(anyString()))
+                .thenAnswer(call -> Optional.of(object).filter(o -> call.getArgument(0).equals(o.getSha256())));
+        when(mediaObjectRepository.findByUrl(anyString()))
+                .thenAnswer(call -> Optional.of(object).filter(o -> call.getArgument(0).equals(o.getUrl())));
+        when(mediaObjectRepository.claimUpload(anyString())).thenAnswer(call -> {
+            if (!call.getArgument(0).equals(object.getUrl()) || object.getUnclaimedCount() == 0) {
+                return 0;
+            }
+            object.setUnclaimedCount(object.getUnclaimedCount() - 1);
+            return 1;
+        });
+        when(mediaObjectRepository.acquireByUrl(anyString())).thenAnswer(call -> {
+            if (!call.getArgument(0).equals(object.getUrl()) || object.getRefCount() == 0) {
+                return 0;
+            }
+            object.setRefCount(object.getRefCount() + 1);
+            return 1;
+        });
+        when(mediaObjectRepository.release(anyString())).thenAnswer(call -> {
+            if (object.getRefCount() == 0) {
+                return 0;
+            }
+            object.setRefCount(object.getRefCount() - 1);
+            return 1;
+        });
+        return object;
+    }
+
+    private static byte[] png() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(16, 8, BufferedImage.TYPE_INT_RGB), "png", out);
+        return out.toByteArray();
+    }
+
+    private static String sha256(byte[] content) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+    }
+}
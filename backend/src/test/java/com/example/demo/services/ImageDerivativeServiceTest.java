@@ -0,0 +1,103 @@
+package com.example.demo.services;
+
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Renders sample images generated in memory, so no storage or network is involved.
+ */
+class ImageDerivativeServiceTest {
+
+    private ImageDerivativeService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new ImageDerivativeService(null, null, null);
+        ReflectionTestUtils.setField(service, "thumbnailWidth", 320);
+        ReflectionTestUtils.setField(service, "mediumWidth", 1024);
+        ReflectionTestUtils.setField(service, "maxPixels", 40_000_000L);
+        ReflectionTestUtils.setField(service, "jpegQuality", 0.8f);
+    }
+
+    @Test
+    void rendersBothVariantsOfALargePhoto() throws IOException {
+        ImageDerivativeService.Derivatives derivatives = service.render(sample(3000, 2000, false, "jpeg"));
+
+        assertEquals(3000, derivatives.width());
+        assertEquals(2000, derivatives.height());
+        assertEquals("image/jpeg", derivatives.contentType());
+        assertSize(derivatives.thumbnail(), 320, 213);
+        assertSize(derivatives.medium(), 1024, 683);
+        assertEquals(28, derivatives.blurhash().length());
+    }
+
+    @Test
+    void keepsTransparencyAsPng() throws IOException {
+        ImageDerivativeService.Derivatives derivatives = service.render(sample(800, 600, true, "png"));
+
+        assertEquals("image/png", derivatives.contentType());
+        assertSize(derivatives.thumbnail(), 320, 240);
+        // Not wider than the medium variant: the original serves that size
+        assertNull(derivatives.medium());
+    }
+
+    @Test
+    void smallImagesOnlyGetAPlaceholder() throws IOException {
+        ImageDerivativeService.Derivatives derivatives = service.render(sample(200, 100, false, "png"));
+
+        assertNull(derivatives.thumbnail());
+        assertNull(derivatives.medium());
+        assertNotNull(derivatives.blurhash());
+    }
+
+    @Test
+    void skipsImagesOverThePixelLimit() throws IOException {
+        ReflectionTestUtils.setField(service, "maxPixels", 1_000_000L);
+
+        assertNull(service.render(sample(1200, 1000, false, "png")));
+    }
+
+    @Test
+    void skipsContentThatIsNotAnImage() throws IOException {
+        assertNull(service.render(new ByteArrayInputStream("not an image".getBytes())));
+    }
+
+    private static ByteArrayInputStream sample(int width, int height, boolean alpha, String format)
+            throws IOException {
+        BufferedImage image = new BufferedImage(width, height,
+                alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        try {
+            graphics.setPaint(new GradientPaint(0, 0, new Color(30, 90, 200, alpha ? 128 : 255),
+                    width, height, new Color(240, 180, 40)));
+            graphics.fillRect(0, 0, width, height);
+        } finally {
+            graphics.dispose();
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, format, out);
+        return new ByteArrayInputStream(out.toByteArray());
+    }
+
+    private static void assertSize(byte[] encoded, int width, int height) throws IOException {
+        assertNotNull(encoded);
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(encoded));
+        assertEquals(width, image.getWidth());
+        assertEquals(height, image.getHeight());
+    }
+}
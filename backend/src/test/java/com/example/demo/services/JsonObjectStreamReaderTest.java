@@ -0,0 +1,140 @@
+package com.example.demo.services;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class JsonObjectStreamReaderTest {
+
+    @Test
+    void readsFieldsInOrder() throws IOException {
+        JsonObjectStreamReader reader = reader("{\"filename\": \"a\\u00e9.png\", \"size\": 12, \"note\": null,"
+                + " \"base64Data\": \"iVBO\\/Rw==\"}");
+
+        assertEquals("filename", reader.nextField());
+        assertEquals("a\u00e9.png", reader.readString(100));
+        assertEquals("size", reader.nextField());
+        reader.skipValue();
+        assertEquals("note", reader.nextField());
+        assertNull(reader.readString(100));
+        assertEquals("base64Data", reader.nextField());
+        assertArrayEquals("iVBO/Rw==".getBytes(StandardCharsets.US_ASCII), reader.openString().readAllBytes());
+        assertNull(reader.nextField());
+    }
+
+    @Test
+    void skipsUnreadPartOfAnOpenedValue() throws IOException {
+        JsonObjectStreamReader reader = reader("{\"base64Data\": \"AAAA\", \"filename\": \"b.gif\"}");
+
+        assertEquals("base64Data", reader.nextField());
+        assertEquals('A', reader.openString().read());
+        assertEquals("filename", reader.nextField());
+        assertEquals("b.gif", reader.readString(100));
+    }
+
+    @Test
+    void malformedBodiesAreBadRequests() {
+        assertThrows(IllegalArgumentException.class, () -> drain("[1, 2]"));
+        assertThrows(IllegalArgumentException.class, () -> drain("{\"a\": \"b\" \"c\": \"d\"}"));
+        assertThrows(IllegalArgumentException.class, () -> drain("{\"a\": \"unterminated"));
+        assertThrows(IllegalArgumentException.class, () -> drain("{\"a\": {\"nested\": 1}}"));
+        assertThrows(IllegalArgumentException.class, () -> drain("{\"a\": \"\\x\"}"));
+        assertThrows(IllegalArgumentException.class, () -> drain("{\"a\": 1} trailing"));
+        assertThrows(IllegalArgumentException.class, () -> drain("{\"a\":"));
+    }
+
+    @Test
+    void rejectsOverlongStrings() throws IOException {
+        JsonObjectStreamReader reader = reader("{\"filename\": \"" + "x".repeat(200) + "\"}");
+
+        reader.nextField();
+        assertThrows(IllegalArgumentException.class, () -> reader.readString(100));
+    }
+
+    @Test
+    void skipsHugeValuesWithoutBufferingThem() throws IOException {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemoryEnabled());
+        long valueLength = 64L * 1024 * 1024;
+        JsonObjectStreamReader reader = new JsonObjectStreamReader(new GeneratedBody("{\"ignored\": \"", valueLength,
+                "\", \"filename\": \"c.png\"}"));
+
+        long before = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+        assertEquals("ignored", reader.nextField());
+        reader.skipValue();
+        assertEquals("filename", reader.nextField());
+        long allocated = threads.getThreadAllocatedBytes(Thread.currentThread().getId()) - before;
+
+        assertEquals("c.png", reader.readString(100));
+        assertTrue(allocated < 4 * 1024 * 1024, "skipping a 64 MB value allocated " + allocated + " bytes");
+    }
+
+    private static void drain(String json) throws IOException {
+        JsonObjectStreamReader reader = reader(json);
+        while (reader.nextField() != null) {
+            reader.skipValue();
+        }
+    }
+
+    private static JsonObjectStreamReader reader(String json) {
+        return new JsonObjectStreamReader(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * A JSON body with a long run of 'A's in the middle, produced as it is read.
+     */
+    static class GeneratedBody extends InputStream {
+
+        private final byte[] prefix;
+        private final byte[] suffix;
+        private final long total;
+        private final long fillerLength;
+        private long position;
+
+        GeneratedBody(String prefix, long fillerLength, String suffix) {
+            this.prefix = prefix.getBytes(StandardCharsets.UTF_8);
+            this.suffix = suffix.getBytes(StandardCharsets.UTF_8);
+            this.fillerLength = fillerLength;
+            this.total = this.prefix.length + fillerLength + this.suffix.length;
+        }
+
+        @Override
+        public int read() {
+            if (position >= total) {
+                return -1;
+            }
+            long i = position++;
+            if (i < prefix.length) {
+                return prefix[(int) i];
+            }
+            i -= prefix.length;
+            if (i < fillerLength) {
+                return 'A';
+            }
+            return suffix[(int) (i - fillerLength)];
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            if (position >= total) {
+                return -1;
+            }
+            int n = (int) Math.min(length, total - position);
+            for (int i = 0; i < n; i++) {
+                buffer[offset + i] = (byte) read();
+            }
+            return n;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.demo.services;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LocalStorageBackendTest {
+
+    private static final byte[] ORIGINAL = "original".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] REPLACEMENT = "replacement".getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    Path root;
+
+    private LocalStorageBackend storage;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        storage = new LocalStorageBackend();
+        ReflectionTestUtils.setField(storage, "rootPath", root.toString());
+        ReflectionTestUtils.setField(storage, "baseUrl", "http://localhost:8080/api/media/");
+        ReflectionTestUtils.setField(storage, "signingSecret", "local-signing-secret-for-tests");
+        storage.init();
+    }
+
+    @Test
+    void storeDoesNotReplaceAnExistingFile() throws IOException {
+        store("staging/a", ORIGINAL);
+
+        assertThrows(FileAlreadyExistsException.class, () -> store("staging/a", REPLACEMENT));
+        assertArrayEquals(ORIGINAL, Files.readAllBytes(root.resolve("staging/a")));
+        // The rejected upload's temp file is gone too
+        try (var files = Files.list(root.resolve("staging"))) {
+            assertTrue(files.allMatch(file -> file.getFileName().toString().equals("a")));
+        }
+    }
+
+    @Test
+    void movesWithoutReplacing() throws IOException {
+        store("staging/a", ORIGINAL);
+        store("uploads/taken.png", REPLACEMENT);
+
+        assertThrows(FileAlreadyExistsException.class, () -> storage.move("staging/a", "uploads/taken.png"));
+        assertArrayEquals(REPLACEMENT, Files.readAllBytes(root.resolve("uploads/taken.png")));
+
+        storage.move("staging/a", "uploads/a.png");
+        assertFalse(Files.exists(root.resolve("staging/a")));
+        assertArrayEquals(ORIGINAL, Files.readAllBytes(root.resolve("uploads/a.png")));
+    }
+
+    @Test
+    void signedUploadUrlIsBoundToItsPath() {
+        StorageBackend.SignedUpload upload = storage.signUpload("staging/a", "image/png", 100, Duration.ofMinutes(10));
+        String signature = upload.url().substring(upload.url().indexOf("&signature=") + "&signature=".length());
+        long expires = upload.expiresAt().getEpochSecond();
+
+        assertTrue(storage.verifyUpload("staging/a", "image/png", 100, expires, signature));
+        assertFalse(storage.verifyUpload("uploads/a.png", "image/png", 100, expires, signature));
+        assertFalse(storage.verifyUpload("staging/a", "image/png", 100, 1, signature));
+    }
+
+    private void store(String path, byte[] content) throws IOException {
+        storage.store(path, new ByteArrayInputStream(content), content.length, "application/octet-stream");
+    }
+}
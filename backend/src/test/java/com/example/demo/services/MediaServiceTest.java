@@ -0,0 +1,97 @@
+package com.example.demo.services;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MediaServiceTest {
+
+    private final FileStorageService fileStorageService = mock(FileStorageService.class);
+    private final MediaService mediaService = new MediaService(fileStorageService);
+    private long uploadedBytes;
+
+    @BeforeEach
+    void consumeUploads() throws IOException {
+        when(fileStorageService.uploadStream(any(), anyLong(), any(), any(), eq("uploads"))).thenAnswer(invocation -> {
+            uploadedBytes = invocation.getArgument(0, InputStream.class).transferTo(OutputStream.nullOutputStream());
+            return "https://storage.example/uploads/file.png";
+        });
+    }
+
+    @Test
+    void decodesBase64DataUrl() throws IOException {
+        String url = mediaService.uploadBase64(body("{\"filename\": \"a.png\", "
+                + "\"base64Data\": \"data:image/png;base64,aGVsbG8=\"}"), "uploads");
+
+        assertEquals("https://storage.example/uploads/file.png", url);
+        assertEquals(5, uploadedBytes);
+    }
+
+    @Test
+    void invalidBase64IsBadRequest() {
+        assertThrows(IllegalArgumentException.class, () -> mediaService.uploadBase64(
+                body("{\"filename\": \"a.png\", \"contentType\": \"image/png\", \"base64Data\": \"@@@@\"}"),
+                "uploads"));
+    }
+
+    @Test
+    void malformedJsonIsBadRequest() {
+        assertThrows(IllegalArgumentException.class, () -> mediaService.uploadBase64(
+                body("{\"filename\": \"a.png\", \"base64Data\": "), "uploads"));
+    }
+
+    @Test
+    void failingBodyStaysAnIOException() {
+        InputStream broken = new InputStream() {
+            private final InputStream start = body("{\"filename\": \"a.png\", \"contentType\": \"image/png\", "
+                    + "\"base64Data\": \"AAAA");
+
+            @Override
+            public int read() throws IOException {
+                int c = start.read();
+                if (c == -1) {
+                    throw new IOException("Connection reset");
+                }
+                return c;
+            }
+        };
+
+        assertThrows(IOException.class, () -> mediaService.uploadBase64(broken, "uploads"));
+    }
+
+    @Test
+    void decodesLargeUploadWithoutBufferingIt() throws IOException {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemoryEnabled());
+        long encodedLength = 8L * 1024 * 1024;
+        InputStream body = new JsonObjectStreamReaderTest.GeneratedBody(
+                "{\"filename\": \"big.png\", \"contentType\": \"image/png\", \"base64Data\": \"", encodedLength, "\"}");
+
+        long before = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+        mediaService.uploadBase64(body, "uploads");
+        long allocated = threads.getThreadAllocatedBytes(Thread.currentThread().getId()) - before;
+
+        assertEquals(encodedLength / 4 * 3, uploadedBytes);
+        assertTrue(allocated < 2 * 1024 * 1024, "decoding a 6 MB upload allocated " + allocated + " bytes");
+    }
+
+    private static InputStream body(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
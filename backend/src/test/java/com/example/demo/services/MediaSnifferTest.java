@@ -0,0 +1,135 @@
+package com.example.demo.services;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.models.MediaType;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Header fixtures for each detected format: real images written by ImageIO where it can write
+ * them, hand-built headers for the rest.
+ */
+class MediaSnifferTest {
+
+    @Test
+    void detectsPngWithItsSize() throws IOException {
+        assertSniffed(imageIo("png", 16, 8), MediaType.IMAGE, "image/png", 16, 8, ".png");
+    }
+
+    @Test
+    void detectsJpegWithItsSizeFromTheFrameHeader() throws IOException {
+        assertSniffed(imageIo("jpeg", 40, 30), MediaType.IMAGE, "image/jpeg", 40, 30, ".jpg");
+    }
+
+    @Test
+    void detectsGifWithItsSize() throws IOException {
+        assertSniffed(imageIo("gif", 5, 7), MediaType.IMAGE, "image/gif", 5, 7, ".gif");
+    }
+
+    @Test
+    void detectsLossyLosslessAndExtendedWebp() {
+        // VP8: 14-bit width and height after the frame tag and start code
+        assertSniffed(riff("WEBP", "VP8 ", 0x00, 0x00, 0x00, 0x9D, 0x01, 0x2A, 0x40, 0x01, 0xF0, 0x00),
+                MediaType.IMAGE, "image/webp", 320, 240, ".webp");
+        // VP8L: 0x2F, then width - 1 and height - 1 in 14 bits each: 100 x 50
+        assertSniffed(riff("WEBP", "VP8L", 0x2F, 0x63, 0x40, 0x0C, 0x00),
+                MediaType.IMAGE, "image/webp", 100, 50, ".webp");
+        // VP8X: flags, then 24-bit width - 1 and height - 1: 300 x 200
+        assertSniffed(riff("WEBP", "VP8X", 0x00, 0x00, 0x00, 0x00, 0x2B, 0x01, 0x00, 0xC7, 0x00, 0x00),
+                MediaType.IMAGE, "image/webp", 300, 200, ".webp");
+    }
+
+    @Test
+    void detectsVideoContainers() {
+        assertSniffed(ftyp("isom"), MediaType.VIDEO, "video/mp4", null, null, ".mp4");
+        assertSniffed(ftyp("qt  "), MediaType.VIDEO, "video/quicktime", null, null, ".mov");
+        assertSniffed(riff("AVI ", "LIST"), MediaType.VIDEO, "video/x-msvideo", null, null, ".avi");
+        assertSniffed(concat(bytes(0x1A, 0x45, 0xDF, 0xA3, 0x9F, 0x42, 0x82, 0x84), ascii("webm")),
+                MediaType.VIDEO, "video/webm", null, null, ".webm");
+        assertSniffed(concat(bytes(0x1A, 0x45, 0xDF, 0xA3, 0x9F, 0x42, 0x82, 0x88), ascii("matroska")),
+                MediaType.VIDEO, "video/x-matroska", null, null, ".mkv");
+    }
+
+    @Test
+    void detectsImagesInIsoContainers() {
+        assertSniffed(ftyp("avif"), MediaType.IMAGE, "image/avif", null, null, ".avif");
+        assertSniffed(ftyp("heic"), MediaType.IMAGE, "image/heic", null, null, ".heic");
+    }
+
+    @Test
+    void rejectsMarkupAndUnknownContent() {
+        assertNull(sniff(ascii("<!DOCTYPE html><html><script>alert(1)</script></html>")));
+        assertNull(sniff(ascii("<svg xmlns=\"http://www.w3.org/2000/svg\" onload=\"alert(1)\"/>")));
+        assertNull(sniff(ascii("%PDF-1.7")));
+        assertNull(sniff(riff("WAVE", "fmt ")));
+        assertNull(sniff(new byte[0]));
+        // A PNG signature cut short is not a PNG
+        assertNull(sniff(bytes(0x89, 'P', 'N', 'G')));
+    }
+
+    @Test
+    void captureSeesTheSameHeadAsTheWholeFile() throws IOException {
+        byte[] jpeg = imageIo("jpeg", 40, 30);
+        MediaSniffer.Capture capture = new MediaSniffer.Capture(new ByteArrayInputStream(jpeg));
+        capture.transferTo(OutputStream.nullOutputStream());
+
+        assertEquals(sniff(jpeg), capture.sniffed());
+    }
+
+    private static void assertSniffed(byte[] content, MediaType kind, String contentType, Integer width,
+            Integer height, String extension) {
+        MediaSniffer.Sniffed sniffed = sniff(content);
+        assertEquals(new MediaSniffer.Sniffed(kind, contentType, width, height), sniffed);
+        assertEquals(extension, sniffed.extension());
+    }
+
+    private static MediaSniffer.Sniffed sniff(byte[] content) {
+        return MediaSniffer.sniff(content, content.length);
+    }
+
+    private static byte[] imageIo(String format, int width, int height) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), format, out);
+        return out.toByteArray();
+    }
+
+    // RIFF header, form type, then one chunk with a zero size field followed by data
+    private static byte[] riff(String formType, String chunk, int... data) {
+        return concat(ascii("RIFF"), bytes(0, 0, 0, 0), ascii(formType), ascii(chunk), bytes(0, 0, 0, 0), bytes(data));
+    }
+
+    private static byte[] ftyp(String brand) {
+        return concat(bytes(0, 0, 0, 0x18), ascii("ftyp"), ascii(brand), bytes(0, 0, 0, 0));
+    }
+
+    private static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static byte[] bytes(int... values) {
+        byte[] bytes = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            bytes[i] = (byte) values[i];
+        }
+        return bytes;
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            out.writeBytes(part);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.demo.services;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.IIOException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StorageCallGuardTest {
+
+    private static final double CLOSED = 0;
+    private static final double OPEN = 1;
+    private static final double HALF_OPEN = 2;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger calls = new AtomicInteger();
+    // Kept reachable for the state gauge, which only holds a weak reference
+    private StorageCallGuard guard;
+
+    @Test
+    void opensOnceHalfTheWindowFailedAndThenRejectsWithoutCalling() throws IOException {
+        StorageCallGuard guard = guard(1, 60_000);
+
+        succeed(guard);
+        succeed(guard);
+        fail(guard, serverError());
+        assertEquals(CLOSED, state());
+        fail(guard, serverError());
+
+        assertEquals(OPEN, state());
+        IOException rejected = assertThrows(IOException.class, () -> succeed(guard));
+        assertTrue(rejected.getMessage().contains("circuit open"));
+        assertEquals(4, calls.get());
+    }
+
+    @Test
+    void onlyTransportErrorsServerErrorsAndThrottlingCount() {
+        assertTrue(StorageCallGuard.isStoreFailure(serverError()));
+        assertTrue(StorageCallGuard.isStoreFailure(new IOException("wrapped",
+                HttpClientErrorException.create(HttpStatus.TOO_MANY_REQUESTS, "Too Many Requests", null, null, null))));
+        assertTrue(StorageCallGuard.isStoreFailure(new IOException("wrapped",
+                new ResourceAccessException("Connection reset"))));
+
+        assertFalse(StorageCallGuard.isStoreFailure(new IOException("wrapped",
+                HttpClientErrorException.create(HttpStatus.NOT_FOUND, "Not Found", null, null, null))));
+        assertFalse(StorageCallGuard.isStoreFailure(new IIOException("Unsupported image type")));
+        assertFalse(StorageCallGuard.isStoreFailure(new IllegalArgumentException("Uploaded file does not match")));
+    }
+
+    @Test
+    void callerErrorsNeverOpenTheBreaker() {
+        StorageCallGuard guard = guard(1, 60_000);
+
+        for (int i = 0; i < 10; i++) {
+            fail(guard, new IIOException("Unsupported image type"));
+            fail(guard, new IOException("wrapped",
+                    HttpClientErrorException.create(HttpStatus.NOT_FOUND, "Not Found", null, null, null)));
+        }
+
+        assertEquals(CLOSED, state());
+    }
+
+    @Test
+    void halfOpenClosesAfterEnoughTrialSuccesses() throws IOException {
+        StorageCallGuard guard = guard(1, 0);
+        openBreaker(guard);
+
+        // openMs is 0, so the next call is a trial
+        succeed(guard);
+        assertEquals(HALF_OPEN, state());
+        succeed(guard);
+
+        assertEquals(CLOSED, state());
+    }
+
+    @Test
+    void halfOpenReopensOnAFailedTrial() throws IOException {
+        StorageCallGuard guard = guard(1, 0);
+        openBreaker(guard);
+
+        succeed(guard);
+        fail(guard, serverError());
+
+        assertEquals(OPEN, state());
+    }
+
+    @Test
+    void bulkheadRejectsCallsBeyondTheLimitWithoutCountingThem() throws Exception {
+        StorageCallGuard guard = guard(1, 60_000);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Object> blocking = executor.submit(() -> guard.call("read", () -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new InterruptedIOException();
+                }
+                return null;
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            for (int i = 0; i < 10; i++) {
+                IOException busy = assertThrows(IOException.class, () -> succeed(guard));
+                assertTrue(busy.getMessage().contains("busy"));
+            }
+            release.countDown();
+            blocking.get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(CLOSED, state());
+        succeed(guard);
+    }
+
+    // Window of 4, opening at 50% failures once all 4 are in, closing after 2 trial successes
+    private StorageCallGuard guard(int maxConcurrent, long openMs) {
+        guard = new StorageCallGuard(meterRegistry, maxConcurrent, 10, 4, 4, 50, openMs, 2);
+        return guard;
+    }
+
+    private void openBreaker(StorageCallGuard guard) {
+        for (int i = 0; i < 4; i++) {
+            fail(guard, serverError());
+        }
+        assertEquals(OPEN, state());
+    }
+
+    private void succeed(StorageCallGuard guard) throws IOException {
+        guard.call("read", () -> calls.incrementAndGet());
+    }
+
+    private void fail(StorageCallGuard guard, Exception failure) {
+        assertThrows(failure.getClass(), () -> guard.call("read", () -> {
+            calls.incrementAndGet();
+            if (failure instanceof IOException io) {
+                throw io;
+            }
+            throw (RuntimeException) failure;
+        }));
+    }
+
+    private double state() {
+        return meterRegistry.get("storage.client.circuit.state").gauge().value();
+    }
+
+    private static Exception serverError() {
+        return new IOException("wrapped",
+                HttpServerErrorException.create(HttpStatus.SERVICE_UNAVAILABLE, "Service Unavailable", null, null, null));
+    }
+}
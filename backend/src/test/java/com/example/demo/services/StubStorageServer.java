@@ -0,0 +1,243 @@
+package com.example.demo.services;
+
+import com.example.demo.config.RestTemplateConfig;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.core5.io.CloseMode;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process stand-in for the part of the Supabase storage API that {@link SupabaseStorageBackend}
+ * uses: upload, signed upload, move, download and bulk delete in one bucket. Like Supabase it
+ * refuses to overwrite an object unless the request sends {@code x-upsert: true}.
+ * <p>
+ * With {@code keepBodies} off it only counts uploaded bytes, for load tests that would not fit
+ * in memory. {@link #failNext} makes it answer with an error status, to test how callers take
+ * a failing store.
+ */
+class StubStorageServer implements AutoCloseable {
+
+    static final String BUCKET = "media";
+    static final String SERVICE_KEY = "service-role-key-for-tests";
+
+    private static final String OBJECT = "/storage/v1/object/";
+    private static final String SIGN = OBJECT + "upload/sign/";
+    private static final String MOVE = OBJECT + "move";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+    private final Map<String, SignedKey> uploadTokens = new ConcurrentHashMap<>();
+    private final AtomicLong receivedBytes = new AtomicLong();
+    private final AtomicInteger failures = new AtomicInteger();
+    private volatile int failureStatus;
+    private final List<CloseableHttpClient> clients = new CopyOnWriteArrayList<>();
+    private final boolean keepBodies;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final HttpServer server;
+
+    StubStorageServer(boolean keepBodies) throws IOException {
+        this.keepBodies = keepBodies;
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 256);
+        server.createContext("/storage/v1/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /**
+     * A backend talking to this server through the same pooled client as in production,
+     * with room for 128 concurrent calls.
+     */
+    SupabaseStorageBackend backend() {
+        return backend(new StorageCallGuard(new SimpleMeterRegistry(), 128, 500, 20, 10, 50, 30_000, 3));
+    }
+
+    SupabaseStorageBackend backend(StorageCallGuard guard) {
+        RestTemplateConfig config = new RestTemplateConfig();
+        CloseableHttpClient client = config.storageHttpClient(new SimpleMeterRegistry(), 128, 2000, 30_000, 2000);
+        clients.add(client);
+        SupabaseStorageBackend backend = new SupabaseStorageBackend(config.storageRestTemplate(client), guard);
+        ReflectionTestUtils.setField(backend, "supabaseUrl", url());
+        ReflectionTestUtils.setField(backend, "serviceRoleKey", SERVICE_KEY);
+        ReflectionTestUtils.setField(backend, "bucketName", BUCKET);
+        ReflectionTestUtils.setField(backend, "uploadBufferBytes", 65536);
+        return backend;
+    }
+
+    byte[] object(String path) {
+        return objects.get(path);
+    }
+
+    void putObject(String path, byte[] content) {
+        objects.put(path, content);
+    }
+
+    long receivedBytes() {
+        return receivedBytes.get();
+    }
+
+    /**
+     * Answer the next requests with this status instead of handling them.
+     */
+    void failNext(int requests, int status) {
+        failures.set(requests);
+        failureStatus = status;
+    }
+
+    @Override
+    public void close() {
+        clients.forEach(client -> client.close(CloseMode.IMMEDIATE));
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String method = exchange.getRequestMethod();
+            String path = URLDecoder.decode(exchange.getRequestURI().getRawPath(), StandardCharsets.UTF_8);
+            if (failures.getAndUpdate(left -> Math.max(0, left - 1)) > 0) {
+                drain(exchange.getRequestBody());
+                respond(exchange, failureStatus, Map.of("error", "injected"));
+                return;
+            }
+            if (path.startsWith(SIGN)) {
+                String key = key(path.substring(SIGN.length()));
+                if ("POST".equals(method) && authorized(exchange)) {
+                    String token = UUID.randomUUID().toString();
+                    // As in Supabase, whether the URL may overwrite is fixed when it is signed
+                    uploadTokens.put(token, new SignedKey(key, upsert(exchange)));
+                    respond(exchange, 200, Map.of("url",
+                            "/object/upload/sign/" + BUCKET + "/" + key + "?token=" + token));
+                    return;
+                }
+                SignedKey signed = uploadTokens.get(String.valueOf(query(exchange, "token")));
+                if ("PUT".equals(method) && signed != null && signed.key().equals(key)) {
+                    store(exchange, key, signed.upsert());
+                } else {
+                    respond(exchange, 403, Map.of("error", "Unauthorized"));
+                }
+            } else if (!authorized(exchange)) {
+                respond(exchange, 403, Map.of("error", "Unauthorized"));
+            } else if (path.equals(MOVE) && "POST".equals(method)) {
+                move(exchange);
+            } else if (path.equals(OBJECT + BUCKET) && "DELETE".equals(method)) {
+                JsonNode body = objectMapper.readTree(exchange.getRequestBody());
+                body.get("prefixes").forEach(prefix -> objects.remove(prefix.asText()));
+                respond(exchange, 200, Map.of());
+            } else if (path.startsWith(OBJECT) && "POST".equals(method)) {
+                store(exchange, key(path.substring(OBJECT.length())), upsert(exchange));
+            } else if (path.startsWith(OBJECT) && "GET".equals(method)) {
+                byte[] content = objects.get(key(path.substring(OBJECT.length())));
+                if (content == null) {
+                    respond(exchange, 404, Map.of("error", "not_found", "message", "Object not found"));
+                    return;
+                }
+                exchange.sendResponseHeaders(200, content.length);
+                exchange.getResponseBody().write(content);
+            } else {
+                respond(exchange, 404, Map.of("error", "not_found"));
+            }
+        }
+    }
+
+    private void store(HttpExchange exchange, String key, boolean upsert) throws IOException {
+        if (!upsert && objects.containsKey(key)) {
+            drain(exchange.getRequestBody());
+            respond(exchange, 409, Map.of("error", "Duplicate", "message", "The resource already exists"));
+            return;
+        }
+        byte[] content;
+        if (keepBodies) {
+            content = exchange.getRequestBody().readAllBytes();
+            receivedBytes.addAndGet(content.length);
+        } else {
+            receivedBytes.addAndGet(drain(exchange.getRequestBody()));
+            content = new byte[0];
+        }
+        if (upsert) {
+            objects.put(key, content);
+        } else if (objects.putIfAbsent(key, content) != null) {
+            respond(exchange, 409, Map.of("error", "Duplicate", "message", "The resource already exists"));
+            return;
+        }
+        respond(exchange, 200, Map.of("Key", BUCKET + "/" + key));
+    }
+
+    private void move(HttpExchange exchange) throws IOException {
+        JsonNode body = objectMapper.readTree(exchange.getRequestBody());
+        String from = body.get("sourceKey").asText();
+        String to = body.get("destinationKey").asText();
+        byte[] content = objects.get(from);
+        if (content == null) {
+            respond(exchange, 404, Map.of("error", "not_found", "message", "Object not found"));
+        } else if (objects.putIfAbsent(to, content) != null) {
+            respond(exchange, 409, Map.of("error", "Duplicate", "message", "The resource already exists"));
+        } else {
+            objects.remove(from);
+            respond(exchange, 200, Map.of("message", "Successfully moved"));
+        }
+    }
+
+    private static String key(String bucketAndKey) {
+        return bucketAndKey.startsWith(BUCKET + "/") ? bucketAndKey.substring(BUCKET.length() + 1) : "";
+    }
+
+    private static boolean upsert(HttpExchange exchange) {
+        return "true".equals(exchange.getRequestHeaders().getFirst("x-upsert"));
+    }
+
+    private static boolean authorized(HttpExchange exchange) {
+        return ("Bearer " + SERVICE_KEY).equals(exchange.getRequestHeaders().getFirst("Authorization"));
+    }
+
+    private static String query(HttpExchange exchange, String name) {
+        String query = exchange.getRequestURI().getQuery();
+        if (query != null) {
+            for (String pair : query.split("&")) {
+                if (pair.startsWith(name + "=")) {
+                    return pair.substring(name.length() + 1);
+                }
+            }
+        }
+        return null;
+    }
+
+    private static long drain(InputStream in) throws IOException {
+        return in.transferTo(OutputStream.nullOutputStream());
+    }
+
+    private void respond(HttpExchange exchange, int status, Map<String, ?> body) throws IOException {
+        ByteArrayOutputStream json = new ByteArrayOutputStream();
+        objectMapper.writeValue(json, body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, json.size());
+        json.writeTo(exchange.getResponseBody());
+    }
+
+    private record SignedKey(String key, boolean upsert) {
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.demo.services;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.imageio.IIOException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Runs the backend against {@link StubStorageServer}, so requests go over real HTTP through
+ * the production client without a Supabase project.
+ */
+class SupabaseStorageBackendTest {
+
+    private static final byte[] ORIGINAL = "original".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] REPLACEMENT = "replacement".getBytes(StandardCharsets.UTF_8);
+    private static final int UPLOADS = 100;
+    private static final long UPLOAD_BYTES = 10 * 1024 * 1024;
+
+    private StubStorageServer server;
+    private SupabaseStorageBackend storage;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new StubStorageServer(true);
+        storage = server.backend();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    @Test
+    void storesAndReadsBack() throws IOException {
+        String url = storage.store("uploads/a.txt", new ByteArrayInputStream(ORIGINAL), ORIGINAL.length, "text/plain");
+
+        assertEquals("uploads/a.txt", storage.pathOf(url));
+        assertArrayEquals(ORIGINAL, storage.read("uploads/a.txt", content -> content.readAllBytes()));
+    }
+
+    @Test
+    void storeDoesNotReplaceAnExistingObject() throws IOException {
+        server.putObject("uploads/a.txt", ORIGINAL);
+
+        assertThrows(IOException.class, () -> storage.store("uploads/a.txt",
+                new ByteArrayInputStream(REPLACEMENT), REPLACEMENT.length, "text/plain"));
+        assertArrayEquals(ORIGINAL, server.object("uploads/a.txt"));
+    }
+
+    @Test
+    void signedUploadCannotReplaceAnExistingObject() throws Exception {
+        StorageBackend.SignedUpload upload = storage.signUpload("staging/a", "text/plain", 100, Duration.ofMinutes(10));
+
+        assertEquals(200, put(upload, ORIGINAL));
+        assertEquals(409, put(upload, REPLACEMENT));
+        assertArrayEquals(ORIGINAL, server.object("staging/a"));
+    }
+
+    @Test
+    void movesWithoutReplacing() throws IOException {
+        server.putObject("staging/a", ORIGINAL);
+        server.putObject("uploads/taken.txt", REPLACEMENT);
+
+        assertThrows(IOException.class, () -> storage.move("staging/a", "uploads/taken.txt"));
+        assertArrayEquals(REPLACEMENT, server.object("uploads/taken.txt"));
+
+        storage.move("staging/a", "uploads/a.txt");
+        assertNull(server.object("staging/a"));
+        assertArrayEquals(ORIGINAL, server.object("uploads/a.txt"));
+    }
+
+    @Test
+    void deletesInBulk() throws IOException {
+        server.putObject("uploads/a.txt", ORIGINAL);
+        server.putObject("uploads/b.txt", ORIGINAL);
+
+        storage.deleteAll(List.of("uploads/a.txt", "uploads/b.txt", "uploads/missing.txt"));
+
+        assertNull(server.object("uploads/a.txt"));
+        assertNull(server.object("uploads/b.txt"));
+    }
+
+    @Test
+    void readerErrorsDoNotCountAgainstStorage() throws IOException {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        StorageCallGuard guard = new StorageCallGuard(meterRegistry, 4, 500, 2, 2, 50, 60_000, 1);
+        SupabaseStorageBackend backend = server.backend(guard);
+        server.putObject("uploads/a.png", ORIGINAL);
+
+        for (int i = 0; i < 5; i++) {
+            assertThrows(IIOException.class, () -> backend.read("uploads/a.png", content -> {
+                throw new IIOException("Unsupported image type");
+            }));
+        }
+
+        assertEquals(0, meterRegistry.get("storage.client.circuit.state").gauge().value());
+        assertArrayEquals(ORIGINAL, backend.read("uploads/a.png", content -> content.readAllBytes()));
+    }
+
+    @Test
+    void serverErrorsAndThrottlingOpenTheBreaker() throws IOException {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        StorageCallGuard guard = new StorageCallGuard(meterRegistry, 4, 500, 2, 2, 50, 60_000, 1);
+        SupabaseStorageBackend backend = server.backend(guard);
+        server.putObject("uploads/a.png", ORIGINAL);
+
+        // The HTTP client retries a GET once on 503 and 429, so each read fails twice
+        server.failNext(2, 503);
+        assertThrows(IOException.class, () -> backend.read("uploads/a.png", content -> content.readAllBytes()));
+        server.failNext(2, 429);
+        assertThrows(IOException.class, () -> backend.read("uploads/a.png", content -> content.readAllBytes()));
+
+        assertEquals(1, meterRegistry.get("storage.client.circuit.state").gauge().value());
+        IOException rejected = assertThrows(IOException.class,
+                () -> backend.read("uploads/a.png", content -> content.readAllBytes()));
+        assertTrue(rejected.getMessage().contains("circuit open"));
+    }
+
+    @Test
+    void concurrentUploadsEachAllocateOnlyAFixedBuffer() throws Exception {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemoryEnabled());
+
+        try (StubStorageServer counting = new StubStorageServer(false)) {
+            SupabaseStorageBackend backend = counting.backend();
+            // Registers the meters and opens the pool, which are one-off costs
+            backend.store("uploads/warmup", new ByteArrayInputStream(ORIGINAL), ORIGINAL.length, "text/plain");
+
+            ExecutorService uploaders = Executors.newFixedThreadPool(UPLOADS);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Long>> allocations = new ArrayList<>();
+            for (int i = 0; i < UPLOADS; i++) {
+                String path = "uploads/" + i;
+                // Half with Content-Length, half chunked
+                long length = i % 2 == 0 ? UPLOAD_BYTES : -1;
+                allocations.add(uploaders.submit(() -> {
+                    InputStream body = new JsonObjectStreamReaderTest.GeneratedBody("", UPLOAD_BYTES, "");
+                    start.await();
+                    long before = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+                    backend.store(path, body, length, "application/octet-stream");
+                    return threads.getThreadAllocatedBytes(Thread.currentThread().getId()) - before;
+                }));
+            }
+            start.countDown();
+            long maxAllocated = 0;
+            for (Future<Long> allocated : allocations) {
+                maxAllocated = Math.max(maxAllocated, allocated.get(2, TimeUnit.MINUTES));
+            }
+            uploaders.shutdown();
+
+            assertEquals(UPLOADS * UPLOAD_BYTES + ORIGINAL.length, counting.receivedBytes());
+            // A buffered upload would allocate at least its 10 MB body
+            assertTrue(maxAllocated < 2 * 1024 * 1024, "a 10 MB upload allocated " + maxAllocated + " bytes");
+        }
+    }
+
+    static int put(StorageBackend.SignedUpload upload, byte[] body) throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(upload.url()))
+                .PUT(HttpRequest.BodyPublishers.ofByteArray(body));
+        upload.headers().forEach(request::header);
+        return HttpClient.newHttpClient().send(request.build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
@@ -0,0 +1,252 @@
+package com.example.gateway.config;
+
+import com.example.gateway.exception.GatewayOverloadedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Adaptive limit on the number of requests in flight to the backend.
+ * <p>
+ * The limit follows a latency gradient: while response times stay within {@code rttTolerance}
+ * of their long-term average the limit grows by about sqrt(limit), when they rise above it the
+ * limit shrinks proportionally, and backend errors or timeouts cut it by 10%.
+ * Requests over the limit wait in per-{@link RequestPriority} queues and are admitted highest
+ * priority first; a full queue or a wait over {@code queueTimeoutMs} fails fast with
+ * {@link GatewayOverloadedException}.
+ */
+@Component
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double LONG_RTT_WEIGHT = 0.05;
+    private static final double ERROR_BACKOFF = 0.9;
+
+    @Value("${ratelimit.concurrency.enabled:true}")
+    private boolean enabled;
+
+    @Value("${ratelimit.concurrency.initialLimit:20}")
+    private int initialLimit;
+
+    @Value("${ratelimit.concurrency.minLimit:5}")
+    private int minLimit;
+
+    @Value("${ratelimit.concurrency.maxLimit:200}")
+    private int maxLimit;
+
+    // How far latency may rise above its long-term average before the limit shrinks
+    @Value("${ratelimit.concurrency.rttTolerance:1.5}")
+    private double rttTolerance;
+
+    @Value("${ratelimit.concurrency.smoothing:0.2}")
+    private double smoothing;
+
+    @Value("${ratelimit.concurrency.maxQueue:100}")
+    private int maxQueue;
+
+    @Value("${ratelimit.concurrency.queueTimeoutMs:1000}")
+    private long queueTimeoutMs;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger queued = new AtomicInteger();
+    // One FIFO queue per priority, indexed by ordinal; guarded by itself
+    private final List<Queue<Waiter>> queues = new ArrayList<>();
+    private final Counter rejectedCounter;
+    private volatile double limit;
+    private volatile double longRttNanos;
+
+    public AdaptiveConcurrencyLimiter(MeterRegistry meterRegistry) {
+        for (int i = 0; i < RequestPriority.values().length; i++) {
+            queues.add(new ArrayDeque<>());
+        }
+        meterRegistry.gauge("gateway.concurrency.limit", this, AdaptiveConcurrencyLimiter::getLimit);
+        meterRegistry.gauge("gateway.concurrency.inflight", inFlight);
+        meterRegistry.gauge("gateway.concurrency.queued", queued);
+        this.rejectedCounter = Counter.builder("gateway.concurrency.rejected")
+                .description("Requests rejected with 503 because the backend was saturated")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void init() {
+        limit = initialLimit;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public double getLimit() {
+        return limit;
+    }
+
+    /**
+     * Completes once the request may be sent to the backend; the caller must then call
+     * {@link #release} or {@link #releaseUnused} exactly once.
+     */
+    public Mono<Void> acquire(RequestPriority priority) {
+        if (queued.get() == 0 && tryIncrement()) {
+            return Mono.empty();
+        }
+
+        Waiter waiter = new Waiter();
+        synchronized (queues) {
+            if (queued.get() >= maxQueue) {
+                return reject();
+            }
+            queues.get(priority.ordinal()).add(waiter);
+            queued.incrementAndGet();
+        }
+        // A slot may have been released while this request was being queued
+        drain();
+
+        return waiter.sink.asMono()
+                .timeout(Duration.ofMillis(queueTimeoutMs),
+                        Mono.defer(() -> abandon(waiter, priority) ? reject() : Mono.<Void>empty()))
+                .doOnCancel(() -> {
+                    // Client went away; hand the slot back if it was granted in the meantime
+                    if (!abandon(waiter, priority)) {
+                        releaseUnused();
+                    }
+                });
+    }
+
+    /**
+     * Take a waiter out of its queue, unless it has already been granted a slot.
+     */
+    private boolean abandon(Waiter waiter, RequestPriority priority) {
+        if (!waiter.cancel()) {
+            return false;
+        }
+        synchronized (queues) {
+            if (queues.get(priority.ordinal()).remove(waiter)) {
+                queued.decrementAndGet();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Release a slot and feed the observed backend latency into the limit.
+     *
+     * @param rttNanos time from admission to completion
+     * @param dropped  whether the backend failed, timed out or reported overload
+     */
+    public void release(long rttNanos, boolean dropped) {
+        int inFlightAtRelease = inFlight.getAndDecrement();
+        updateLimit(rttNanos, inFlightAtRelease, dropped);
+        drain();
+    }
+
+    /**
+     * Release a slot without a latency sample, e.g. when the client cancelled the request.
+     */
+    public void releaseUnused() {
+        inFlight.decrementAndGet();
+        drain();
+    }
+
+    private synchronized void updateLimit(long rttNanos, int inFlightAtRelease, boolean dropped) {
+        double current = limit;
+        double next;
+        if (dropped) {
+            next = current * ERROR_BACKOFF;
+        } else {
+            if (rttNanos <= 0) {
+                return;
+            }
+            longRttNanos = longRttNanos == 0
+                    ? rttNanos
+                    : longRttNanos * (1 - LONG_RTT_WEIGHT) + rttNanos * LONG_RTT_WEIGHT;
+            // With little traffic the latency says nothing about whether the limit is too high
+            if (inFlightAtRelease < current / 2) {
+                return;
+            }
+            double gradient = Math.max(0.5, Math.min(1.0, rttTolerance * longRttNanos / rttNanos));
+            double target = current * gradient + Math.sqrt(current);
+            next = current * (1 - smoothing) + target * smoothing;
+        }
+        limit = Math.max(minLimit, Math.min(maxLimit, next));
+    }
+
+    private boolean tryIncrement() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private void drain() {
+        List<Waiter> granted = new ArrayList<>();
+        synchronized (queues) {
+            while (queued.get() > 0 && tryIncrement()) {
+                Waiter next = pollHighestPriority();
+                if (next == null) {
+                    inFlight.decrementAndGet();
+                    break;
+                }
+                queued.decrementAndGet();
+                if (next.grant()) {
+                    granted.add(next);
+                } else {
+                    // Timed out or cancelled while queued, the slot goes to the next waiter
+                    inFlight.decrementAndGet();
+                }
+            }
+        }
+        // Resume outside the lock, subscribers continue the filter chain on this thread
+        granted.forEach(waiter -> waiter.sink.tryEmitEmpty());
+    }
+
+    private Waiter pollHighestPriority() {
+        for (Queue<Waiter> queue : queues) {
+            Waiter waiter = queue.poll();
+            if (waiter != null) {
+                return waiter;
+            }
+        }
+        return null;
+    }
+
+    private Mono<Void> reject() {
+        rejectedCounter.increment();
+        // Roughly the time the current queue needs to drain at the current limit
+        double rttSeconds = longRttNanos / TimeUnit.SECONDS.toNanos(1);
+        long retryAfter = Math.max(1, (long) Math.ceil(rttSeconds * (queued.get() + 1) / limit));
+        return Mono.error(new GatewayOverloadedException(retryAfter));
+    }
+
+    private static final class Waiter {
+
+        private static final int WAITING = 0;
+        private static final int GRANTED = 1;
+        private static final int CANCELLED = 2;
+
+        private final Sinks.Empty<Void> sink = Sinks.empty();
+        private final AtomicInteger state = new AtomicInteger(WAITING);
+
+        boolean grant() {
+            return state.compareAndSet(WAITING, GRANTED);
+        }
+
+        boolean cancel() {
+            return state.compareAndSet(WAITING, CANCELLED);
+        }
+    }
+}
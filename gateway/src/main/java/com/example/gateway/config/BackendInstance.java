@@ -0,0 +1,93 @@
+package com.example.gateway.config;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One backend process behind the gateway, with the load and health state used by {@link BackendPool}.
+ */
+public class BackendInstance {
+
+    private final URI uri;
+    private final AtomicInteger outstanding = new AtomicInteger();
+    // Peak-sensitive moving average of response times; guarded by this
+    private double ewmaNanos;
+    private long lastObservedNanos = System.nanoTime();
+    // Health state, only changed by the probe loop; counters guarded by this
+    private volatile boolean healthy = true;
+    private int consecutiveFailures;
+    private int consecutiveSuccesses;
+
+    public BackendInstance(URI uri) {
+        this.uri = uri;
+    }
+
+    public URI getUri() {
+        return uri;
+    }
+
+    public int getOutstanding() {
+        return outstanding.get();
+    }
+
+    public boolean isHealthy() {
+        return healthy;
+    }
+
+    public void begin() {
+        outstanding.incrementAndGet();
+    }
+
+    public void end() {
+        outstanding.decrementAndGet();
+    }
+
+    /**
+     * Record a response time. Spikes are taken at once, recoveries decay over {@code decayNanos}.
+     */
+    public synchronized void observe(long rttNanos, long decayNanos) {
+        long now = System.nanoTime();
+        if (rttNanos > ewmaNanos) {
+            ewmaNanos = rttNanos;
+        } else {
+            double weight = Math.exp(-(double) (now - lastObservedNanos) / decayNanos);
+            ewmaNanos = ewmaNanos * weight + rttNanos * (1 - weight);
+        }
+        lastObservedNanos = now;
+    }
+
+    public synchronized double getEwmaMs() {
+        return ewmaNanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * Peak-EWMA load: expected latency scaled by the requests already waiting on this instance.
+     */
+    synchronized double peakEwmaScore() {
+        // Floor unmeasured instances at 1ms so outstanding requests still spread the load
+        return Math.max(ewmaNanos, TimeUnit.MILLISECONDS.toNanos(1)) * (outstanding.get() + 1);
+    }
+
+    /**
+     * Apply a health probe result; returns true if the instance changed state.
+     */
+    synchronized boolean probed(boolean up, int unhealthyThreshold, int healthyThreshold) {
+        if (up) {
+            consecutiveFailures = 0;
+            consecutiveSuccesses++;
+            if (!healthy && consecutiveSuccesses >= healthyThreshold) {
+                healthy = true;
+                return true;
+            }
+        } else {
+            consecutiveSuccesses = 0;
+            consecutiveFailures++;
+            if (healthy && consecutiveFailures >= unhealthyThreshold) {
+                healthy = false;
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,263 @@
+package com.example.gateway.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The backend instances the gateway balances across, from {@code backend.instances} or, when set,
+ * {@code backend.instancesFile} (one URL per line, re-read when it changes).
+ * <p>
+ * Each request goes to the less loaded of two randomly picked healthy instances: fewest
+ * outstanding requests, or lowest peak-EWMA latency times outstanding requests.
+ * Instances are probed on {@code backend.health.path} and ejected after
+ * {@code unhealthyThreshold} failed probes in a row, then taken back after
+ * {@code healthyThreshold} successful ones. If every instance is ejected, all of them are
+ * used again rather than failing every request.
+ */
+@Component
+public class BackendPool {
+
+    private static final Logger log = LoggerFactory.getLogger(BackendPool.class);
+
+    @Value("${backend.instances:${backend.url}}")
+    private List<String> configuredInstances;
+
+    @Value("${backend.instancesFile:}")
+    private String instancesFile;
+
+    // least-outstanding or peak-ewma
+    @Value("${backend.balancer.strategy:peak-ewma}")
+    private String strategy;
+
+    // How quickly a latency spike is forgotten once responses get faster again
+    @Value("${backend.balancer.ewmaDecayMs:10000}")
+    private long ewmaDecayMs;
+
+    @Value("${backend.health.path:/actuator/health}")
+    private String healthPath;
+
+    @Value("${backend.health.intervalMs:5000}")
+    private long probeIntervalMs;
+
+    @Value("${backend.health.timeoutMs:2000}")
+    private long probeTimeoutMs;
+
+    @Value("${backend.health.unhealthyThreshold:2}")
+    private int unhealthyThreshold;
+
+    @Value("${backend.health.healthyThreshold:2}")
+    private int healthyThreshold;
+
+    private final WebClient webClient = WebClient.create();
+    private final MeterRegistry meterRegistry;
+    private volatile List<BackendInstance> instances = List.of();
+    private volatile List<BackendInstance> available = List.of();
+    private boolean leastOutstanding;
+    private long instancesFileModified;
+    private Disposable probes;
+
+    public BackendPool(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        meterRegistry.gauge("gateway.backend.available", this, pool -> pool.available.size());
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!"least-outstanding".equals(strategy) && !"peak-ewma".equals(strategy)) {
+            throw new IllegalArgumentException("backend.balancer.strategy must be least-outstanding or peak-ewma");
+        }
+        leastOutstanding = "least-outstanding".equals(strategy);
+        if (instancesFile.isBlank()) {
+            setInstances(configuredInstances);
+        } else {
+            reloadInstancesFile();
+        }
+
+        probes = Flux.interval(Duration.ZERO, Duration.ofMillis(probeIntervalMs))
+                .onBackpressureDrop()
+                .concatMap(tick -> probeAll())
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (probes != null) {
+            probes.dispose();
+        }
+    }
+
+    /**
+     * Pick an instance for a request; the caller must call {@link BackendInstance#begin} and
+     * {@link BackendInstance#end} around it.
+     */
+    public BackendInstance choose() {
+        List<BackendInstance> candidates = available;
+        int size = candidates.size();
+        if (size == 1) {
+            return candidates.get(0);
+        }
+        // Power of two choices: nearly as good as the global minimum, without scanning or locking
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(size);
+        int second = random.nextInt(size - 1);
+        if (second >= first) {
+            second++;
+        }
+        BackendInstance a = candidates.get(first);
+        BackendInstance b = candidates.get(second);
+        return load(a) <= load(b) ? a : b;
+    }
+
+    /**
+     * Pick the same instance for the same key for as long as it stays available (rendezvous
+     * hashing), so only the keys of an ejected instance move elsewhere.
+     */
+    public BackendInstance chooseSticky(String key) {
+        BackendInstance best = null;
+        long bestScore = Long.MIN_VALUE;
+        for (BackendInstance instance : available) {
+            long score = mix(key.hashCode() * 31L + instance.getUri().hashCode());
+            if (best == null || score > bestScore) {
+                best = instance;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+
+    public void observe(BackendInstance instance, long rttNanos) {
+        if (!leastOutstanding) {
+            instance.observe(rttNanos, TimeUnit.MILLISECONDS.toNanos(ewmaDecayMs));
+        }
+    }
+
+    public List<InstanceStatus> status() {
+        return instances.stream()
+                .map(instance -> new InstanceStatus(instance.getUri().toString(), instance.isHealthy(),
+                        instance.getOutstanding(), instance.getEwmaMs()))
+                .toList();
+    }
+
+    private double load(BackendInstance instance) {
+        return leastOutstanding ? instance.getOutstanding() : instance.peakEwmaScore();
+    }
+
+    private Mono<Void> probeAll() {
+        if (!instancesFile.isBlank()) {
+            reloadInstancesFile();
+        }
+        return Flux.fromIterable(instances)
+                .flatMap(this::probe)
+                .then();
+    }
+
+    private Mono<Void> probe(BackendInstance instance) {
+        return webClient.get()
+                .uri(instance.getUri().resolve(healthPath))
+                .exchangeToMono(response -> Mono.just(response.statusCode().is2xxSuccessful()))
+                .timeout(Duration.ofMillis(probeTimeoutMs))
+                .onErrorReturn(false)
+                .doOnNext(up -> {
+                    if (instance.probed(up, unhealthyThreshold, healthyThreshold)) {
+                        if (up) {
+                            log.info("Backend {} is healthy again, adding it back", instance.getUri());
+                        } else {
+                            log.warn("Backend {} failed {} health checks, ejecting it", instance.getUri(), unhealthyThreshold);
+                        }
+                        updateAvailable();
+                    }
+                })
+                .then();
+    }
+
+    private synchronized void reloadInstancesFile() {
+        Path path = Path.of(instancesFile);
+        try {
+            long modified = Files.getLastModifiedTime(path).toMillis();
+            if (modified == instancesFileModified) {
+                return;
+            }
+            List<String> urls = Files.readAllLines(path).stream()
+                    .map(String::trim)
+                    .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                    .toList();
+            if (urls.isEmpty()) {
+                log.warn("Backend instances file {} lists no instances, keeping the current ones", path);
+                return;
+            }
+            instancesFileModified = modified;
+            setInstances(urls);
+        } catch (IOException e) {
+            if (instances.isEmpty()) {
+                throw new IllegalStateException("Cannot read backend instances file " + path, e);
+            }
+            log.warn("Cannot read backend instances file {}, keeping the current instances: {}", path, e.getMessage());
+        }
+    }
+
+    private synchronized void setInstances(List<String> urls) {
+        // Keep the state of instances that are still listed
+        Map<URI, BackendInstance> current = new LinkedHashMap<>();
+        instances.forEach(instance -> current.put(instance.getUri(), instance));
+
+        List<BackendInstance> updated = new ArrayList<>();
+        for (String url : urls) {
+            URI uri = URI.create(url.trim());
+            BackendInstance instance = current.get(uri);
+            if (instance == null) {
+                instance = new BackendInstance(uri);
+                Gauge.builder("gateway.backend.outstanding", instance, BackendInstance::getOutstanding)
+                        .tag("instance", uri.toString())
+                        .register(meterRegistry);
+            }
+            updated.add(instance);
+        }
+        instances = List.copyOf(updated);
+        updateAvailable();
+        log.info("Balancing across backend instances {}", urls);
+    }
+
+    private synchronized void updateAvailable() {
+        List<BackendInstance> healthy = instances.stream().filter(BackendInstance::isHealthy).toList();
+        if (healthy.isEmpty() && !instances.isEmpty()) {
+            log.warn("No healthy backend instance left, balancing across all of them");
+            healthy = instances;
+        }
+        available = healthy;
+    }
+
+    private static long mix(long h) {
+        // MurmurHash3 finalizer
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    public record InstanceStatus(String uri, boolean healthy, int outstanding, double ewmaMs) {
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.gateway.config;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Actuator endpoint listing the backend instances with their health and load.
+ * <pre>
+ * GET /actuator/backends
+ * </pre>
+ */
+@Component
+@Endpoint(id = "backends")
+public class BackendPoolEndpoint {
+
+    private final BackendPool pool;
+
+    public BackendPoolEndpoint(BackendPool pool) {
+        this.pool = pool;
+    }
+
+    @ReadOperation
+    public List<BackendPool.InstanceStatus> instances() {
+        return pool.status();
+    }
+}
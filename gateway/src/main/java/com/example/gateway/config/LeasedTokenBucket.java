@@ -0,0 +1,85 @@
+package com.example.gateway.config;
+
+import reactor.core.publisher.Sinks;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Per-key in-memory token bucket used by {@link TokenLeaseService}.
+ * Holds tokens leased from the shared Redis bucket, and refills itself locally
+ * while Redis is unavailable. All state is updated with CAS, no locks.
+ */
+class LeasedTokenBucket {
+
+    private final AtomicLong tokens = new AtomicLong();
+    private final AtomicLong lastRefillNanos = new AtomicLong();
+    private final AtomicReference<Sinks.One<Long>> pendingLease = new AtomicReference<>();
+    private volatile long fallbackUntilNanos;
+    private volatile long lastAccessNanos;
+
+    LeasedTokenBucket(long nowNanos) {
+        this.lastAccessNanos = nowNanos;
+    }
+
+    boolean tryTake(long requested) {
+        while (true) {
+            long current = tokens.get();
+            if (current < requested) {
+                return false;
+            }
+            if (tokens.compareAndSet(current, current - requested)) {
+                return true;
+            }
+        }
+    }
+
+    long available() {
+        return tokens.get();
+    }
+
+    void add(long granted, long capacity) {
+        if (granted > 0) {
+            tokens.accumulateAndGet(granted, (current, add) -> Math.min(capacity, current + add));
+        }
+    }
+
+    /**
+     * Refill from elapsed time; only used in fallback mode when no leases can be obtained.
+     */
+    void refillLocally(double tokensPerSecond, long capacity, long nowNanos) {
+        long last = lastRefillNanos.get();
+        long tokensToAdd = (long) ((nowNanos - last) * tokensPerSecond / 1_000_000_000d);
+        if (tokensToAdd <= 0) {
+            return;
+        }
+        // Advance by the time those whole tokens represent so fractional progress is kept
+        long advance = (long) (tokensToAdd * 1_000_000_000d / tokensPerSecond);
+        if (lastRefillNanos.compareAndSet(last, last + advance)) {
+            add(tokensToAdd, capacity);
+        }
+    }
+
+    boolean inFallback(long nowNanos) {
+        return nowNanos < fallbackUntilNanos;
+    }
+
+    void enterFallback(long nowNanos, long durationNanos) {
+        if (!inFallback(nowNanos)) {
+            lastRefillNanos.set(nowNanos);
+        }
+        fallbackUntilNanos = nowNanos + durationNanos;
+    }
+
+    AtomicReference<Sinks.One<Long>> pendingLease() {
+        return pendingLease;
+    }
+
+    void touch(long nowNanos) {
+        lastAccessNanos = nowNanos;
+    }
+
+    long lastAccessNanos() {
+        return lastAccessNanos;
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.gateway.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Declarative route table and limits, bound from {@code ratelimit.routes.*} and {@code ratelimit.tier.*}.
+ * Rebound on {@code /actuator/refresh}, after which {@link RouteLimitRegistry} rebuilds the routes.
+ */
+@Component
+@ConfigurationProperties(prefix = "ratelimit")
+public class RateLimitProperties {
+
+    // route name -> path, limits and timeout, e.g. ratelimit.routes.posts.path=/api/posts/**
+    private Map<String, RouteLimit> routes = new LinkedHashMap<>();
+
+    // Tier overrides; a tier with replenishRate/burstCapacity of 0 inherits the route limits
+    private Map<RateLimitTier, Limit> tier = new EnumMap<>(RateLimitTier.class);
+
+    public Map<String, RouteLimit> getRoutes() {
+        return routes;
+    }
+
+    public void setRoutes(Map<String, RouteLimit> routes) {
+        this.routes = routes;
+    }
+
+    public Map<RateLimitTier, Limit> getTier() {
+        return tier;
+    }
+
+    public void setTier(Map<RateLimitTier, Limit> tier) {
+        this.tier = tier;
+    }
+
+    public static class Limit {
+
+        private int replenishRate;
+        private int burstCapacity;
+
+        public int getReplenishRate() {
+            return replenishRate;
+        }
+
+        public void setReplenishRate(int replenishRate) {
+            this.replenishRate = replenishRate;
+        }
+
+        public int getBurstCapacity() {
+            return burstCapacity;
+        }
+
+        public void setBurstCapacity(int burstCapacity) {
+            this.burstCapacity = burstCapacity;
+        }
+
+        public boolean isSet() {
+            return replenishRate > 0 && burstCapacity > 0;
+        }
+    }
+
+    public static class RouteLimit extends Limit {
+
+        private String path;
+
+        // Backend response timeout for this route; unset uses spring.cloud.gateway.httpclient.response-timeout, -1 disables
+        private Long responseTimeoutMs;
+
+        public String getPath() {
+            return path;
+        }
+
+        public void setPath(String path) {
+            this.path = path;
+        }
+
+        public Long getResponseTimeoutMs() {
+            return responseTimeoutMs;
+        }
+
+        public void setResponseTimeoutMs(Long responseTimeoutMs) {
+            this.responseTimeoutMs = responseTimeoutMs;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.gateway.config;
+
+/**
+ * Rate limit tiers, encoded as the prefix of the key produced by {@link UserKeyResolver}.
+ */
+public enum RateLimitTier {
+    ANONYMOUS("ip"),
+    USER("user"),
+    ADMIN("admin");
+
+    private final String prefix;
+
+    RateLimitTier(String prefix) {
+        this.prefix = prefix;
+    }
+
+    public String getPrefix() {
+        return prefix;
+    }
+
+    public String key(String id) {
+        return prefix + ":" + id;
+    }
+
+    /**
+     * Resolve the tier from a rate limit key such as {@code user:42}.
+     * Unknown prefixes are treated as anonymous traffic.
+     */
+    public static RateLimitTier fromKey(String key) {
+        if (key != null) {
+            int colon = key.indexOf(':');
+            if (colon > 0) {
+                String prefix = key.substring(0, colon);
+                for (RateLimitTier tier : values()) {
+                    if (tier.prefix.equals(prefix)) {
+                        return tier;
+                    }
+                }
+            }
+        }
+        return ANONYMOUS;
+    }
+}
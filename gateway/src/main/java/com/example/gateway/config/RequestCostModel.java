@@ -0,0 +1,112 @@
+package com.example.gateway.config;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Weight of a request in rate limit tokens, so bucket consumption follows backend load.
+ * The cost is the most specific matching rule for the method and path (or the read/write
+ * default), plus one token per {@code uploadBytesPerToken} of request body.
+ */
+@Component
+@ConfigurationProperties(prefix = "ratelimit.cost")
+public class RequestCostModel {
+
+    private long read = 1;
+    private long write = 2;
+    private long uploadBytesPerToken = 1024 * 1024;
+    private long max = 20;
+
+    // method -> path pattern -> cost, e.g. ratelimit.cost.rules.GET.[/api/posts]=5
+    private Map<String, Map<String, Long>> rules = new LinkedHashMap<>();
+
+    // Replaced whole when the properties are rebound (e.g. by /actuator/refresh), never modified,
+    // so requests costed meanwhile see either the old rules or the new ones
+    private volatile List<CostRule> compiledRules = List.of();
+
+    @PostConstruct
+    public void compileRules() {
+        List<CostRule> compiled = new ArrayList<>();
+        rules.forEach((method, paths) -> paths.forEach((path, cost) -> compiled.add(
+                new CostRule(HttpMethod.valueOf(method.toUpperCase()), PathPatternParser.defaultInstance.parse(path), cost))));
+        // Most specific pattern first, so /api/posts/tags wins over /api/posts/**
+        compiled.sort(Comparator.comparing(CostRule::pattern, PathPattern.SPECIFICITY_COMPARATOR));
+        compiledRules = List.copyOf(compiled);
+    }
+
+    public long cost(ServerHttpRequest request) {
+        long cost = baseCost(request.getMethod(), request.getPath().pathWithinApplication());
+
+        long contentLength = request.getHeaders().getContentLength();
+        if (contentLength > 0 && uploadBytesPerToken > 0) {
+            cost += contentLength / uploadBytesPerToken;
+        }
+        return Math.max(1, Math.min(cost, max));
+    }
+
+    private long baseCost(HttpMethod method, PathContainer path) {
+        for (CostRule rule : compiledRules) {
+            if (rule.method().equals(method) && rule.pattern().matches(path)) {
+                return rule.cost();
+            }
+        }
+        boolean isWrite = HttpMethod.POST.equals(method) || HttpMethod.PUT.equals(method)
+                || HttpMethod.PATCH.equals(method) || HttpMethod.DELETE.equals(method);
+        return isWrite ? write : read;
+    }
+
+    private record CostRule(HttpMethod method, PathPattern pattern, long cost) {
+    }
+
+    public long getRead() {
+        return read;
+    }
+
+    public void setRead(long read) {
+        this.read = read;
+    }
+
+    public long getWrite() {
+        return write;
+    }
+
+    public void setWrite(long write) {
+        this.write = write;
+    }
+
+    public long getUploadBytesPerToken() {
+        return uploadBytesPerToken;
+    }
+
+    public void setUploadBytesPerToken(long uploadBytesPerToken) {
+        this.uploadBytesPerToken = uploadBytesPerToken;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public void setMax(long max) {
+        this.max = max;
+    }
+
+    public Map<String, Map<String, Long>> getRules() {
+        return rules;
+    }
+
+    public void setRules(Map<String, Map<String, Long>> rules) {
+        this.rules = rules;
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.gateway.config;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+
+/**
+ * Queueing priority of a request waiting for a backend concurrency slot, highest first.
+ * Logins and reads stay responsive while bulk admin operations wait.
+ */
+public enum RequestPriority {
+    AUTH,
+    READ,
+    WRITE,
+    ADMIN;
+
+    public static RequestPriority of(ServerHttpRequest request) {
+        String path = request.getPath().value();
+        if (path.startsWith("/api/auth/")) {
+            return AUTH;
+        }
+        if (path.startsWith("/api/admin/")) {
+            return ADMIN;
+        }
+        HttpMethod method = request.getMethod();
+        return HttpMethod.GET.equals(method) || HttpMethod.HEAD.equals(method) ? READ : WRITE;
+    }
+}
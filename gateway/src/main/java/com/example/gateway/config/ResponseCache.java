@@ -0,0 +1,198 @@
+package com.example.gateway.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Size-bounded LRU store of backend responses for {@code ResponseCacheFilter}.
+ * <p>
+ * Entries live for at most {@code cache.ttlMs} and are dropped early when the backend
+ * publishes a changed path on the {@code cache.invalidationChannel} Redis channel, e.g.
+ * {@code /api/posts} drops every cached entry under /api/posts. A message may name a user
+ * after the path, e.g. {@code /api/posts 42}, to drop only the entries cached for that user:
+ * a like or a follow changes the liker's own view, while the counts other users see may lag
+ * by up to the TTL. If the subscription is down, the TTL bounds how stale a response can get.
+ */
+@Component
+public class ResponseCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ResponseCache.class);
+
+    private static final int MAX_TRACKED_OWNERS = 10_000;
+
+    @Value("${cache.maxBytes:33554432}")
+    private long maxBytes;
+
+    @Value("${cache.ttlMs:30000}")
+    private long ttlMs;
+
+    @Value("${cache.invalidationChannel:gateway:cache:invalidate}")
+    private String invalidationChannel;
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    // Access-ordered for LRU eviction; guarded by itself
+    private final LinkedHashMap<String, CachedResponse> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private long totalBytes;
+    // Bumped by every invalidation, so responses fetched before it are not stored after it
+    private long generation;
+    // Generation of the last invalidation of all users' entries, and of each user's own entries
+    private long lastInvalidation;
+    private final HashMap<String, Long> lastOwnerInvalidation = new HashMap<>();
+    private Disposable invalidationSubscription;
+
+    public ResponseCache(ReactiveStringRedisTemplate redisTemplate, MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.hitCounter = meterRegistry.counter("gateway.cache.requests", "result", "hit");
+        this.missCounter = meterRegistry.counter("gateway.cache.requests", "result", "miss");
+        meterRegistry.gauge("gateway.cache.bytes", this, ResponseCache::sizeInBytes);
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        invalidationSubscription = redisTemplate.listenToChannel(invalidationChannel)
+                .doOnError(error -> log.warn("Cache invalidation subscription failed: {}", error.getMessage()))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30)))
+                .subscribe(message -> onInvalidation(message.getMessage()));
+    }
+
+    @PreDestroy
+    public void unsubscribe() {
+        if (invalidationSubscription != null) {
+            invalidationSubscription.dispose();
+        }
+    }
+
+    public CachedResponse get(String key) {
+        synchronized (entries) {
+            CachedResponse entry = entries.get(key);
+            if (entry != null && entry.isExpired(System.nanoTime())) {
+                remove(key);
+                entry = null;
+            }
+            (entry != null ? hitCounter : missCounter).increment();
+            return entry;
+        }
+    }
+
+    public long generation() {
+        synchronized (entries) {
+            return generation;
+        }
+    }
+
+    /**
+     * Store a response unless an invalidation covering it arrived since {@code fetchedAtGeneration}.
+     */
+    public void put(String key, CachedResponse response, long fetchedAtGeneration) {
+        if (response.body().length > maxBytes) {
+            return;
+        }
+        synchronized (entries) {
+            if (lastInvalidation > fetchedAtGeneration || (response.owner() != null
+                    && lastOwnerInvalidation.getOrDefault(response.owner(), 0L) > fetchedAtGeneration)) {
+                return;
+            }
+            remove(key);
+            entries.put(key, response);
+            totalBytes += response.body().length;
+
+            Iterator<CachedResponse> eldest = entries.values().iterator();
+            while (totalBytes > maxBytes && eldest.hasNext()) {
+                totalBytes -= eldest.next().body().length;
+                eldest.remove();
+            }
+        }
+    }
+
+    /**
+     * Drop every entry for the given path and the paths below it.
+     */
+    public void invalidate(String path) {
+        invalidate(path, null);
+    }
+
+    /**
+     * Drop the entries cached for one user under the given path, or every user's when owner is null.
+     */
+    public void invalidate(String path, String owner) {
+        synchronized (entries) {
+            generation++;
+            if (owner == null || lastOwnerInvalidation.size() >= MAX_TRACKED_OWNERS) {
+                // Forgetting per-user generations is safe once everything fetched before now is refused
+                lastInvalidation = generation;
+                lastOwnerInvalidation.clear();
+            }
+            if (owner != null) {
+                lastOwnerInvalidation.put(owner, generation);
+            }
+            Iterator<CachedResponse> iterator = entries.values().iterator();
+            while (iterator.hasNext()) {
+                CachedResponse entry = iterator.next();
+                if ((owner == null || owner.equals(entry.owner()))
+                        && (entry.path().equals(path) || entry.path().startsWith(path + "/"))) {
+                    totalBytes -= entry.body().length;
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * A new entry; owner is the user id for responses cached per user, null for shared ones.
+     */
+    public CachedResponse newEntry(String path, String owner, HttpStatusCode status, HttpHeaders headers, byte[] body,
+            String etag) {
+        long expiresAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ttlMs);
+        return new CachedResponse(path, owner, status, headers, body, etag, expiresAt);
+    }
+
+    // Messages are "<path>" or "<path> <user id>"
+    private void onInvalidation(String message) {
+        int space = message.indexOf(' ');
+        if (space < 0) {
+            invalidate(message);
+        } else {
+            invalidate(message.substring(0, space), message.substring(space + 1).trim());
+        }
+    }
+
+    private void remove(String key) {
+        CachedResponse previous = entries.remove(key);
+        if (previous != null) {
+            totalBytes -= previous.body().length;
+        }
+    }
+
+    private long sizeInBytes() {
+        synchronized (entries) {
+            return totalBytes;
+        }
+    }
+
+    public record CachedResponse(String path, String owner, HttpStatusCode status, HttpHeaders headers, byte[] body,
+            String etag, long expiresAtNanos) {
+
+        boolean isExpired(long nowNanos) {
+            return nowNanos >= expiresAtNanos;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.gateway.config;
+
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Actuator endpoint to inspect and shed load on the route table without a redeploy.
+ * <pre>
+ * GET    /actuator/ratelimits
+ * POST   /actuator/ratelimits/posts_route  {"replenishRate": 10, "burstCapacity": 20}
+ * DELETE /actuator/ratelimits/posts_route  (back to the configured limits)
+ * </pre>
+ * Changes to the properties themselves are applied with {@code POST /actuator/refresh}.
+ * Actuator is served on the management port only ({@code management.server.port}).
+ */
+@Component
+@Endpoint(id = "ratelimits")
+public class RouteLimitEndpoint {
+
+    private final RouteLimitRegistry registry;
+
+    public RouteLimitEndpoint(RouteLimitRegistry registry) {
+        this.registry = registry;
+    }
+
+    @ReadOperation
+    public List<RouteLimitRegistry.RouteSpec> routes() {
+        return registry.currentRoutes();
+    }
+
+    @WriteOperation
+    public List<RouteLimitRegistry.RouteSpec> override(@Selector String routeId, int replenishRate, int burstCapacity) {
+        try {
+            registry.override(routeId, replenishRate, burstCapacity);
+        } catch (IllegalArgumentException e) {
+            // Unknown route or bad limits: answered with 400
+            throw new InvalidEndpointRequestException(e.getMessage(), e.getMessage());
+        }
+        return registry.currentRoutes();
+    }
+
+    @DeleteOperation
+    public List<RouteLimitRegistry.RouteSpec> clearOverride(@Selector String routeId) {
+        registry.clearOverride(routeId);
+        return registry.currentRoutes();
+    }
+}
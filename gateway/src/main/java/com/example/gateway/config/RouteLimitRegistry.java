@@ -0,0 +1,145 @@
+package com.example.gateway.config;
+
+import com.example.gateway.filter.WeightedRateLimitFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.event.RefreshRoutesEvent;
+import org.springframework.cloud.gateway.filter.ratelimit.RedisRateLimiter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.route.RouteLocator;
+import org.springframework.cloud.gateway.route.builder.RouteLocatorBuilder;
+import org.springframework.cloud.gateway.route.builder.UriSpec;
+import org.springframework.cloud.gateway.support.RouteMetadataUtils;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Builds the gateway routes from {@link RateLimitProperties}, one rate limited route per entry.
+ * Routes are ordered by path specificity, so /api/posts/** always matches before /api/**.
+ * <p>
+ * Limits can be overridden at runtime through the {@code ratelimits} actuator endpoint.
+ * Every change publishes a {@link RefreshRoutesEvent}: the gateway's caching route locator
+ * swaps in the rebuilt route list at once, while in-flight requests finish on the old routes.
+ */
+@Component
+public class RouteLimitRegistry implements RouteLocator {
+
+    private static final String ROUTE_SUFFIX = "_route";
+
+    @Value("${backend.url}")
+    private String backendUrl;
+
+    private final RateLimitProperties properties;
+    private final RouteLocatorBuilder builder;
+    private final TokenLeaseService tokenLeaseService;
+    private final WeightedRateLimitFilter weightedRateLimitFilter;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Map<String, RateLimitProperties.Limit> overrides = new ConcurrentHashMap<>();
+
+    public RouteLimitRegistry(RateLimitProperties properties, RouteLocatorBuilder builder,
+            TokenLeaseService tokenLeaseService, WeightedRateLimitFilter weightedRateLimitFilter,
+            ApplicationEventPublisher eventPublisher) {
+        this.properties = properties;
+        this.builder = builder;
+        this.tokenLeaseService = tokenLeaseService;
+        this.weightedRateLimitFilter = weightedRateLimitFilter;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    public Flux<Route> getRoutes() {
+        Map<RateLimitTier, RedisRateLimiter.Config> tierOverrides = tierOverrides();
+        RouteLocatorBuilder.Builder routes = builder.routes();
+
+        List<RouteSpec> specs = currentRoutes();
+        for (int order = 0; order < specs.size(); order++) {
+            RouteSpec spec = specs.get(order);
+            int routeOrder = order;
+            // A fresh limiter per rebuild; token buckets are keyed by route id and survive it
+            TieredRedisRateLimiter limiter = new TieredRedisRateLimiter(spec.replenishRate(), spec.burstCapacity(),
+                    tierOverrides, tokenLeaseService);
+            routes.route(spec.id(), r -> {
+                UriSpec route = r
+                        .order(routeOrder)
+                        .path(spec.path())
+                        .filters(f -> f
+                                .preserveHostHeader()
+                                .filter(weightedRateLimitFilter.apply(limiter)));
+                if (spec.responseTimeoutMs() != null) {
+                    route = route.metadata(RouteMetadataUtils.RESPONSE_TIMEOUT_ATTR, spec.responseTimeoutMs());
+                }
+                return route.uri(backendUrl);
+            });
+        }
+        return routes.build().getRoutes();
+    }
+
+    /**
+     * Current route table with runtime overrides applied, most specific path first.
+     */
+    public List<RouteSpec> currentRoutes() {
+        List<RouteSpec> specs = new ArrayList<>();
+        properties.getRoutes().forEach((name, route) -> {
+            String id = name + ROUTE_SUFFIX;
+            RateLimitProperties.Limit override = overrides.get(id);
+            RateLimitProperties.Limit limit = override != null ? override : route;
+            specs.add(new RouteSpec(id, route.getPath(), limit.getReplenishRate(), limit.getBurstCapacity(),
+                    route.getResponseTimeoutMs(), override != null));
+        });
+        specs.sort(Comparator.comparing(spec -> PathPatternParser.defaultInstance.parse(spec.path()),
+                PathPattern.SPECIFICITY_COMPARATOR));
+        return specs;
+    }
+
+    /**
+     * Override the limits of one route until cleared or the gateway restarts.
+     */
+    public void override(String routeId, int replenishRate, int burstCapacity) {
+        if (currentRoutes().stream().noneMatch(spec -> spec.id().equals(routeId))) {
+            throw new IllegalArgumentException("Unknown route: " + routeId);
+        }
+        if (replenishRate <= 0 || burstCapacity < replenishRate) {
+            throw new IllegalArgumentException("replenishRate must be positive and not exceed burstCapacity");
+        }
+        RateLimitProperties.Limit limit = new RateLimitProperties.Limit();
+        limit.setReplenishRate(replenishRate);
+        limit.setBurstCapacity(burstCapacity);
+        overrides.put(routeId, limit);
+        refresh();
+    }
+
+    public void clearOverride(String routeId) {
+        if (overrides.remove(routeId) != null) {
+            refresh();
+        }
+    }
+
+    public void refresh() {
+        eventPublisher.publishEvent(new RefreshRoutesEvent(this));
+    }
+
+    private Map<RateLimitTier, RedisRateLimiter.Config> tierOverrides() {
+        Map<RateLimitTier, RedisRateLimiter.Config> tierOverrides = new EnumMap<>(RateLimitTier.class);
+        properties.getTier().forEach((tier, limit) -> {
+            if (limit.isSet()) {
+                tierOverrides.put(tier, new RedisRateLimiter.Config()
+                        .setReplenishRate(limit.getReplenishRate())
+                        .setBurstCapacity(limit.getBurstCapacity()));
+            }
+        });
+        return tierOverrides;
+    }
+
+    public record RouteSpec(String id, String path, int replenishRate, int burstCapacity, Long responseTimeoutMs,
+            boolean overridden) {
+    }
+}
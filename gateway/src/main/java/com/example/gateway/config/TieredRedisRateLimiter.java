@@ -0,0 +1,64 @@
+package com.example.gateway.config;
+
+import org.springframework.cloud.gateway.filter.ratelimit.RedisRateLimiter;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * Redis rate limiter that applies tier-specific limits on top of the route limits.
+ * Tiers without an override keep the route's own replenish rate and burst capacity.
+ * Decisions go through {@link TokenLeaseService}, which serves them from local leased
+ * buckets or, with local buckets disabled, runs the Redis script per request.
+ * Requests can consume a variable number of tokens (see {@code WeightedRateLimitFilter}).
+ */
+public class TieredRedisRateLimiter extends RedisRateLimiter {
+
+    private static final String TIER_CONFIG_PREFIX = "tier:";
+
+    private final Config routeConfig;
+    private final TokenLeaseService tokenLeaseService;
+
+    public TieredRedisRateLimiter(int replenishRate, int burstCapacity, Map<RateLimitTier, Config> tierOverrides,
+            TokenLeaseService tokenLeaseService) {
+        super(replenishRate, burstCapacity);
+        this.routeConfig = new Config().setReplenishRate(replenishRate).setBurstCapacity(burstCapacity);
+        this.tokenLeaseService = tokenLeaseService;
+        // Populated once here so lookups on the request path never mutate the config map
+        tierOverrides.forEach((tier, config) -> getConfig().put(configId(tier), config));
+    }
+
+    @Override
+    public Mono<Response> isAllowed(String routeId, String id) {
+        return isAllowed(routeId, id, routeConfig.getRequestedTokens());
+    }
+
+    /**
+     * Rate limit a request that consumes {@code cost} tokens instead of the configured requestedTokens.
+     * Costs above the burst capacity are clamped so a heavy request can still pass on a full bucket.
+     */
+    public Mono<Response> isAllowed(String routeId, String id, long cost) {
+        String tierConfigId = configId(RateLimitTier.fromKey(id));
+        Config tierConfig = getConfig().get(tierConfigId);
+        String configId = tierConfig != null ? tierConfigId : routeId;
+        Config config = tierConfig != null ? tierConfig : routeConfig;
+        long requested = Math.max(1, Math.min(cost, config.getBurstCapacity()));
+
+        // Buckets are scoped per limit config so routes with different limits do not share tokens
+        return tokenLeaseService.tryAcquire(configId + ":" + id, config, requested)
+                .map(tokensLeft -> new Response(tokensLeft != TokenLeaseService.DENIED,
+                        getHeaders(config, requested, Math.max(tokensLeft, 0L))));
+    }
+
+    private Map<String, String> getHeaders(Config config, long requested, long tokensLeft) {
+        Map<String, String> headers = getHeaders(config, tokensLeft);
+        if (isIncludeHeaders()) {
+            headers.put(getRequestedTokensHeader(), String.valueOf(requested));
+        }
+        return headers;
+    }
+
+    private static String configId(RateLimitTier tier) {
+        return TIER_CONFIG_PREFIX + tier.getPrefix();
+    }
+}
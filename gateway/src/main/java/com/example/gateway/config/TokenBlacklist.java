@@ -0,0 +1,36 @@
+package com.example.gateway.config;
+
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Read side of the backend's token blacklist, which marks tokens revoked by logout in Redis
+ * under {@code blacklist:<token id>}. Used where the gateway answers for the backend, so a
+ * revoked token is not served anything the backend would refuse it.
+ */
+@Component
+public class TokenBlacklist {
+
+    private static final String BLACKLIST_PREFIX = "blacklist:";
+    private static final Duration LOOKUP_TIMEOUT = Duration.ofMillis(200);
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+
+    public TokenBlacklist(ReactiveStringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    /**
+     * Whether the token may have been revoked. Redis errors and timeouts answer true,
+     * so the caller leaves the decision to the backend.
+     */
+    public Mono<Boolean> isRevoked(String tokenId) {
+        return redisTemplate.hasKey(BLACKLIST_PREFIX + tokenId)
+                .timeout(LOOKUP_TIMEOUT)
+                .onErrorReturn(true)
+                .defaultIfEmpty(true);
+    }
+}
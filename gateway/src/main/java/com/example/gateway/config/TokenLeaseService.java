@@ -0,0 +1,244 @@
+package com.example.gateway.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.ratelimit.RedisRateLimiter;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scripting.support.ResourceScriptSource;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local token-bucket pre-limiter in front of the shared Redis buckets.
+ * Each gateway node serves requests from in-memory buckets and leases token batches
+ * from Redis when they run low, so most requests never leave the node.
+ * If Redis cannot be reached the bucket keeps limiting locally for a while
+ * (fallback mode) instead of failing open.
+ */
+@Component
+public class TokenLeaseService {
+
+    /** Returned by {@link #tryAcquire} when the request must be rejected. */
+    public static final long DENIED = -1L;
+
+    private static final Logger log = LoggerFactory.getLogger(TokenLeaseService.class);
+
+    @Value("${ratelimit.local.enabled:true}")
+    private boolean enabled;
+
+    // Fraction of the burst capacity leased per Redis call
+    @Value("${ratelimit.local.leaseFraction:0.1}")
+    private double leaseFraction;
+
+    @Value("${ratelimit.local.leaseTimeoutMs:250}")
+    private long leaseTimeoutMs;
+
+    // Share of the global limit this node enforces on its own while Redis is down. Every node
+    // limits independently then, so by default each takes 1/expectedNodes of the limit
+    @Value("${ratelimit.local.fallbackShare:#{null}}")
+    private Double fallbackShare;
+
+    @Value("${ratelimit.local.expectedNodes:2}")
+    private int expectedNodes;
+
+    @Value("${ratelimit.local.fallbackRetryMs:5000}")
+    private long fallbackRetryMs;
+
+    @Value("${ratelimit.local.idleEvictionMs:60000}")
+    private long idleEvictionMs;
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final RedisScript<List<Long>> leaseScript;
+    private final Map<String, LeasedTokenBucket> buckets = new ConcurrentHashMap<>();
+    private final Timer localTimer;
+    private final Timer leaseTimer;
+    private final Timer fallbackTimer;
+    private Disposable evictionTask;
+    private volatile long redisUnavailableUntilNanos;
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public TokenLeaseService(ReactiveStringRedisTemplate redisTemplate, MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+
+        DefaultRedisScript script = new DefaultRedisScript<>();
+        script.setScriptSource(new ResourceScriptSource(new ClassPathResource("scripts/token_lease.lua")));
+        script.setResultType(List.class);
+        this.leaseScript = script;
+
+        // Added latency per rate limit decision, by the path that served it
+        this.localTimer = acquireTimer(meterRegistry, "local");
+        this.leaseTimer = acquireTimer(meterRegistry, "lease");
+        this.fallbackTimer = acquireTimer(meterRegistry, "fallback");
+        meterRegistry.gaugeMapSize("gateway.ratelimit.local.buckets", Tags.empty(), buckets);
+    }
+
+    @PostConstruct
+    public void startEviction() {
+        evictionTask = Flux.interval(Duration.ofMillis(idleEvictionMs))
+                .subscribe(tick -> evictIdleBuckets());
+    }
+
+    @PreDestroy
+    public void stopEviction() {
+        if (evictionTask != null) {
+            evictionTask.dispose();
+        }
+    }
+
+    /**
+     * Take tokens for one request. With local buckets disabled every call runs the
+     * lease script for exactly the requested tokens.
+     *
+     * @param bucketId  bucket identity, unique per limit config and rate limit key
+     * @param config    limits of the bucket
+     * @param requested tokens consumed by the request
+     * @return tokens left in the local bucket, or {@link #DENIED}
+     */
+    public Mono<Long> tryAcquire(String bucketId, RedisRateLimiter.Config config, long requested) {
+        if (!enabled) {
+            return acquireFromRedis(bucketId, config, requested);
+        }
+
+        long start = System.nanoTime();
+        LeasedTokenBucket bucket = buckets.computeIfAbsent(bucketId, id -> new LeasedTokenBucket(start));
+        bucket.touch(start);
+
+        // New buckets skip the lease attempt while another bucket has just seen Redis fail
+        if (start < redisUnavailableUntilNanos && !bucket.inFallback(start)) {
+            bucket.enterFallback(start, redisUnavailableUntilNanos - start);
+        }
+
+        if (bucket.inFallback(start)) {
+            long result = acquireLocally(bucket, config, requested, start);
+            fallbackTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return Mono.just(result);
+        }
+
+        if (bucket.tryTake(requested)) {
+            // Refill ahead of time so the next requests do not wait on Redis
+            if (bucket.available() < leaseSize(config, requested) / 2) {
+                lease(bucketId, bucket, config, requested).subscribe();
+            }
+            localTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return Mono.just(bucket.available());
+        }
+
+        return lease(bucketId, bucket, config, requested)
+                .map(granted -> {
+                    long now = System.nanoTime();
+                    long result = bucket.inFallback(now)
+                            ? acquireLocally(bucket, config, requested, now)
+                            : (bucket.tryTake(requested) ? bucket.available() : DENIED);
+                    leaseTimer.record(now - start, TimeUnit.NANOSECONDS);
+                    return result;
+                });
+    }
+
+    private long acquireLocally(LeasedTokenBucket bucket, RedisRateLimiter.Config config, long requested,
+            long nowNanos) {
+        double share = fallbackShare();
+        long capacity = Math.max(1, (long) (config.getBurstCapacity() * share));
+        bucket.refillLocally(config.getReplenishRate() * share, capacity, nowNanos);
+        return bucket.tryTake(requested) ? bucket.available() : DENIED;
+    }
+
+    double fallbackShare() {
+        if (fallbackShare != null && fallbackShare > 0) {
+            return Math.min(1.0, fallbackShare);
+        }
+        return 1.0 / Math.max(1, expectedNodes);
+    }
+
+    /**
+     * Lease a batch of tokens into the bucket. Concurrent callers share the lease in flight.
+     */
+    private Mono<Long> lease(String bucketId, LeasedTokenBucket bucket, RedisRateLimiter.Config config,
+            long requested) {
+        Sinks.One<Long> sink = Sinks.one();
+        if (!bucket.pendingLease().compareAndSet(null, sink)) {
+            Sinks.One<Long> inFlight = bucket.pendingLease().get();
+            // A null here means the lease just completed; the caller retries on the refilled bucket
+            return inFlight != null ? inFlight.asMono() : Mono.just(0L);
+        }
+
+        requestLease(bucketId, config, leaseSize(config, requested), false)
+                .map(result -> result.get(0))
+                .timeout(Duration.ofMillis(leaseTimeoutMs))
+                .subscribe(granted -> {
+                    bucket.add(granted, config.getBurstCapacity());
+                    bucket.pendingLease().set(null);
+                    sink.tryEmitValue(granted);
+                }, error -> {
+                    log.warn("Token lease failed for {}, limiting locally for {}ms: {}",
+                            bucketId, fallbackRetryMs, error.getMessage());
+                    long now = System.nanoTime();
+                    redisUnavailableUntilNanos = now + TimeUnit.MILLISECONDS.toNanos(fallbackRetryMs);
+                    bucket.enterFallback(now, TimeUnit.MILLISECONDS.toNanos(fallbackRetryMs));
+                    bucket.pendingLease().set(null);
+                    sink.tryEmitValue(0L);
+                });
+        return sink.asMono();
+    }
+
+    private Mono<Long> acquireFromRedis(String bucketId, RedisRateLimiter.Config config, long requested) {
+        long start = System.nanoTime();
+        return requestLease(bucketId, config, requested, true)
+                .map(result -> result.get(0) >= requested ? result.get(1) : DENIED)
+                // Same as RedisRateLimiter: without local buckets a Redis failure lets the request through
+                .onErrorResume(error -> {
+                    log.warn("Rate limit check failed for {}: {}", bucketId, error.getMessage());
+                    return Mono.just(0L);
+                })
+                .doOnNext(result -> leaseTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+    }
+
+    private Mono<List<Long>> requestLease(String bucketId, RedisRateLimiter.Config config, long leaseSize,
+            boolean allOrNothing) {
+        String prefix = "request_rate_limiter.{" + bucketId + "}";
+        List<String> keys = List.of(prefix + ".tokens", prefix + ".timestamp");
+        List<String> args = List.of(
+                String.valueOf(config.getReplenishRate()),
+                String.valueOf(config.getBurstCapacity()),
+                String.valueOf(System.currentTimeMillis() / 1000d),
+                String.valueOf(leaseSize),
+                allOrNothing ? "1" : "0");
+        return redisTemplate.execute(leaseScript, keys, args)
+                .next()
+                .defaultIfEmpty(List.of(0L, 0L));
+    }
+
+    private long leaseSize(RedisRateLimiter.Config config, long requested) {
+        long size = (long) Math.ceil(config.getBurstCapacity() * leaseFraction);
+        return Math.max(Math.max(1, size), requested);
+    }
+
+    private void evictIdleBuckets() {
+        long cutoff = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(idleEvictionMs);
+        buckets.values().removeIf(bucket -> bucket.lastAccessNanos() < cutoff);
+    }
+
+    private static Timer acquireTimer(MeterRegistry meterRegistry, String path) {
+        return Timer.builder("gateway.ratelimit.acquire")
+                .description("Latency added by the rate limit decision")
+                .tag("path", path)
+                .register(meterRegistry);
+    }
+}
@@ -1,19 +1,93 @@
 package com.example.gateway.config;
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.gateway.filter.ratelimit.KeyResolver;
+import org.springframework.http.HttpCookie;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+
 /**
- * Resolves rate limit key based solely on client IP address.
+ * Resolves rate limit key from the authenticated identity in the JWT cookie.
+ * The token is verified locally with the shared JWT secret (no backend call);
+ * authenticated traffic is keyed by user id and split into user/admin tiers,
+ * anonymous traffic and invalid tokens fall back to the client IP address.
  */
 @Component
 public class UserKeyResolver implements KeyResolver {
 
+    private static final String JWT_COOKIE = "jwt";
+    private static final String ADMIN_AUTHORITY = "ROLE_ADMIN";
+
+    private final JwtParser jwtParser;
+
+    public UserKeyResolver(@Value("${jwt.secret}") String jwtSecret) {
+        this.jwtParser = Jwts.parser()
+                .verifyWith(new SecretKeySpec(jwtSecret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"))
+                .build();
+    }
+
     @Override
     public Mono<String> resolve(ServerWebExchange exchange) {
-        return Mono.just("ip:" + getClientIp(exchange));
+        Claims claims = getClaims(exchange);
+        if (claims != null) {
+            String userId = getUserId(claims);
+            if (userId != null) {
+                RateLimitTier tier = isAdmin(claims) ? RateLimitTier.ADMIN : RateLimitTier.USER;
+                return Mono.just(tier.key(userId));
+            }
+        }
+        return Mono.just(RateLimitTier.ANONYMOUS.key(getClientIp(exchange)));
+    }
+
+    /**
+     * Id of the verified token in the jwt cookie, as the backend blacklists it, or null
+     * when the request carries no valid token.
+     */
+    public String getTokenId(ServerWebExchange exchange) {
+        Claims claims = getClaims(exchange);
+        if (claims == null) {
+            return null;
+        }
+        // The backend falls back to the token's hash for tokens without a jti
+        String tokenId = claims.getId();
+        return tokenId != null && !tokenId.isEmpty() ? tokenId
+                : String.valueOf(exchange.getRequest().getCookies().getFirst(JWT_COOKIE).getValue().hashCode());
+    }
+
+    private Claims getClaims(ServerWebExchange exchange) {
+        HttpCookie cookie = exchange.getRequest().getCookies().getFirst(JWT_COOKIE);
+        if (cookie == null || cookie.getValue().isEmpty()) {
+            return null;
+        }
+        try {
+            // Expired, tampered or malformed tokens are treated as anonymous traffic
+            return jwtParser.parseSignedClaims(cookie.getValue()).getPayload();
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private String getUserId(Claims claims) {
+        // Tokens issued before the uid claim was added only carry the username
+        Object uid = claims.get("uid");
+        if (uid != null) {
+            return uid.toString();
+        }
+        return claims.getSubject();
+    }
+
+    private boolean isAdmin(Claims claims) {
+        // Roles are serialized by the backend as [{"authority":"ROLE_ADMIN"}]
+        Object roles = claims.get("roles");
+        return roles != null && roles.toString().contains(ADMIN_AUTHORITY);
     }
 
     private String getClientIp(ServerWebExchange exchange) {
@@ -36,4 +110,3 @@ public class UserKeyResolver implements KeyResolver {
         return ip != null ? ip : "unknown";
     }
 }
-
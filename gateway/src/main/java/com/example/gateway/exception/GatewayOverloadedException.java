@@ -0,0 +1,22 @@
+package com.example.gateway.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Thrown when the backend concurrency limit is reached and the request could not be queued.
+ * Rendered as 503 with a Retry-After header by {@link RateLimitExceptionHandler}.
+ */
+public class GatewayOverloadedException extends ResponseStatusException {
+
+    private final long retryAfterSeconds;
+
+    public GatewayOverloadedException(long retryAfterSeconds) {
+        super(HttpStatus.SERVICE_UNAVAILABLE, "Backend concurrency limit reached");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
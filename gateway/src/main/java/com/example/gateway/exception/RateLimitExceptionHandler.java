@@ -93,6 +93,54 @@ public class RateLimitExceptionHandler implements ErrorWebExceptionHandler {
             }
         }
         
+        // Backend concurrency limit reached (see AdaptiveConcurrencyLimiter)
+        if (ex instanceof GatewayOverloadedException) {
+            GatewayOverloadedException overloaded = (GatewayOverloadedException) ex;
+            String retryAfter = String.valueOf(overloaded.getRetryAfterSeconds());
+            exchange.getResponse().setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+            exchange.getResponse().getHeaders().setContentType(MediaType.APPLICATION_JSON);
+            exchange.getResponse().getHeaders().set("Retry-After", retryAfter);
+
+            Map<String, Object> errorBody = new HashMap<>();
+            errorBody.put("timestamp", Instant.now().toString());
+            errorBody.put("status", 503);
+            errorBody.put("error", "Service Unavailable");
+            errorBody.put("message", "Server is busy. Please try again later.");
+            errorBody.put("retryAfter", retryAfter);
+
+            DataBuffer dataBuffer;
+            try {
+                dataBuffer = bufferFactory.wrap(objectMapper.writeValueAsBytes(errorBody));
+            } catch (JsonProcessingException e) {
+                dataBuffer = bufferFactory.wrap("{}".getBytes());
+            }
+
+            return exchange.getResponse().writeWith(Mono.just(dataBuffer));
+        }
+
+        // Backend did not answer within the route's response timeout
+        if (ex instanceof org.springframework.web.server.ResponseStatusException
+                && ((org.springframework.web.server.ResponseStatusException) ex).getStatusCode()
+                        .isSameCodeAs(HttpStatus.GATEWAY_TIMEOUT)) {
+            exchange.getResponse().setStatusCode(HttpStatus.GATEWAY_TIMEOUT);
+            exchange.getResponse().getHeaders().setContentType(MediaType.APPLICATION_JSON);
+
+            Map<String, Object> errorBody = new HashMap<>();
+            errorBody.put("timestamp", Instant.now().toString());
+            errorBody.put("status", 504);
+            errorBody.put("error", "Gateway Timeout");
+            errorBody.put("message", "The server took too long to respond. Please try again later.");
+
+            DataBuffer dataBuffer;
+            try {
+                dataBuffer = bufferFactory.wrap(objectMapper.writeValueAsBytes(errorBody));
+            } catch (JsonProcessingException e) {
+                dataBuffer = bufferFactory.wrap("{}".getBytes());
+            }
+
+            return exchange.getResponse().writeWith(Mono.just(dataBuffer));
+        }
+
         if (ex instanceof NotFoundException) {
             exchange.getResponse().setStatusCode(HttpStatus.NOT_FOUND);
             exchange.getResponse().getHeaders().setContentType(MediaType.APPLICATION_JSON);
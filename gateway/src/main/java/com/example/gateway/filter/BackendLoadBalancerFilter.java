@@ -0,0 +1,100 @@
+package com.example.gateway.filter;
+
+import com.example.gateway.config.BackendInstance;
+import com.example.gateway.config.BackendPool;
+import com.example.gateway.config.UserKeyResolver;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.RouteToRequestUrlFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR;
+
+/**
+ * Global filter that sends each request to an instance picked by {@link BackendPool}, by
+ * replacing the host of the routed URL. Requests on {@code backend.stickyPaths} (SSE streams)
+ * stick to one instance per user, so reconnects land where the stream was.
+ */
+@Component
+public class BackendLoadBalancerFilter implements GlobalFilter, Ordered {
+
+    @Value("${backend.stickyPaths:/api/sse/**}")
+    private List<String> stickyPaths;
+
+    private final BackendPool pool;
+    private final UserKeyResolver keyResolver;
+    private final List<PathPattern> stickyPatterns = new ArrayList<>();
+
+    public BackendLoadBalancerFilter(BackendPool pool, UserKeyResolver keyResolver) {
+        this.pool = pool;
+        this.keyResolver = keyResolver;
+    }
+
+    @PostConstruct
+    public void compilePatterns() {
+        stickyPaths.forEach(path -> stickyPatterns.add(PathPatternParser.defaultInstance.parse(path)));
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        URI url = exchange.getAttribute(GATEWAY_REQUEST_URL_ATTR);
+        if (url == null || !("http".equals(url.getScheme()) || "https".equals(url.getScheme()))) {
+            return chain.filter(exchange);
+        }
+
+        boolean sticky = isSticky(exchange.getRequest().getPath().pathWithinApplication());
+        Mono<BackendInstance> chosen = sticky
+                ? keyResolver.resolve(exchange).defaultIfEmpty("").map(pool::chooseSticky)
+                : Mono.fromSupplier(pool::choose);
+
+        return chosen.flatMap(instance -> {
+            URI backend = instance.getUri();
+            URI target = UriComponentsBuilder.fromUri(url)
+                    .scheme(backend.getScheme())
+                    .host(backend.getHost())
+                    .port(backend.getPort())
+                    .build(true)
+                    .toUri();
+            exchange.getAttributes().put(GATEWAY_REQUEST_URL_ATTR, target);
+
+            instance.begin();
+            long start = System.nanoTime();
+            return chain.filter(exchange)
+                    .doFinally(signal -> {
+                        instance.end();
+                        // Streams stay open for minutes; their duration says nothing about latency
+                        if (!sticky && signal == SignalType.ON_COMPLETE) {
+                            pool.observe(instance, System.nanoTime() - start);
+                        }
+                    });
+        });
+    }
+
+    private boolean isSticky(PathContainer path) {
+        for (PathPattern pattern : stickyPatterns) {
+            if (pattern.matches(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int getOrder() {
+        return RouteToRequestUrlFilter.ROUTE_TO_URL_FILTER_ORDER + 1; // Once the routed URL is known
+    }
+}
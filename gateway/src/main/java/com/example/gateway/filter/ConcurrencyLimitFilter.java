@@ -0,0 +1,61 @@
+package com.example.gateway.filter;
+
+import com.example.gateway.config.AdaptiveConcurrencyLimiter;
+import com.example.gateway.config.RequestPriority;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Global filter that admits requests to the backend through {@link AdaptiveConcurrencyLimiter}.
+ * Runs after the route rate limiters, so requests rejected there never take a slot.
+ * SSE streams are left out: they stay open for minutes and would pin slots and skew latency.
+ */
+@Component
+public class ConcurrencyLimitFilter implements GlobalFilter, Ordered {
+
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    public ConcurrencyLimitFilter(AdaptiveConcurrencyLimiter limiter) {
+        this.limiter = limiter;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if (!limiter.isEnabled() || exchange.getRequest().getPath().value().startsWith("/api/sse/")) {
+            return chain.filter(exchange);
+        }
+
+        return limiter.acquire(RequestPriority.of(exchange.getRequest()))
+                .then(Mono.defer(() -> {
+                    long start = System.nanoTime();
+                    return chain.filter(exchange)
+                            .doFinally(signal -> {
+                                if (signal == SignalType.CANCEL) {
+                                    limiter.releaseUnused();
+                                } else {
+                                    boolean dropped = signal == SignalType.ON_ERROR
+                                            || isOverloadStatus(exchange.getResponse().getStatusCode());
+                                    limiter.release(System.nanoTime() - start, dropped);
+                                }
+                            });
+                }));
+    }
+
+    private boolean isOverloadStatus(HttpStatusCode status) {
+        return status != null && (status.isSameCodeAs(HttpStatus.BAD_GATEWAY)
+                || status.isSameCodeAs(HttpStatus.SERVICE_UNAVAILABLE)
+                || status.isSameCodeAs(HttpStatus.GATEWAY_TIMEOUT));
+    }
+
+    @Override
+    public int getOrder() {
+        return 10; // After the route filters (rate limiting), before the routing filters
+    }
+}
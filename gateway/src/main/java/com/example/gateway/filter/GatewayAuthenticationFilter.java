@@ -2,66 +2,140 @@ package com.example.gateway.filter;
 
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyRoutingFilter;
 import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
-import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.List;
 
 /**
  * Global filter that adds gateway identification header to all backend requests
  * This allows the backend to identify requests coming from the gateway
  * Adds an HMAC signature to prevent header spoofing
+ * <p>
+ * The signature covers a random nonce, which the backend remembers to reject replays, and
+ * the SHA-256 of the body. The digest is computed chunk by chunk as the body is read, for
+ * bodies up to {@code gateway.signing.maxDigestBytes}; larger, streamed and form bodies are
+ * sent as {@value #UNSIGNED_PAYLOAD} so uploads are never held in memory.
  */
 @Component
 public class GatewayAuthenticationFilter implements GlobalFilter, Ordered {
-    
-    @Value("${gateway.shared.secret:change-me}")
-    private String sharedSecret;
-    
+
+    static final String UNSIGNED_PAYLOAD = "UNSIGNED-PAYLOAD";
+    private static final String EMPTY_BODY_SHA256 = "e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855";
+
+    private final RequestSigner signer;
+    private final SecureRandom random = new SecureRandom();
+
+    @Value("${gateway.signing.maxDigestBytes:1048576}")
+    private long maxDigestBytes;
+
+    public GatewayAuthenticationFilter(@Value("${gateway.shared.secret:change-me}") String sharedSecret) {
+        this.signer = new RequestSigner(sharedSecret);
+    }
+
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
         ServerHttpRequest originalRequest = exchange.getRequest();
+        HttpHeaders headers = originalRequest.getHeaders();
+        long contentLength = headers.getContentLength();
+
+        if (contentLength == 0 || (contentLength < 0 && !headers.containsKey(HttpHeaders.TRANSFER_ENCODING))) {
+            return chain.filter(exchange.mutate().request(signed(originalRequest, EMPTY_BODY_SHA256)).build());
+        }
+        if (contentLength < 0 || contentLength > maxDigestBytes || isForm(headers.getContentType())) {
+            return chain.filter(exchange.mutate().request(signed(originalRequest, UNSIGNED_PAYLOAD)).build());
+        }
+
+        // Small body: digest each chunk as it arrives and forward the same buffers, without joining them
+        MessageDigest sha256 = newSha256();
+        return originalRequest.getBody()
+                .doOnNext(buffer -> {
+                    try (DataBuffer.ByteBufferIterator iterator = buffer.readableByteBuffers()) {
+                        iterator.forEachRemaining(sha256::update);
+                    }
+                })
+                .collectList()
+                .doOnDiscard(DataBuffer.class, DataBufferUtils::release)
+                .flatMap(chunks -> {
+                    ServerHttpRequest request = signed(originalRequest, RequestSigner.toHex(sha256.digest()));
+                    return chain.filter(exchange.mutate().request(new ReplayedBodyRequest(request, chunks)).build());
+                });
+    }
+
+    private ServerHttpRequest signed(ServerHttpRequest originalRequest, String bodyDigest) {
         long timestampMs = System.currentTimeMillis();
         String method = originalRequest.getMethod() != null ? originalRequest.getMethod().name() : "UNKNOWN";
         String path = originalRequest.getURI().getRawPath();
-        String payload = method + "\n" + path + "\n" + timestampMs;
-        String signature = sign(payload, sharedSecret);
-        
+        String nonce = newNonce();
+        String signature = signer.sign(method, path, timestampMs, nonce, bodyDigest);
+
         // Overwrite any incoming headers and add signed identification headers
-        ServerHttpRequest request = originalRequest.mutate()
+        return originalRequest.mutate()
                 .header("X-Gateway-Request", "true")
                 .header("X-Gateway-Timestamp", String.valueOf(timestampMs))
+                .header("X-Gateway-Nonce", nonce)
+                .header("X-Gateway-Content-SHA256", bodyDigest)
                 .header("X-Gateway-Signature", signature)
                 // Preserve the Origin header if it exists (for CORS validation)
                 .build();
-        
-        return chain.filter(exchange.mutate().request(request).build());
     }
-    
+
+    private String newNonce() {
+        byte[] bytes = new byte[16];
+        random.nextBytes(bytes);
+        return RequestSigner.toHex(bytes);
+    }
+
+    private static boolean isForm(MediaType contentType) {
+        // The backend parses these through the servlet container, which bypasses its digest check
+        return contentType != null && (MediaType.MULTIPART_FORM_DATA.isCompatibleWith(contentType)
+                || MediaType.APPLICATION_FORM_URLENCODED.isCompatibleWith(contentType));
+    }
+
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
     @Override
     public int getOrder() {
-        return -100; // Run early in the filter chain
+        // Just before the request is sent, so rejected requests never read their body and
+        // time spent queueing for a backend slot does not count against the timestamp skew
+        return NettyRoutingFilter.ORDER - 1;
     }
 
-    private String sign(String data, String secret) {
-        try {
-            Mac mac = Mac.getInstance("HmacSHA256");
-            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
-            byte[] rawHmac = mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
-            StringBuilder sb = new StringBuilder(rawHmac.length * 2);
-            for (byte b : rawHmac) {
-                sb.append(String.format("%02x", b));
-            }
-            return sb.toString();
-        } catch (Exception e) {
-            return "";
+    /**
+     * Request whose body is the already-read chunks.
+     */
+    private static class ReplayedBodyRequest extends ServerHttpRequestDecorator {
+
+        private final List<DataBuffer> chunks;
+
+        ReplayedBodyRequest(ServerHttpRequest delegate, List<DataBuffer> chunks) {
+            super(delegate);
+            this.chunks = chunks;
+        }
+
+        @Override
+        public Flux<DataBuffer> getBody() {
+            return Flux.fromIterable(chunks);
         }
     }
 }
-
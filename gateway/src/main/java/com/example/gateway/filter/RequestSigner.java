@@ -0,0 +1,170 @@
+package com.example.gateway.filter;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+
+/**
+ * HMAC-SHA256 signer for the gateway identification headers.
+ * Signs {@code method + "\n" + path + "\n" + timestampMs + "\n" + nonce + "\n" + bodyDigest},
+ * hex encoded; the backend has an identical copy of this class to verify the signature, and both
+ * copies are tested against the same vectors (RequestSignerTest).
+ * <p>
+ * Each thread keeps a keyed {@link Mac} and its input/output buffers, so signing an
+ * ASCII request line allocates nothing but the resulting hex string.
+ */
+public final class RequestSigner {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private final ThreadLocal<State> state;
+
+    public RequestSigner(String secret) {
+        SecretKeySpec key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        newMac(key); // Fail at startup rather than on the first request
+        this.state = ThreadLocal.withInitial(() -> new State(newMac(key)));
+    }
+
+    public String sign(String method, String path, long timestampMs, String nonce, String bodyDigest) {
+        State s = state.get();
+        digest(s, method, path, timestampMs, nonce, bodyDigest);
+        return toHex(s.digest);
+    }
+
+    /**
+     * Constant-time check of a hex signature against the expected digest bytes.
+     */
+    public boolean verify(String method, String path, long timestampMs, String nonce, String bodyDigest,
+            String signature) {
+        State s = state.get();
+        if (signature == null || !decodeHex(signature, s.provided)) {
+            return false;
+        }
+        digest(s, method, path, timestampMs, nonce, bodyDigest);
+        return MessageDigest.isEqual(s.digest, s.provided);
+    }
+
+    public static String toHex(byte[] bytes) {
+        byte[] hex = new byte[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            hex[i * 2] = HEX[(bytes[i] >> 4) & 0x0f];
+            hex[i * 2 + 1] = HEX[bytes[i] & 0x0f];
+        }
+        return new String(hex, StandardCharsets.US_ASCII);
+    }
+
+    private void digest(State s, String method, String path, long timestampMs, String nonce, String bodyDigest) {
+        Mac mac = s.mac;
+        int length = encodeAscii(s, method, path, timestampMs, nonce, bodyDigest);
+        if (length >= 0) {
+            mac.update(s.input, 0, length);
+        } else {
+            // Non-ASCII request line; UTF-8 encodes ASCII identically, so signatures still match
+            String payload = method + "\n" + path + "\n" + timestampMs + "\n" + nonce + "\n" + bodyDigest;
+            mac.update(payload.getBytes(StandardCharsets.UTF_8));
+        }
+        try {
+            mac.doFinal(s.digest, 0);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC output buffer too small", e);
+        }
+    }
+
+    /**
+     * Write the payload into the thread's input buffer; returns its length, or -1 if it is not plain ASCII.
+     */
+    private static int encodeAscii(State s, String method, String path, long timestampMs, String nonce,
+            String bodyDigest) {
+        if (timestampMs < 0) {
+            return -1;
+        }
+        int required = method.length() + path.length() + nonce.length() + bodyDigest.length() + 4 + 19;
+        if (s.input.length < required) {
+            s.input = new byte[Math.max(required, s.input.length * 2)];
+        }
+        byte[] buffer = s.input;
+        int pos = writeAscii(buffer, 0, method);
+        if (pos < 0) {
+            return -1;
+        }
+        buffer[pos++] = '\n';
+        pos = writeAscii(buffer, pos, path);
+        if (pos < 0) {
+            return -1;
+        }
+        buffer[pos++] = '\n';
+
+        int start = pos;
+        long value = timestampMs;
+        do {
+            buffer[pos++] = (byte) ('0' + (value % 10));
+            value /= 10;
+        } while (value > 0);
+        for (int i = start, j = pos - 1; i < j; i++, j--) {
+            byte digit = buffer[i];
+            buffer[i] = buffer[j];
+            buffer[j] = digit;
+        }
+        buffer[pos++] = '\n';
+
+        pos = writeAscii(buffer, pos, nonce);
+        if (pos < 0) {
+            return -1;
+        }
+        buffer[pos++] = '\n';
+        return writeAscii(buffer, pos, bodyDigest);
+    }
+
+    private static int writeAscii(byte[] buffer, int pos, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c > 0x7f) {
+                return -1;
+            }
+            buffer[pos++] = (byte) c;
+        }
+        return pos;
+    }
+
+    private static boolean decodeHex(String hex, byte[] out) {
+        if (hex.length() != out.length * 2) {
+            return false;
+        }
+        for (int i = 0; i < out.length; i++) {
+            int high = Character.digit(hex.charAt(i * 2), 16);
+            int low = Character.digit(hex.charAt(i * 2 + 1), 16);
+            if (high < 0 || low < 0) {
+                return false;
+            }
+            out[i] = (byte) ((high << 4) | low);
+        }
+        return true;
+    }
+
+    private static Mac newMac(SecretKeySpec key) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot initialize " + ALGORITHM, e);
+        }
+    }
+
+    private static final class State {
+
+        private final Mac mac;
+        private final byte[] digest;
+        private final byte[] provided;
+        private byte[] input = new byte[256];
+
+        State(Mac mac) {
+            this.mac = mac;
+            this.digest = new byte[mac.getMacLength()];
+            this.provided = new byte[mac.getMacLength()];
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.example.gateway.filter;
+
+import com.example.gateway.config.RateLimitTier;
+import com.example.gateway.config.ResponseCache;
+import com.example.gateway.config.ResponseCache.CachedResponse;
+import com.example.gateway.config.TokenBlacklist;
+import com.example.gateway.config.UserKeyResolver;
+import com.example.gateway.filter.ResponseCaptureFilter.CapturingResponse;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Global filter that serves cacheable GET responses from {@link ResponseCache}.
+ * <p>
+ * Entries are keyed by path, query and visibility class: anonymous or authenticated for
+ * {@code cache.sharedPaths}, and the user's own id for {@code cache.perUserPaths}, whose
+ * responses carry per-user fields (liked, subscribed, own hidden posts). The backend drops a
+ * single user's entries when only their view changed, e.g. after a like or a follow.
+ * Concurrent misses on the same key share one backend call, and every cached response
+ * gets a strong ETag so clients can revalidate with If-None-Match and receive 304.
+ * Signed-in users only use the cache while their token is not on the blacklist.
+ */
+@Component
+public class ResponseCacheFilter implements GlobalFilter, Ordered {
+
+    private static final List<String> STORED_HEADERS = List.of(
+            HttpHeaders.CONTENT_TYPE, HttpHeaders.CONTENT_ENCODING, HttpHeaders.CACHE_CONTROL,
+            HttpHeaders.PRAGMA, HttpHeaders.EXPIRES, "X-Content-Type-Options", "X-Frame-Options");
+
+    @Value("${cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${cache.sharedPaths:/api/posts/tags,/api/comments/post/*}")
+    private List<String> sharedPaths;
+
+    @Value("${cache.perUserPaths:/api/posts}")
+    private List<String> perUserPaths;
+
+    // How long a coalesced request waits for the first one before going to the backend itself
+    @Value("${cache.coalesceTimeoutMs:5000}")
+    private long coalesceTimeoutMs;
+
+    private final ResponseCache cache;
+    private final UserKeyResolver keyResolver;
+    private final TokenBlacklist tokenBlacklist;
+    private final Map<String, Sinks.One<CachedResponse>> pendingMisses = new ConcurrentHashMap<>();
+    private final List<PathPattern> sharedPatterns = new ArrayList<>();
+    private final List<PathPattern> perUserPatterns = new ArrayList<>();
+
+    public ResponseCacheFilter(ResponseCache cache, UserKeyResolver keyResolver, TokenBlacklist tokenBlacklist) {
+        this.cache = cache;
+        this.keyResolver = keyResolver;
+        this.tokenBlacklist = tokenBlacklist;
+    }
+
+    @PostConstruct
+    public void compilePatterns() {
+        sharedPaths.forEach(path -> sharedPatterns.add(PathPatternParser.defaultInstance.parse(path)));
+        perUserPaths.forEach(path -> perUserPatterns.add(PathPatternParser.defaultInstance.parse(path)));
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        if (!enabled || !HttpMethod.GET.equals(request.getMethod())) {
+            return chain.filter(exchange);
+        }
+
+        PathContainer path = request.getPath().pathWithinApplication();
+        boolean perUser = matches(perUserPatterns, path);
+        if (!perUser && !matches(sharedPatterns, path)) {
+            return chain.filter(exchange);
+        }
+
+        return keyResolver.resolve(exchange).flatMap(identity -> servable(exchange, identity).flatMap(servable -> {
+            if (!servable) {
+                // Let the backend answer a revoked token
+                return chain.filter(exchange);
+            }
+            String owner = perUser ? ownerOf(identity) : null;
+            String key = cacheKey(request, identity, owner);
+            CachedResponse cached = cache.get(key);
+            if (cached != null) {
+                return writeCached(exchange, cached);
+            }
+
+            CapturingResponse capturing = exchange.getAttribute(ResponseCaptureFilter.CAPTURING_RESPONSE_ATTR);
+            if (capturing == null) {
+                return chain.filter(exchange);
+            }
+
+            Sinks.One<CachedResponse> sink = Sinks.one();
+            Sinks.One<CachedResponse> inFlight = pendingMisses.putIfAbsent(key, sink);
+            if (inFlight != null) {
+                // Another request is already fetching this key; reuse its response if it was cacheable
+                return inFlight.asMono()
+                        .timeout(Duration.ofMillis(coalesceTimeoutMs), Mono.empty())
+                        .map(Optional::of)
+                        .defaultIfEmpty(Optional.empty())
+                        .flatMap(response -> response.isPresent()
+                                ? writeCached(exchange, response.get())
+                                : chain.filter(exchange));
+            }
+
+            long generation = cache.generation();
+            capturing.arm((status, headers, body) -> {
+                HttpHeaders stored = new HttpHeaders();
+                STORED_HEADERS.forEach(name -> {
+                    List<String> values = headers.get(name);
+                    if (values != null) {
+                        stored.put(name, values);
+                    }
+                });
+                String etag = "\"" + DigestUtils.md5DigestAsHex(body) + "\"";
+                CachedResponse entry = cache.newEntry(path.value(), owner, status, stored, body, etag);
+                cache.put(key, entry, generation);
+                sink.tryEmitValue(entry);
+                return etag;
+            });
+            return chain.filter(exchange)
+                    .doFinally(signal -> {
+                        pendingMisses.remove(key, sink);
+                        // Releases waiting requests when the response was not cacheable
+                        sink.tryEmitEmpty();
+                    });
+        }));
+    }
+
+    // Anonymous requests need no check; a signed-in user's token must not have been revoked
+    private Mono<Boolean> servable(ServerWebExchange exchange, String identity) {
+        if (RateLimitTier.fromKey(identity) == RateLimitTier.ANONYMOUS) {
+            return Mono.just(true);
+        }
+        String tokenId = keyResolver.getTokenId(exchange);
+        if (tokenId == null) {
+            return Mono.just(false);
+        }
+        return tokenBlacklist.isRevoked(tokenId).map(revoked -> !revoked);
+    }
+
+    private Mono<Void> writeCached(ServerWebExchange exchange, CachedResponse cached) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.getHeaders().putAll(cached.headers());
+        response.getHeaders().setETag(cached.etag());
+        response.getHeaders().set("X-Cache", "HIT");
+
+        if (etagMatches(exchange.getRequest().getHeaders().getIfNoneMatch(), cached.etag())) {
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            return response.setComplete();
+        }
+        response.setStatusCode(cached.status());
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(cached.body())));
+    }
+
+    private String cacheKey(ServerHttpRequest request, String identity, String owner) {
+        String visibility;
+        if (RateLimitTier.fromKey(identity) == RateLimitTier.ANONYMOUS) {
+            visibility = "anonymous";
+        } else {
+            visibility = owner != null ? "user " + owner : "authenticated";
+        }
+        String query = request.getURI().getRawQuery();
+        return visibility + " " + request.getPath().value() + (query != null ? "?" + query : "");
+    }
+
+    // The user id of a signed-in identity such as user:42, which the backend names in per-user invalidations
+    private static String ownerOf(String identity) {
+        if (RateLimitTier.fromKey(identity) == RateLimitTier.ANONYMOUS) {
+            return null;
+        }
+        return identity.substring(identity.indexOf(':') + 1);
+    }
+
+    private static boolean matches(List<PathPattern> patterns, PathContainer path) {
+        for (PathPattern pattern : patterns) {
+            if (pattern.matches(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean etagMatches(List<String> ifNoneMatch, String etag) {
+        for (String candidate : ifNoneMatch) {
+            if ("*".equals(candidate) || etag.equals(candidate)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int getOrder() {
+        // After the route filters (rate limiting), before the concurrency limit; responses are
+        // captured by ResponseCaptureFilter, which runs before the backend response is written
+        return 5;
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.gateway.filter;
+
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Global filter that wraps the response of GET requests so {@link ResponseCacheFilter} can
+ * store bodies on their way to the client.
+ * <p>
+ * NettyWriteResponseFilter writes the backend response through the exchange it was handed,
+ * so the decorator has to be in place before it runs. It passes everything through until
+ * ResponseCacheFilter arms it on a cache miss; the lookup itself stays after the route filters,
+ * so rate limiting still applies to cache hits.
+ */
+@Component
+public class ResponseCaptureFilter implements GlobalFilter, Ordered {
+
+    static final String CAPTURING_RESPONSE_ATTR = ResponseCaptureFilter.class.getName() + ".capturingResponse";
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if (!HttpMethod.GET.equals(exchange.getRequest().getMethod())) {
+            return chain.filter(exchange);
+        }
+        CapturingResponse capturing = new CapturingResponse(exchange.getResponse());
+        ServerWebExchange mutated = exchange.mutate().response(capturing).build();
+        mutated.getAttributes().put(CAPTURING_RESPONSE_ATTR, capturing);
+        return chain.filter(mutated);
+    }
+
+    @Override
+    public int getOrder() {
+        return NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1;
+    }
+
+    /**
+     * Stores a successful response body and returns the ETag it was stored under.
+     */
+    @FunctionalInterface
+    interface Capture {
+        String store(HttpStatusCode status, HttpHeaders headers, byte[] body);
+    }
+
+    /**
+     * Response decorator that hands 200 bodies without cookies to its capture once armed.
+     */
+    static class CapturingResponse extends ServerHttpResponseDecorator {
+
+        private volatile Capture capture;
+
+        CapturingResponse(ServerHttpResponse delegate) {
+            super(delegate);
+        }
+
+        void arm(Capture capture) {
+            this.capture = capture;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            Capture capture = this.capture;
+            HttpStatusCode status = getStatusCode();
+            // Never cache errors or anything that sets cookies
+            if (capture == null || status == null || !status.isSameCodeAs(HttpStatus.OK)
+                    || getHeaders().containsKey(HttpHeaders.SET_COOKIE)) {
+                return super.writeWith(body);
+            }
+
+            return DataBufferUtils.join(Flux.from(body)).flatMap(joined -> {
+                byte[] bytes = new byte[joined.readableByteCount()];
+                joined.read(bytes);
+                DataBufferUtils.release(joined);
+
+                getHeaders().setETag(capture.store(status, getHeaders(), bytes));
+                getHeaders().set("X-Cache", "MISS");
+                return super.writeWith(Mono.just(bufferFactory().wrap(bytes)));
+            });
+        }
+    }
+}
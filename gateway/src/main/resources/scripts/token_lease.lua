@@ -0,0 +1,51 @@
+--[[
+Token Bucket Lease
+Grants up to the requested number of tokens from the shared bucket so a gateway
+node can serve them from memory instead of calling Redis per request.
+KEYS[1] - tokens key
+KEYS[2] - timestamp key
+ARGV[1] - replenish rate (tokens per second)
+ARGV[2] - burst capacity (max tokens)
+ARGV[3] - current timestamp (seconds, fractional)
+ARGV[4] - requested lease size
+ARGV[5] - 1 to grant all requested tokens or none (per-request mode), 0 for partial grants
+Returns:
+  granted (0..requested)
+  tokens_left (remaining tokens in the shared bucket)
+--]]
+
+local tokens_key = KEYS[1]
+local timestamp_key = KEYS[2]
+
+local rate = tonumber(ARGV[1])
+local capacity = tonumber(ARGV[2])
+local now = tonumber(ARGV[3])
+local requested = tonumber(ARGV[4])
+local all_or_nothing = ARGV[5] == "1"
+
+local fill_time = capacity / rate
+local ttl = math.max(1, math.floor(fill_time * 2))
+
+local last_tokens = tonumber(redis.call("get", tokens_key))
+if last_tokens == nil then
+  last_tokens = capacity
+end
+
+local last_refreshed = tonumber(redis.call("get", timestamp_key))
+if last_refreshed == nil then
+  last_refreshed = 0
+end
+
+-- Refill, then hand out as many whole tokens as are available
+local delta = math.max(0, now - last_refreshed)
+local filled_tokens = math.min(capacity, last_tokens + (delta * rate))
+local granted = math.min(requested, math.floor(filled_tokens))
+if all_or_nothing and granted < requested then
+  granted = 0
+end
+local new_tokens = filled_tokens - granted
+
+redis.call("setex", tokens_key, ttl, new_tokens)
+redis.call("setex", timestamp_key, ttl, now)
+
+return { granted, math.floor(new_tokens) }
@@ -0,0 +1,109 @@
+package com.example.gateway.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RequestCostModelTest {
+
+    private static final long MB = 1024 * 1024;
+
+    private final RequestCostModel costModel = new RequestCostModel();
+
+    @BeforeEach
+    void setUp() {
+        bind();
+    }
+
+    @Test
+    void unmatchedRequestsCostTheReadOrWriteDefault() {
+        assertEquals(1, costModel.cost(MockServerHttpRequest.get("/api/users/7").build()));
+        assertEquals(2, costModel.cost(MockServerHttpRequest.post("/api/users/7/follow").build()));
+        assertEquals(2, costModel.cost(MockServerHttpRequest.delete("/api/posts/7").build()));
+    }
+
+    @Test
+    void rulesMatchMethodAndPath() {
+        assertEquals(5, costModel.cost(MockServerHttpRequest.get("/api/posts").build()));
+        // Rules are per method: a POST to a GET-only path is a plain write
+        assertEquals(2, costModel.cost(MockServerHttpRequest.post("/api/posts").build()));
+    }
+
+    @Test
+    void mostSpecificRuleWins() {
+        assertEquals(3, costModel.cost(MockServerHttpRequest.get("/api/posts/tags").build()));
+        assertEquals(4, costModel.cost(MockServerHttpRequest.get("/api/posts/7").build()));
+    }
+
+    @Test
+    void bodyAddsATokenPerUploadUnitUpToTheMax() {
+        assertEquals(3, costModel.cost(MockServerHttpRequest.post("/api/files/upload").contentLength(MB - 1).build()));
+        assertEquals(8, costModel.cost(MockServerHttpRequest.post("/api/files/upload").contentLength(5 * MB).build()));
+        assertEquals(20, costModel.cost(
+                MockServerHttpRequest.post("/api/files/upload").contentLength(100 * MB).build()));
+    }
+
+    @Test
+    void everyRequestCostsAtLeastOneToken() {
+        costModel.setRead(0);
+
+        assertEquals(1, costModel.cost(MockServerHttpRequest.get("/api/users/7").build()));
+    }
+
+    @Test
+    void requestsCostedWhileTheRulesAreReboundSeeACompleteRuleSet() throws Exception {
+        MockServerHttpRequest request = MockServerHttpRequest.get("/api/posts").build();
+        AtomicBoolean rebinding = new AtomicBoolean(true);
+        ExecutorService readers = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Long>> wrongCosts = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                wrongCosts.add(readers.submit(() -> {
+                    long wrong = 0;
+                    while (rebinding.get()) {
+                        if (costModel.cost(request) != 5) {
+                            wrong++;
+                        }
+                    }
+                    return wrong;
+                }));
+            }
+            // What /actuator/refresh does to the bean: new properties, then the init method again
+            for (int i = 0; i < 2000; i++) {
+                bind();
+            }
+            rebinding.set(false);
+
+            for (Future<Long> wrong : wrongCosts) {
+                assertEquals(0, wrong.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            readers.shutdownNow();
+        }
+    }
+
+    private void bind() {
+        // The catch-all goes in first, so only sorting by specificity lets the tags rule win
+        Map<String, Long> getRules = new LinkedHashMap<>();
+        getRules.put("/api/posts/**", 4L);
+        getRules.put("/api/posts/tags", 3L);
+        getRules.put("/api/posts", 5L);
+        Map<String, Map<String, Long>> rules = new LinkedHashMap<>();
+        rules.put("get", getRules);
+        rules.put("POST", Map.of("/api/files/**", 3L));
+        costModel.setRules(rules);
+        costModel.compileRules();
+    }
+}
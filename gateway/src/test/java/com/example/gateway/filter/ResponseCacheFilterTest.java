@@ -0,0 +1,165 @@
+package com.example.gateway.filter;
+
+import com.example.gateway.config.ResponseCache;
+import com.example.gateway.config.TokenBlacklist;
+import com.example.gateway.config.UserKeyResolver;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.http.HttpCookie;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ResponseCacheFilterTest {
+
+    private static final String SECRET = "test-secret-that-is-long-enough-for-hmac-sha256-signatures";
+
+    private final AtomicInteger backendCalls = new AtomicInteger();
+    private final TokenBlacklist tokenBlacklist = mock(TokenBlacklist.class);
+    private HttpStatus backendStatus;
+    private ResponseCache cache;
+    private ResponseCaptureFilter captureFilter;
+    private ResponseCacheFilter cacheFilter;
+
+    @BeforeEach
+    void setUp() {
+        cache = new ResponseCache(mock(ReactiveStringRedisTemplate.class), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(cache, "maxBytes", 1 << 20);
+        ReflectionTestUtils.setField(cache, "ttlMs", 30_000);
+
+        cacheFilter = new ResponseCacheFilter(cache, new UserKeyResolver(SECRET), tokenBlacklist);
+        ReflectionTestUtils.setField(cacheFilter, "enabled", true);
+        ReflectionTestUtils.setField(cacheFilter, "sharedPaths", List.of("/api/posts/tags"));
+        ReflectionTestUtils.setField(cacheFilter, "perUserPaths", List.of("/api/posts"));
+        ReflectionTestUtils.setField(cacheFilter, "coalesceTimeoutMs", 5000);
+        cacheFilter.compilePatterns();
+        captureFilter = new ResponseCaptureFilter();
+
+        when(tokenBlacklist.isRevoked(anyString())).thenReturn(Mono.just(false));
+    }
+
+    @Test
+    void capturesBeforeTheBackendResponseIsWritten() {
+        assertTrue(captureFilter.getOrder() < NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER);
+    }
+
+    @Test
+    void secondGetIsServedFromTheCache() {
+        MockServerHttpResponse first = get("/api/posts/tags", null);
+        MockServerHttpResponse second = get("/api/posts/tags", null);
+
+        assertEquals(1, backendCalls.get());
+        assertEquals("MISS", first.getHeaders().getFirst("X-Cache"));
+        assertEquals("HIT", second.getHeaders().getFirst("X-Cache"));
+        assertEquals(HttpStatus.OK, second.getStatusCode());
+        assertEquals(first.getBodyAsString().block(), second.getBodyAsString().block());
+        assertEquals(first.getHeaders().getETag(), second.getHeaders().getETag());
+    }
+
+    @Test
+    void revalidatesWithIfNoneMatch() {
+        String etag = get("/api/posts/tags", null).getHeaders().getETag();
+
+        MockServerWebExchange exchange = MockServerWebExchange.from(
+                MockServerHttpRequest.get("/api/posts/tags").header(HttpHeaders.IF_NONE_MATCH, etag));
+        run(exchange);
+
+        assertEquals(HttpStatus.NOT_MODIFIED, exchange.getResponse().getStatusCode());
+        assertEquals(1, backendCalls.get());
+    }
+
+    @Test
+    void revokedTokenBypassesTheCache() {
+        String token = token("t-1", 42);
+        get("/api/posts", token);
+        when(tokenBlacklist.isRevoked("t-1")).thenReturn(Mono.just(true));
+
+        MockServerHttpResponse response = get("/api/posts", token);
+
+        assertEquals(2, backendCalls.get());
+        assertNull(response.getHeaders().getFirst("X-Cache"));
+    }
+
+    @Test
+    void userInvalidationOnlyDropsThatUsersEntries() {
+        String alice = token("t-1", 42);
+        String bob = token("t-2", 7);
+        get("/api/posts", alice);
+        get("/api/posts", bob);
+
+        cache.invalidate("/api/posts", "42");
+
+        assertEquals("MISS", get("/api/posts", alice).getHeaders().getFirst("X-Cache"));
+        assertEquals("HIT", get("/api/posts", bob).getHeaders().getFirst("X-Cache"));
+        assertEquals(3, backendCalls.get());
+    }
+
+    @Test
+    void errorsAreNotCached() {
+        get("/api/posts/tags", null, HttpStatus.SERVICE_UNAVAILABLE);
+        get("/api/posts/tags", null);
+
+        assertEquals(2, backendCalls.get());
+    }
+
+    private MockServerHttpResponse get(String path, String token) {
+        return get(path, token, HttpStatus.OK);
+    }
+
+    private MockServerHttpResponse get(String path, String token, HttpStatus backendStatus) {
+        MockServerHttpRequest.BaseBuilder<?> request = MockServerHttpRequest.get(path);
+        if (token != null) {
+            request.cookie(new HttpCookie("jwt", token));
+        }
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        this.backendStatus = backendStatus;
+        run(exchange);
+        return exchange.getResponse();
+    }
+
+    // The order the gateway runs them in: capture, route filters, cache lookup, then the backend
+    private void run(ServerWebExchange exchange) {
+        captureFilter.filter(exchange, captured -> cacheFilter.filter(captured, this::backend)).block();
+    }
+
+    private Mono<Void> backend(ServerWebExchange exchange) {
+        int call = backendCalls.incrementAndGet();
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(backendStatus);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        byte[] body = ("{\"call\":" + call + "}").getBytes(StandardCharsets.UTF_8);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+    }
+
+    private static String token(String id, long userId) {
+        return Jwts.builder()
+                .id(id)
+                .subject("user" + userId)
+                .claim("uid", userId)
+                .signWith(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"))
+                .compact();
+    }
+}